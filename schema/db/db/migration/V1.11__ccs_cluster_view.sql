@@ -0,0 +1,61 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+-- Clusters joined with the names and uuids a cluster response carries. The view has no subqueries in its select list,
+-- so the database merges it into the queries against it rather than materializing it for all clusters. VM's of the
+-- listed clusters are looked up separately.
+CREATE OR REPLACE VIEW `cloud`.`sb_ccs_container_cluster_view` AS
+    SELECT
+        cluster.id,
+        cluster.uuid,
+        cluster.name,
+        cluster.description,
+        cluster.zone_id,
+        zone.uuid zone_uuid,
+        zone.name zone_name,
+        cluster.template_id,
+        template.uuid template_uuid,
+        cluster.service_offering_id,
+        offering.uuid service_offering_uuid,
+        offering.name service_offering_name,
+        cluster.network_id,
+        network.uuid network_uuid,
+        network.name network_name,
+        cluster.account_id,
+        cluster.domain_id,
+        cluster.node_count,
+        cluster.cores,
+        cluster.memory,
+        cluster.state,
+        cluster.key_pair,
+        cluster.endpoint,
+        cluster.console_endpoint,
+        details.username,
+        details.password,
+        cluster.created,
+        cluster.removed
+    FROM
+        `cloud`.`sb_ccs_container_cluster` cluster
+            INNER JOIN
+        `cloud`.`data_center` zone ON zone.id = cluster.zone_id
+            LEFT JOIN
+        `cloud`.`vm_template` template ON template.id = cluster.template_id
+            LEFT JOIN
+        `cloud`.`disk_offering` offering ON offering.id = cluster.service_offering_id
+            LEFT JOIN
+        `cloud`.`networks` network ON network.id = cluster.network_id
+            LEFT JOIN
+        `cloud`.`sb_ccs_container_cluster_details` details ON details.cluster_id = cluster.id;
@@ -0,0 +1,20 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+-- indexes for the filters of listContainerCluster. Clusters are listed by state, owner and zone, always leaving out
+-- removed ones; names are matched by prefix.
+ALTER TABLE `cloud`.`sb_ccs_container_cluster` ADD INDEX `i_sb_ccs_container_cluster__state_owner_zone_removed` (`state`, `account_id`, `domain_id`, `zone_id`, `removed`);
+ALTER TABLE `cloud`.`sb_ccs_container_cluster` ADD INDEX `i_sb_ccs_container_cluster__name` (`name`);
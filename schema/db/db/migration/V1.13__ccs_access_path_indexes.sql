@@ -0,0 +1,24 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+-- indexes for the access paths of the container cluster DAOs. Clusters are always looked up leaving out removed ones.
+-- Clusters in a state are found through the index on state added for listing clusters.
+ALTER TABLE `cloud`.`sb_ccs_container_cluster` ADD INDEX `i_sb_ccs_container_cluster__network_id__removed` (`network_id`, `removed`);
+ALTER TABLE `cloud`.`sb_ccs_container_cluster` ADD INDEX `i_sb_ccs_container_cluster__account_id__removed` (`account_id`, `removed`);
+ALTER TABLE `cloud`.`sb_ccs_container_cluster` ADD INDEX `i_sb_ccs_container_cluster__gc__removed__state` (`gc`, `removed`, `state`);
+
+-- VM's of a cluster are read from the index alone
+ALTER TABLE `cloud`.`sb_ccs_container_cluster_vm_map` ADD INDEX `i_sb_ccs_container_cluster_vm_map__cluster_id__vm_id` (`cluster_id`, `vm_id`);
@@ -0,0 +1,25 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+-- clusters owning VM's that changed state are looked up by VM id
+ALTER TABLE `cloud`.`sb_ccs_container_cluster_vm_map` ADD INDEX `i_sb_ccs_container_cluster_vm_map__vm_id` (`vm_id`);
+
+-- VM state changes are picked up as they happen, the state scanner is only a safety net now. Installations still on
+-- the old default get the new one.
+UPDATE `cloud`.`configuration` SET value='600' WHERE name='cloud.container.cluster.state.scanner.interval' AND value='30';
+UPDATE `cloud`.`configuration` SET default_value='600',
+description='interval in seconds at which the state of the container cluster VMs is checked, in addition to the checks made as VMs change state'
+WHERE name='cloud.container.cluster.state.scanner.interval';
@@ -0,0 +1,29 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+CREATE TABLE IF NOT EXISTS `cloud`.`sb_ccs_container_cluster_checkpoint` (
+    `id` bigint unsigned NOT NULL auto_increment COMMENT 'id',
+    `cluster_id` bigint unsigned NOT NULL COMMENT 'cluster id',
+    `step` varchar(32) NOT NULL COMMENT 'completed provisioning step',
+    `node_instance` int unsigned NOT NULL DEFAULT 0 COMMENT 'node the step was completed for, 0 for the master and cluster wide steps',
+    `vm_id` bigint unsigned COMMENT 'vm created in the step',
+    `mgmt_server_id` bigint unsigned NOT NULL COMMENT 'management server provisioning the cluster',
+    `created` datetime NOT NULL COMMENT 'date the step completed',
+
+    PRIMARY KEY(`id`),
+    UNIQUE KEY `uc_container_cluster_checkpoint__cluster_id__step__node` (`cluster_id`, `step`, `node_instance`),
+    CONSTRAINT `container_cluster_checkpoint_cluster__id` FOREIGN KEY `container_cluster_checkpoint_cluster__id`(`cluster_id`) REFERENCES `sb_ccs_container_cluster`(`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,35 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+CREATE TABLE IF NOT EXISTS `cloud`.`sb_ccs_warm_pool_vm` (
+    `id` bigint unsigned NOT NULL auto_increment COMMENT 'id',
+    `zone_id` bigint unsigned NOT NULL COMMENT 'zone the vm is pooled for',
+    `service_offering_id` bigint unsigned NOT NULL COMMENT 'service offering the vm is pooled for',
+    `template_id` bigint unsigned NOT NULL COMMENT 'template the vm was created from',
+    `network_id` bigint unsigned NOT NULL COMMENT 'warm pool network the vm is parked in',
+    `vm_id` bigint unsigned NOT NULL COMMENT 'pooled vm',
+    `created` datetime NOT NULL COMMENT 'date the vm was added to the pool',
+
+    PRIMARY KEY(`id`),
+    UNIQUE KEY `uc_warm_pool_vm__vm_id` (`vm_id`),
+    INDEX `i_warm_pool_vm__zone_id__service_offering_id` (`zone_id`, `service_offering_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.warm.pool', NULL, 'comma separated list of <zone uuid>:<service offering uuid>:<size> entries, each giving the number of stopped node VMs kept ready for container clusters in the zone with the service offering', NULL, NULL, NULL, 0);
+
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.warm.pool.refill.interval', '60', 'interval in seconds at which the container cluster warm pools are topped up', '60', NULL, NULL, 0);
@@ -0,0 +1,29 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+CREATE TABLE IF NOT EXISTS `cloud`.`sb_ccs_network_pool` (
+    `id` bigint unsigned NOT NULL auto_increment COMMENT 'id',
+    `zone_id` bigint unsigned NOT NULL COMMENT 'zone the network is pooled in',
+    `network_id` bigint unsigned NOT NULL COMMENT 'pooled network',
+    `created` datetime NOT NULL COMMENT 'date the network was added to the pool',
+
+    PRIMARY KEY(`id`),
+    UNIQUE KEY `uc_network_pool__network_id` (`network_id`),
+    INDEX `i_network_pool__zone_id` (`zone_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.network.pool.size', '0', 'number of implemented isolated networks kept ready in each zone for container clusters created without a network', '0', NULL, NULL, 0);
@@ -0,0 +1,42 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.placement.attempts', '3', 'number of times the placement of a container cluster is planned again when a concurrent plan reserved the planned capacity first', '3', NULL, 'zone', 1);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.vm.start.timeout', '600', 'time in seconds a container cluster VM is given to start', '600', NULL, 'zone', 1);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.vm.stop.timeout', '300', 'time in seconds a container cluster VM is given to stop', '300', NULL, 'zone', 1);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.vm.destroy.timeout', '600', 'time in seconds a container cluster VM is given to be destroyed', '600', NULL, 'zone', 1);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.api.server.create.timeout', '1800', 'time in seconds the kubernetes API server of a new container cluster is waited on to become ready', '1800', NULL, 'zone', 1);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.api.server.start.timeout', '600', 'time in seconds the kubernetes API server of a started container cluster is waited on to become ready', '600', NULL, 'zone', 1);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.dashboard.timeout', '300', 'time in seconds the dashboard add-on of a new container cluster is waited on to be running', '300', NULL, 'zone', 1);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.gc.interval', '300', 'interval in seconds at which the resources of deleted container clusters are garbage collected', '300', NULL, NULL, 0);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.state.scanner.interval', '30', 'interval in seconds at which the state of the container cluster VMs is checked', '30', NULL, NULL, 0);
+INSERT IGNORE INTO `cloud`.`configuration` VALUES ('Advanced', 'DEFAULT', 'management-server',
+'cloud.container.cluster.bulk.action.parallelism', '4', 'maximum number of container clusters of a bulk start, stop or delete request that are worked on in parallel', '4', NULL, NULL, 0);
+
+UPDATE `cloud`.`configuration` SET scope='zone', is_dynamic=1 WHERE name IN ('cloud.container.cluster.placement.strategy',
+'cloud.container.cluster.network.pool.size');
+UPDATE `cloud`.`configuration` SET is_dynamic=1 WHERE name IN ('cloud.container.cluster.template.name',
+'cloud.container.cluster.master.cloudconfig', 'cloud.container.cluster.node.cloudconfig',
+'cloud.container.cluster.network.offering', 'cloud.container.cluster.warm.pool');
@@ -0,0 +1,19 @@
+-- Copyright 2016 ShapeBlue Ltd
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+use cloud;
+
+ALTER TABLE `cloud`.`sb_ccs_container_cluster_details` ADD COLUMN `apiserver_cert` text COMMENT 'certificate of the kubernetes API server of the cluster';
+ALTER TABLE `cloud`.`sb_ccs_container_cluster_details` ADD COLUMN `apiserver_key` text COMMENT 'encrypted private key of the kubernetes API server of the cluster';
+ALTER TABLE `cloud`.`sb_ccs_container_cluster_details` ADD COLUMN `ca_cert` text COMMENT 'certificates of the CA the API server certificate was issued by';
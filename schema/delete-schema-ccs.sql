@@ -14,6 +14,10 @@
 
 use cloud;
 
+DROP VIEW IF EXISTS `cloud`.`sb_ccs_container_cluster_view`;
+DROP TABLE IF EXISTS `cloud`.`sb_ccs_network_pool`;
+DROP TABLE IF EXISTS `cloud`.`sb_ccs_warm_pool_vm`;
+DROP TABLE IF EXISTS `cloud`.`sb_ccs_container_cluster_checkpoint`;
 DROP TABLE IF EXISTS `cloud`.`sb_ccs_container_cluster_vm_map`;
 DROP TABLE IF EXISTS `cloud`.`sb_ccs_container_cluster_details`;
 DROP TABLE IF EXISTS `cloud`.`sb_ccs_container_cluster`;
@@ -23,6 +27,23 @@ DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.template
 DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.master.cloudconfig';
 DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.node.cloudconfig';
 DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.network.offering';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.provisioning.parallelism';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.placement.strategy';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.capacity.reservation.ttl';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.warm.pool';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.warm.pool.refill.interval';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.network.pool.size';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.placement.attempts';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.vm.start.timeout';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.vm.stop.timeout';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.vm.destroy.timeout';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.api.server.create.timeout';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.api.server.start.timeout';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.dashboard.timeout';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.gc.interval';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.state.scanner.interval';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.bulk.action.parallelism';
+DELETE FROM `cloud`.`configuration` WHERE name='cloud.container.cluster.userdata.compression';
 
 SET @ccs_ntwk_offering_id = (select id from network_offerings where name='DefaultNetworkOfferingforContainerService' and removed IS NULL);
 
@@ -15,64 +15,68 @@
  */
 package com.cloud.containercluster;
 
-import com.cloud.server.ManagementServer;
+import org.apache.cloudstack.framework.config.ConfigKey;
 
-public enum CcsConfig {
-
-
-
-    ContainerClusterTemplateName("Advanced", ManagementServer.class, String.class, "cloud.container.cluster.template.name", null, "name of the template used for creating containe cluster", null, null),
-    ContainerClusterMasterCloudConfig("Advanced", ManagementServer.class, String.class, "cloud.container.cluster.master.cloudconfig", null, "file location path of the cloud config used for creating       container cluster master node", null, null),
-    ContainerClusterNodeCloudConfig("Advanced", ManagementServer.class, String.class, "cloud.container.cluster.node.cloudconfig", null, "file location path of the cloud config used for creating           container cluster node", null, null),
-    ContainerClusterNetworkOffering("Advanced", ManagementServer.class, String.class, "cloud.container.cluster.network.offering", null, "Name of the network offering that will be used to create           isolated network in which container cluster VMs will be launched.", null, null);
-
-
-    private final String _category;
-    private final Class<?> _componentClass;
-    private final Class<?> _type;
-    private final String _name;
-    private final String _defaultValue;
-    private final String _description;
-    private final String _range;
-    private final String _scope;
-
-    private CcsConfig(String category, Class<?> componentClass, Class<?> type, String name, String defaultValue, String description, String range, String scope) {
-        _category = category;
-        _componentClass = componentClass;
-        _type = type;
-        _name = name;
-        _defaultValue = defaultValue;
-        _description = description;
-        _range = range;
-        _scope = scope;
-    }
-
-    public String getCategory() {
-        return _category;
-    }
-
-    public String key() {
-        return _name;
-    }
-
-    public String getDescription() {
-        return _description;
-    }
-
-    public String getDefaultValue() {
-        return _defaultValue;
-    }
-
-    public Class<?> getType() {
-        return _type;
-    }
-
-    public Class<?> getComponentClass() {
-        return _componentClass;
+/**
+ * Settings of the container service. Dynamic settings are read through {@link ContainerClusterSettings}, which caches
+ * them for a short while, the others are read once when the management server starts. Zone scoped settings can be
+ * overridden per zone.
+ */
+public final class CcsConfig {
+
+    public static final ConfigKey<String> ContainerClusterTemplateName = new ConfigKey<String>("Advanced", String.class,
+            "cloud.container.cluster.template.name", null, "name of the template used for creating containe cluster", true);
+    public static final ConfigKey<String> ContainerClusterMasterCloudConfig = new ConfigKey<String>("Advanced", String.class,
+            "cloud.container.cluster.master.cloudconfig", null, "file location path of the cloud config used for creating       container cluster master node", true);
+    public static final ConfigKey<String> ContainerClusterNodeCloudConfig = new ConfigKey<String>("Advanced", String.class,
+            "cloud.container.cluster.node.cloudconfig", null, "file location path of the cloud config used for creating           container cluster node", true);
+    public static final ConfigKey<String> ContainerClusterNetworkOffering = new ConfigKey<String>("Advanced", String.class,
+            "cloud.container.cluster.network.offering", null, "Name of the network offering that will be used to create           isolated network in which container cluster VMs will be launched.", true);
+    public static final ConfigKey<Integer> ContainerClusterProvisioningParallelism = new ConfigKey<Integer>("Advanced", Integer.class,
+            "cloud.container.cluster.provisioning.parallelism", "10", "maximum number of container cluster VMs that are created and started in parallel", false);
+    public static final ConfigKey<String> ContainerClusterPlacementStrategy = new ConfigKey<String>("Advanced", String.class,
+            "cloud.container.cluster.placement.strategy", "firstfit", "strategy used to plan the hosts of container cluster VMs: firstfit, spread or pack", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterCapacityReservationTtl = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.capacity.reservation.ttl", "1800", "time in seconds the host capacity planned for a container cluster is held for its VMs to start", false);
+    public static final ConfigKey<String> ContainerClusterWarmPool = new ConfigKey<String>("Advanced", String.class,
+            "cloud.container.cluster.warm.pool", null, "comma separated list of <zone uuid>:<service offering uuid>:<size> entries, each giving the number of stopped node VMs kept ready for container clusters in the zone with the service offering", true);
+    public static final ConfigKey<Long> ContainerClusterWarmPoolRefillInterval = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.warm.pool.refill.interval", "60", "interval in seconds at which the container cluster warm pools are topped up", false);
+    public static final ConfigKey<Integer> ContainerClusterNetworkPoolSize = new ConfigKey<Integer>("Advanced", Integer.class,
+            "cloud.container.cluster.network.pool.size", "0", "number of implemented isolated networks kept ready in each zone for container clusters created without a network", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Integer> ContainerClusterPlacementAttempts = new ConfigKey<Integer>("Advanced", Integer.class,
+            "cloud.container.cluster.placement.attempts", "3", "number of times the placement of a container cluster is planned again when a concurrent plan reserved the planned capacity first", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterVmStartTimeout = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.vm.start.timeout", "600", "time in seconds a container cluster VM is given to start", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterVmStopTimeout = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.vm.stop.timeout", "300", "time in seconds a container cluster VM is given to stop", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterVmDestroyTimeout = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.vm.destroy.timeout", "600", "time in seconds a container cluster VM is given to be destroyed", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterApiServerCreateTimeout = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.api.server.create.timeout", "1800", "time in seconds the kubernetes API server of a new container cluster is waited on to become ready", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterApiServerStartTimeout = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.api.server.start.timeout", "600", "time in seconds the kubernetes API server of a started container cluster is waited on to become ready", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterDashboardTimeout = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.dashboard.timeout", "300", "time in seconds the dashboard add-on of a new container cluster is waited on to be running", true, ConfigKey.Scope.Zone);
+    public static final ConfigKey<Long> ContainerClusterGcInterval = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.gc.interval", "300", "interval in seconds at which the resources of deleted container clusters are garbage collected", false);
+    public static final ConfigKey<Long> ContainerClusterStateScannerInterval = new ConfigKey<Long>("Advanced", Long.class,
+            "cloud.container.cluster.state.scanner.interval", "600", "interval in seconds at which the state of the container cluster VMs is checked, in addition to the checks made as VMs change state", false);
+    public static final ConfigKey<Integer> ContainerClusterBulkActionParallelism = new ConfigKey<Integer>("Advanced", Integer.class,
+            "cloud.container.cluster.bulk.action.parallelism", "4", "maximum number of container clusters of a bulk start, stop or delete request that are worked on in parallel", false);
+    public static final ConfigKey<Boolean> ContainerClusterUserDataCompression = new ConfigKey<Boolean>("Advanced", Boolean.class,
+            "cloud.container.cluster.userdata.compression", "false", "whether the cloud config passed as user data to container cluster VMs is gzip compressed, templates with the ccs.userdata.compression detail set to false always get it uncompressed", true, ConfigKey.Scope.Zone);
+
+    private CcsConfig() {
     }
 
-    public String getScope() {
-        return _scope;
+    public static ConfigKey<?>[] getConfigKeys() {
+        return new ConfigKey<?>[] {ContainerClusterTemplateName, ContainerClusterMasterCloudConfig, ContainerClusterNodeCloudConfig,
+                ContainerClusterNetworkOffering, ContainerClusterProvisioningParallelism, ContainerClusterPlacementStrategy,
+                ContainerClusterCapacityReservationTtl, ContainerClusterWarmPool, ContainerClusterWarmPoolRefillInterval,
+                ContainerClusterNetworkPoolSize, ContainerClusterPlacementAttempts, ContainerClusterVmStartTimeout,
+                ContainerClusterVmStopTimeout, ContainerClusterVmDestroyTimeout, ContainerClusterApiServerCreateTimeout,
+                ContainerClusterApiServerStartTimeout, ContainerClusterDashboardTimeout, ContainerClusterGcInterval,
+                ContainerClusterStateScannerInterval, ContainerClusterBulkActionParallelism, ContainerClusterUserDataCompression};
     }
-
 }
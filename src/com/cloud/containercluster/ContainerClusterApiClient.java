@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.apache.log4j.Logger;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Minimal in-process client for the Kubernetes API server of a container cluster.
+ *
+ * Requests go through a small per-cluster pool of kept alive connections, so repeated health checks do not pay
+ * for a new TLS handshake each time. Responses are handed to the caller as a streaming JSON reader, nothing is
+ * buffered beyond what the caller reads.
+ */
+public class ContainerClusterApiClient {
+
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterApiClient.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String KUBE_SYSTEM_PODS_PATH = "/api/v1/namespaces/kube-system/pods";
+
+    /**
+     * Reads the body of a successful API response.
+     */
+    public interface ResponseHandler<T> {
+        T handle(JsonReader reader) throws IOException;
+    }
+
+    private final HttpHost _target;
+    private final String _authorization;
+    private final CloseableHttpClient _httpClient;
+
+    /**
+     * @param socketFactory factory for the connections, a {@link LayeredConnectionSocketFactory} such as the one of
+     *                      {@link #createSocketFactory(String)} for https
+     * @param connectTimeout connect timeout in milliseconds
+     * @param readTimeout socket read timeout in milliseconds
+     * @param maxConnections number of connections kept open for reuse
+     * @param keepAlive time in milliseconds an idle connection is kept open for reuse
+     */
+    public ContainerClusterApiClient(final String host, final int port, final String userName, final String password,
+                                     final ConnectionSocketFactory socketFactory, final int connectTimeout, final int readTimeout,
+                                     final int maxConnections, final long keepAlive) {
+        final String scheme = socketFactory instanceof LayeredConnectionSocketFactory ? "https" : "http";
+        _target = new HttpHost(host, port, scheme);
+        _authorization = "Basic " + Base64.encodeBase64String((userName + ":" + password).getBytes(UTF8));
+
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create().register(scheme, socketFactory).build());
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .build();
+        // a request on a pooled connection the server closed in the meantime is retried by the default retry handler
+        _httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+                    @Override
+                    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        return keepAlive;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Creates a socket factory trusting only the given CA certificates, with host name verification of the API
+     * server certificate enabled.
+     */
+    public static SSLConnectionSocketFactory createSocketFactory(final String caCertificates) throws IOException, GeneralSecurityException {
+        final KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        int index = 0;
+        for (Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(
+                new ByteArrayInputStream(caCertificates.getBytes(UTF8)))) {
+            trustStore.setCertificateEntry("ca" + index++, certificate);
+        }
+        final TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(trustStore);
+        final SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(null, tmf.getTrustManagers(), null);
+        return new SSLConnectionSocketFactory(sslContext, new String[] {"TLSv1.2"}, null,
+                SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+    }
+
+    public String getHost() {
+        return _target.getHostName();
+    }
+
+    /**
+     * @return true if a pod in the kube-system namespace whose name contains namePart is in Running phase
+     */
+    public boolean isKubeSystemPodRunning(final String namePart) throws IOException {
+        return get(KUBE_SYSTEM_PODS_PATH, new ResponseHandler<Boolean>() {
+            @Override
+            public Boolean handle(JsonReader reader) throws IOException {
+                boolean running = false;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("items".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            running = isRunningPod(reader, namePart) || running;
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                return running;
+            }
+        });
+    }
+
+    // reads one pod object, returns true if it matches namePart and is running
+    private static boolean isRunningPod(final JsonReader reader, final String namePart) throws IOException {
+        String name = null;
+        String phase = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String field = reader.nextName();
+            if ("metadata".equals(field)) {
+                name = readStringField(reader, "name");
+            } else if ("status".equals(field)) {
+                phase = readStringField(reader, "phase");
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return name != null && name.contains(namePart) && "Running".equals(phase);
+    }
+
+    private static String readStringField(final JsonReader reader, final String fieldName) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (fieldName.equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                value = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    /**
+     * Sends a GET request for path and hands the response body to handler. The part of the body the handler does
+     * not read is consumed, so the connection goes back to the pool.
+     */
+    public <T> T get(final String path, final ResponseHandler<T> handler) throws IOException {
+        final HttpGet request = new HttpGet(path);
+        request.setHeader(HttpHeaders.AUTHORIZATION, _authorization);
+        request.setHeader(HttpHeaders.ACCEPT, "application/json");
+        try (CloseableHttpResponse response = _httpClient.execute(_target, request)) {
+            final HttpEntity entity = response.getEntity();
+            try {
+                if (response.getStatusLine().getStatusCode() != 200) {
+                    throw new IOException("Request " + path + " to " + _target.toHostString() + " failed with status " + response.getStatusLine());
+                }
+                if (entity == null) {
+                    throw new IOException("Request " + path + " to " + _target.toHostString() + " returned no body");
+                }
+                final ContentType contentType = ContentType.get(entity);
+                final Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : UTF8;
+                return handler.handle(new JsonReader(new InputStreamReader(entity.getContent(), charset)));
+            } finally {
+                EntityUtils.consumeQuietly(entity);
+            }
+        }
+    }
+
+    /**
+     * Closes all pooled connections, further requests fail.
+     */
+    public void close() {
+        try {
+            _httpClient.close();
+        } catch (IOException e) {
+            s_logger.debug("Failed to close the connections to " + _target.toHostString() + " due to " + e);
+        }
+    }
+}
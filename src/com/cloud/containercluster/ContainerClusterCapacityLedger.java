@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+/**
+ * In-memory ledger of host capacity held for container cluster VM's between planning and VM start.
+ *
+ * Capacity records in the database only account for a VM once it is started, so concurrent cluster creates would
+ * otherwise all plan against the same free capacity. A successful plan reserves its hosts here, and later plans see
+ * that capacity as taken. Reservations are released when the VM is started or fails to start, and expire after a
+ * time to live in case the provisioning flow never gets to release them.
+ *
+ * Reserved totals are kept per host and updated with compare-and-set, so concurrent plans on different hosts never
+ * contend and plans on the same host never block each other.
+ */
+public class ContainerClusterCapacityLedger {
+
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterCapacityLedger.class);
+
+    /**
+     * Capacity held on a host for one VM of a container cluster.
+     */
+    public static class Reservation {
+        private final long _clusterId;
+        private final long _hostId;
+        private final long _cpu;
+        private final long _ram;
+        private final long _expiresAt;
+        private final AtomicBoolean _released = new AtomicBoolean(false);
+
+        Reservation(final long clusterId, final long hostId, final long cpu, final long ram, final long expiresAt) {
+            _clusterId = clusterId;
+            _hostId = hostId;
+            _cpu = cpu;
+            _ram = ram;
+            _expiresAt = expiresAt;
+        }
+
+        public long getClusterId() {
+            return _clusterId;
+        }
+
+        public long getHostId() {
+            return _hostId;
+        }
+
+        public boolean isReleased() {
+            return _released.get();
+        }
+    }
+
+    /**
+     * Cpu and ram reserved on a host. Instances are immutable, a host's usage is replaced as a whole.
+     */
+    public static final class Usage {
+        static final Usage NONE = new Usage(0, 0);
+
+        private final long _cpu;
+        private final long _ram;
+
+        Usage(final long cpu, final long ram) {
+            _cpu = cpu;
+            _ram = ram;
+        }
+
+        public long getCpu() {
+            return _cpu;
+        }
+
+        public long getRam() {
+            return _ram;
+        }
+    }
+
+    private final long _ttl;
+    private final ConcurrentMap<Long, AtomicReference<Usage>> _usageByHost = new ConcurrentHashMap<Long, AtomicReference<Usage>>();
+    private final Set<Reservation> _reservations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param ttl time in milliseconds after which a reservation that was not released expires
+     */
+    public ContainerClusterCapacityLedger(final long ttl) {
+        _ttl = ttl;
+    }
+
+    /**
+     * @return capacity currently reserved on the host
+     */
+    public Usage getReserved(final long hostId) {
+        final AtomicReference<Usage> usage = _usageByHost.get(hostId);
+        return usage == null ? Usage.NONE : usage.get();
+    }
+
+    /**
+     * Reserves cpu and ram on a host, provided the capacity reserved on it stays within the free capacity of the
+     * host.
+     *
+     * @param freeCpu free cpu of the host as per its capacity records, not counting ledger reservations
+     * @param freeRam free ram of the host as per its capacity records, not counting ledger reservations
+     * @return the reservation, or null if other reservations already hold the capacity
+     */
+    public Reservation tryReserve(final long clusterId, final long hostId, final long cpu, final long ram, final long freeCpu, final long freeRam) {
+        AtomicReference<Usage> usage = _usageByHost.get(hostId);
+        if (usage == null) {
+            final AtomicReference<Usage> newUsage = new AtomicReference<Usage>(Usage.NONE);
+            usage = _usageByHost.putIfAbsent(hostId, newUsage);
+            if (usage == null) {
+                usage = newUsage;
+            }
+        }
+        while (true) {
+            final Usage current = usage.get();
+            if (current.getCpu() + cpu > freeCpu || current.getRam() + ram > freeRam) {
+                return null;
+            }
+            if (usage.compareAndSet(current, new Usage(current.getCpu() + cpu, current.getRam() + ram))) {
+                break;
+            }
+        }
+        final Reservation reservation = new Reservation(clusterId, hostId, cpu, ram, System.currentTimeMillis() + _ttl);
+        _reservations.add(reservation);
+        return reservation;
+    }
+
+    /**
+     * Releases a reservation. Releasing a reservation more than once has no effect.
+     *
+     * @return true if this call released the reservation
+     */
+    public boolean release(final Reservation reservation) {
+        if (reservation == null || !reservation._released.compareAndSet(false, true)) {
+            return false;
+        }
+        _reservations.remove(reservation);
+        final AtomicReference<Usage> usage = _usageByHost.get(reservation.getHostId());
+        while (true) {
+            final Usage current = usage.get();
+            if (usage.compareAndSet(current, new Usage(current.getCpu() - reservation._cpu, current.getRam() - reservation._ram))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases all the reservations held for a container cluster.
+     */
+    public void releaseCluster(final long clusterId) {
+        for (Reservation reservation : _reservations) {
+            if (reservation.getClusterId() == clusterId) {
+                release(reservation);
+            }
+        }
+    }
+
+    /**
+     * Releases the reservations that have outlived their time to live.
+     *
+     * @return number of reservations released
+     */
+    public int purgeExpired() {
+        final long now = System.currentTimeMillis();
+        int purged = 0;
+        for (Reservation reservation : _reservations) {
+            if (reservation._expiresAt <= now && release(reservation)) {
+                purged++;
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Capacity reservation of container cluster id: " + reservation.getClusterId() + " on host id: "
+                            + reservation.getHostId() + " expired");
+                }
+            }
+        }
+        return purged;
+    }
+}
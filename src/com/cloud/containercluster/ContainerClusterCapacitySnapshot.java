@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cloud.capacity.Capacity;
+import com.cloud.capacity.CapacityVO;
+import com.cloud.containercluster.ContainerClusterCapacityLedger.Reservation;
+import com.cloud.containercluster.ContainerClusterCapacityLedger.Usage;
+import com.cloud.host.HostVO;
+import com.cloud.utils.Pair;
+
+/**
+ * Point in time view of the free cpu and memory of the hosts in a zone, used to plan the placement of the VM's of
+ * a container cluster in memory.
+ *
+ * Free capacity of a host is computed the same way as CapacityManager.checkIfHostHasCapacity does with reserved
+ * capacity considered: total capacity scaled by the overcommit ratio of the host's cluster, less used and reserved
+ * capacity. Capacity held in the reservation ledger for other container clusters is taken as used as well.
+ * Reservations made against the snapshot itself are not persisted, until they are taken into the ledger with
+ * {@link #holdInLedger}.
+ */
+public class ContainerClusterCapacitySnapshot {
+
+    /**
+     * Free capacity left on a host of the snapshot.
+     */
+    public static class HostCapacity {
+        private final HostVO _host;
+        // free capacity as per the capacity records of the host, bound for the reservations held in the ledger
+        private final long _recordedFreeCpu;
+        private final long _recordedFreeRam;
+        private long _freeCpu;
+        private long _freeRam;
+        private int _reservedVms;
+
+        HostCapacity(final HostVO host, final long recordedFreeCpu, final long recordedFreeRam, final Usage ledgerUsage) {
+            _host = host;
+            _recordedFreeCpu = recordedFreeCpu;
+            _recordedFreeRam = recordedFreeRam;
+            _freeCpu = recordedFreeCpu - ledgerUsage.getCpu();
+            _freeRam = recordedFreeRam - ledgerUsage.getRam();
+        }
+
+        public HostVO getHost() {
+            return _host;
+        }
+
+        public long getFreeCpu() {
+            return _freeCpu;
+        }
+
+        public long getFreeRam() {
+            return _freeRam;
+        }
+
+        public int getReservedVms() {
+            return _reservedVms;
+        }
+
+        boolean fits(final long cpu, final long ram) {
+            return _freeCpu >= cpu && _freeRam >= ram;
+        }
+
+        void reserve(final long cpu, final long ram) {
+            _freeCpu -= cpu;
+            _freeRam -= ram;
+            _reservedVms++;
+        }
+    }
+
+    private final List<HostCapacity> _hosts;
+    private final Map<Long, HostCapacity> _hostsById = new HashMap<Long, HostCapacity>();
+    private final ContainerClusterCapacityLedger _ledger;
+
+    /**
+     * @param hosts candidate hosts, in the order they are tried
+     * @param capacities cpu and memory capacity records of the hosts, records of other hosts are ignored
+     * @param overcommitRatios cpu and memory overcommit ratios by cluster id
+     * @param ledger ledger of capacity reserved for clusters being provisioned
+     */
+    public ContainerClusterCapacitySnapshot(final List<HostVO> hosts, final List<CapacityVO> capacities,
+                                            final Map<Long, Pair<Float, Float>> overcommitRatios,
+                                            final ContainerClusterCapacityLedger ledger) {
+        _ledger = ledger;
+        final Map<Long, CapacityVO> cpuCapacities = new HashMap<Long, CapacityVO>();
+        final Map<Long, CapacityVO> ramCapacities = new HashMap<Long, CapacityVO>();
+        for (CapacityVO capacity : capacities) {
+            if (capacity.getCapacityType() == Capacity.CAPACITY_TYPE_CPU) {
+                cpuCapacities.put(capacity.getHostOrPoolId(), capacity);
+            } else if (capacity.getCapacityType() == Capacity.CAPACITY_TYPE_MEMORY) {
+                ramCapacities.put(capacity.getHostOrPoolId(), capacity);
+            }
+        }
+
+        final List<HostCapacity> hostCapacities = new ArrayList<HostCapacity>(hosts.size());
+        for (HostVO host : hosts) {
+            final CapacityVO cpu = cpuCapacities.get(host.getId());
+            final CapacityVO ram = ramCapacities.get(host.getId());
+            if (cpu == null || ram == null) {
+                // host has not reported its capacity yet
+                continue;
+            }
+            final Pair<Float, Float> ratios = overcommitRatios.get(host.getClusterId());
+            final float cpuOvercommitRatio = ratios != null ? ratios.first() : 1.0f;
+            final float memoryOvercommitRatio = ratios != null ? ratios.second() : 1.0f;
+            final long totalCpu = (long)(cpu.getTotalCapacity() * cpuOvercommitRatio);
+            final long totalRam = (long)(ram.getTotalCapacity() * memoryOvercommitRatio);
+            final HostCapacity hostCapacity = new HostCapacity(host,
+                    totalCpu - (cpu.getUsedCapacity() + cpu.getReservedCapacity()),
+                    totalRam - (ram.getUsedCapacity() + ram.getReservedCapacity()),
+                    ledger.getReserved(host.getId()));
+            hostCapacities.add(hostCapacity);
+            _hostsById.put(host.getId(), hostCapacity);
+        }
+        _hosts = Collections.unmodifiableList(hostCapacities);
+    }
+
+    /**
+     * Reserves cpu and ram on the host picked by the strategy among the hosts with enough free capacity left.
+     *
+     * @return the host the capacity is reserved on, or null if no host has enough free capacity
+     */
+    public HostVO reserve(final long cpu, final long ram, final ContainerClusterPlacementStrategy strategy) {
+        final List<HostCapacity> candidates = new ArrayList<HostCapacity>();
+        for (HostCapacity hostCapacity : _hosts) {
+            if (hostCapacity.fits(cpu, ram)) {
+                candidates.add(hostCapacity);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        final HostCapacity selected = strategy.selectHost(candidates, cpu, ram);
+        selected.reserve(cpu, ram);
+        return selected.getHost();
+    }
+
+    /**
+     * Places a set of VM's, given as cpu and ram requirement pairs, in the order of the requirements.
+     *
+     * @return hosts in the order of the requirements, or null if any of the VM's does not fit
+     */
+    public List<HostVO> place(final List<Pair<Long, Long>> requirements, final ContainerClusterPlacementStrategy strategy) {
+        final List<HostVO> placement = new ArrayList<HostVO>(requirements.size());
+        for (Pair<Long, Long> requirement : requirements) {
+            final HostVO host = reserve(requirement.first(), requirement.second(), strategy);
+            if (host == null) {
+                return null;
+            }
+            placement.add(host);
+        }
+        return placement;
+    }
+
+    /**
+     * Holds the capacity of placed VM's in the ledger, so concurrent plans do not count on it. If another plan took
+     * the capacity of a host since the snapshot was loaded, the reservations held so far are released again.
+     *
+     * @param hosts hosts returned by {@link #place} for the requirements
+     * @return reservations in the order of the requirements, or null if the capacity is no longer available
+     */
+    public List<Reservation> holdInLedger(final long clusterId, final List<HostVO> hosts, final List<Pair<Long, Long>> requirements) {
+        final List<Reservation> reservations = new ArrayList<Reservation>(hosts.size());
+        for (int i = 0; i < hosts.size(); i++) {
+            final HostCapacity hostCapacity = _hostsById.get(hosts.get(i).getId());
+            final Pair<Long, Long> requirement = requirements.get(i);
+            final Reservation reservation = _ledger.tryReserve(clusterId, hostCapacity.getHost().getId(), requirement.first(), requirement.second(),
+                    hostCapacity._recordedFreeCpu, hostCapacity._recordedFreeRam);
+            if (reservation == null) {
+                for (Reservation held : reservations) {
+                    _ledger.release(held);
+                }
+                return null;
+            }
+            reservations.add(reservation);
+        }
+        return reservations;
+    }
+
+    List<HostCapacity> getHostCapacities() {
+        return _hosts;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Step of the provisioning of a container cluster that has completed. Steps are recorded while a cluster is
+ * provisioned, so provisioning interrupted by a management server restart can be resumed from the last completed
+ * step, and are removed once the cluster is running or has failed. Starting a stopped cluster only records the
+ * Starting step, naming the management server that starts it.
+ */
+@Entity
+@Table(name = "sb_ccs_container_cluster_checkpoint")
+public class ContainerClusterCheckpointVO {
+
+    public enum Step {
+        Provisioning,
+        Starting,
+        NetworkImplemented,
+        MasterCreated,
+        MasterStarted,
+        NodeCreated,
+        NodeStarted,
+        RulesApplied,
+        ApiReady
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    long id;
+
+    @Column(name = "cluster_id")
+    long clusterId;
+
+    @Column(name = "step")
+    @Enumerated(value = EnumType.STRING)
+    Step step;
+
+    @Column(name = "node_instance")
+    int nodeInstance;
+
+    @Column(name = "vm_id")
+    Long vmId;
+
+    @Column(name = "mgmt_server_id")
+    long mgmtServerId;
+
+    @Column(name = "created")
+    @Temporal(value = TemporalType.TIMESTAMP)
+    Date created;
+
+    public ContainerClusterCheckpointVO() {
+
+    }
+
+    public ContainerClusterCheckpointVO(long clusterId, Step step, int nodeInstance, Long vmId, long mgmtServerId) {
+        this.clusterId = clusterId;
+        this.step = step;
+        this.nodeInstance = nodeInstance;
+        this.vmId = vmId;
+        this.mgmtServerId = mgmtServerId;
+        this.created = new Date();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getClusterId() {
+        return clusterId;
+    }
+
+    public Step getStep() {
+        return step;
+    }
+
+    public int getNodeInstance() {
+        return nodeInstance;
+    }
+
+    public Long getVmId() {
+        return vmId;
+    }
+
+    public long getMgmtServerId() {
+        return mgmtServerId;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cloud config template of container cluster VM's, compiled once into a list of literal text and placeholder
+ * segments so it can be rendered any number of times in a single pass.
+ *
+ * Placeholders are written as {{ name }} and replaced by the value given for the name. A multi-line value of a
+ * placeholder that only has white space before it on its line is indented to the column of the placeholder, so
+ * e.g. a PEM certificate can be dropped into a YAML block scalar as is. Optional parts of the template are enclosed
+ * in {{# name }} and {{/ name }} and only rendered when the section is asked for. Section tags that are alone on
+ * their line are removed together with their line.
+ */
+public class ContainerClusterCloudConfigTemplate {
+
+    private static final String TAG_OPEN = "{{";
+    private static final String TAG_CLOSE = "}}";
+
+    private abstract static class Segment {
+        abstract int length(Map<String, String> values, Set<String> sections);
+
+        abstract void render(Map<String, String> values, Set<String> sections, StringBuilder out);
+    }
+
+    private static final class Literal extends Segment {
+        private final String _text;
+
+        Literal(final String text) {
+            _text = text;
+        }
+
+        @Override
+        int length(final Map<String, String> values, final Set<String> sections) {
+            return _text.length();
+        }
+
+        @Override
+        void render(final Map<String, String> values, final Set<String> sections, final StringBuilder out) {
+            out.append(_text);
+        }
+    }
+
+    private static final class Placeholder extends Segment {
+        private final String _name;
+        private final String _indent;
+
+        Placeholder(final String name, final String indent) {
+            _name = name;
+            _indent = indent;
+        }
+
+        private String value(final Map<String, String> values) {
+            final String value = values.get(_name);
+            if (value == null) {
+                throw new IllegalArgumentException("No value given for placeholder " + _name + " of the cloud config template");
+            }
+            return value;
+        }
+
+        @Override
+        int length(final Map<String, String> values, final Set<String> sections) {
+            final String value = value(values);
+            if (_indent.isEmpty()) {
+                return value.length();
+            }
+            int lines = 0;
+            for (int i = value.indexOf('\n'); i >= 0; i = value.indexOf('\n', i + 1)) {
+                lines++;
+            }
+            return value.length() + lines * _indent.length();
+        }
+
+        @Override
+        void render(final Map<String, String> values, final Set<String> sections, final StringBuilder out) {
+            final String value = value(values);
+            if (_indent.isEmpty()) {
+                out.append(value);
+                return;
+            }
+            int start = 0;
+            for (int i = value.indexOf('\n'); i >= 0; i = value.indexOf('\n', start)) {
+                out.append(value, start, i + 1).append(_indent);
+                start = i + 1;
+            }
+            out.append(value, start, value.length());
+        }
+    }
+
+    private static final class Section extends Segment {
+        private final String _name;
+        private final List<Segment> _body = new ArrayList<Segment>();
+
+        Section(final String name) {
+            _name = name;
+        }
+
+        @Override
+        int length(final Map<String, String> values, final Set<String> sections) {
+            if (!sections.contains(_name)) {
+                return 0;
+            }
+            int length = 0;
+            for (Segment segment : _body) {
+                length += segment.length(values, sections);
+            }
+            return length;
+        }
+
+        @Override
+        void render(final Map<String, String> values, final Set<String> sections, final StringBuilder out) {
+            if (!sections.contains(_name)) {
+                return;
+            }
+            for (Segment segment : _body) {
+                segment.render(values, sections, out);
+            }
+        }
+    }
+
+    private final List<Segment> _segments;
+
+    private ContainerClusterCloudConfigTemplate(final List<Segment> segments) {
+        _segments = segments;
+    }
+
+    /**
+     * Compiles the text of a cloud config template.
+     *
+     * @throws IllegalArgumentException if a tag is not terminated or the sections are not properly nested
+     */
+    public static ContainerClusterCloudConfigTemplate compile(final String text) {
+        final List<Segment> segments = new ArrayList<Segment>();
+        final Deque<Section> openSections = new ArrayDeque<Section>();
+        List<Segment> current = segments;
+        int pos = 0;
+        while (true) {
+            final int start = text.indexOf(TAG_OPEN, pos);
+            if (start < 0) {
+                addLiteral(current, text.substring(pos));
+                break;
+            }
+            final int end = text.indexOf(TAG_CLOSE, start + TAG_OPEN.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated tag at offset " + start + " of the cloud config template");
+            }
+            final String tag = text.substring(start + TAG_OPEN.length(), end).trim();
+            final int tagEnd = end + TAG_CLOSE.length();
+            final int lineStart = text.lastIndexOf('\n', start - 1) + 1;
+            final boolean firstOnLine = isBlank(text, lineStart, start);
+
+            if (tag.startsWith("#") || tag.startsWith("/")) {
+                final String name = tag.substring(1).trim();
+                int lineEnd = text.indexOf('\n', tagEnd);
+                lineEnd = lineEnd < 0 ? text.length() : lineEnd;
+                final boolean standalone = firstOnLine && isBlank(text, tagEnd, lineEnd);
+                addLiteral(current, text.substring(pos, standalone ? lineStart : start));
+                pos = standalone ? Math.min(lineEnd + 1, text.length()) : tagEnd;
+
+                if (tag.startsWith("#")) {
+                    final Section section = new Section(name);
+                    current.add(section);
+                    openSections.push(section);
+                    current = section._body;
+                } else {
+                    if (openSections.isEmpty() || !openSections.peek()._name.equals(name)) {
+                        throw new IllegalArgumentException("Unexpected end of section " + name + " at offset " + start
+                                + " of the cloud config template");
+                    }
+                    openSections.pop();
+                    current = openSections.isEmpty() ? segments : openSections.peek()._body;
+                }
+            } else {
+                addLiteral(current, text.substring(pos, start));
+                current.add(new Placeholder(tag, firstOnLine ? text.substring(lineStart, start) : ""));
+                pos = tagEnd;
+            }
+        }
+        if (!openSections.isEmpty()) {
+            throw new IllegalArgumentException("Section " + openSections.peek()._name + " of the cloud config template is not closed");
+        }
+        return new ContainerClusterCloudConfigTemplate(segments);
+    }
+
+    private static void addLiteral(final List<Segment> segments, final String text) {
+        if (!text.isEmpty()) {
+            segments.add(new Literal(text));
+        }
+    }
+
+    private static boolean isBlank(final String text, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            final char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String render(final Map<String, String> values) {
+        return render(values, Collections.<String>emptySet());
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param values values of the placeholders by name
+     * @param sections names of the optional sections to render
+     * @throws IllegalArgumentException if no value is given for a placeholder that is rendered
+     */
+    public String render(final Map<String, String> values, final Set<String> sections) {
+        int length = 0;
+        for (Segment segment : _segments) {
+            length += segment.length(values, sections);
+        }
+        final StringBuilder out = new StringBuilder(length);
+        for (Segment segment : _segments) {
+            segment.render(values, sections, out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Compiled templates by file path. A template is compiled again when its file is modified.
+     */
+    public static class Cache {
+        private static final class Entry {
+            private final long _lastModified;
+            private final ContainerClusterCloudConfigTemplate _template;
+
+            Entry(final long lastModified, final ContainerClusterCloudConfigTemplate template) {
+                _lastModified = lastModified;
+                _template = template;
+            }
+        }
+
+        private final ConcurrentMap<String, Entry> _templates = new ConcurrentHashMap<String, Entry>();
+
+        public ContainerClusterCloudConfigTemplate get(final String path) throws IOException {
+            final Path file = Paths.get(path);
+            // modification time is taken before the file is read, so a change while reading is picked up next time
+            final long lastModified = Files.getLastModifiedTime(file).toMillis();
+            final Entry cached = _templates.get(path);
+            if (cached != null && cached._lastModified == lastModified) {
+                return cached._template;
+            }
+            final ContainerClusterCloudConfigTemplate template = compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            _templates.put(path, new Entry(lastModified, template));
+            return template;
+        }
+    }
+}
@@ -24,6 +24,8 @@ import javax.persistence.Table;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 
+import com.cloud.utils.db.Encrypt;
+
 @Entity
 @Table(name = "sb_ccs_container_cluster_details")
 public class ContainerClusterDetailsVO implements ContainerClusterDetails {
@@ -92,6 +94,30 @@ public class ContainerClusterDetailsVO implements ContainerClusterDetails {
         this.networkCleanup = networkCleanup;
     }
 
+    public String getApiServerCertificate() {
+        return apiServerCertificate;
+    }
+
+    public void setApiServerCertificate(String apiServerCertificate) {
+        this.apiServerCertificate = apiServerCertificate;
+    }
+
+    public String getApiServerPrivateKey() {
+        return apiServerPrivateKey;
+    }
+
+    public void setApiServerPrivateKey(String apiServerPrivateKey) {
+        this.apiServerPrivateKey = apiServerPrivateKey;
+    }
+
+    public String getCaCertificates() {
+        return caCertificates;
+    }
+
+    public void setCaCertificates(String caCertificates) {
+        this.caCertificates = caCertificates;
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -129,6 +155,16 @@ public class ContainerClusterDetailsVO implements ContainerClusterDetails {
     @Column(name = "network_cleanup")
     boolean networkCleanup;
 
+    @Column(name = "apiserver_cert", length = 65535)
+    String apiServerCertificate;
+
+    @Encrypt
+    @Column(name = "apiserver_key", length = 65535)
+    String apiServerPrivateKey;
+
+    @Column(name = "ca_cert", length = 65535)
+    String caCertificates;
+
     public ContainerClusterDetailsVO() {
 
     }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import com.cloud.utils.db.GenericDao;
+
+/**
+ * Container cluster as listed through the API, with the zone, template, service offering, network and details of the
+ * cluster joined in by the sb_ccs_container_cluster_view database view.
+ */
+@Entity
+@Table(name = "sb_ccs_container_cluster_view")
+public class ContainerClusterJoinVO {
+
+    @Id
+    @Column(name = "id")
+    long id;
+
+    @Column(name = "uuid")
+    String uuid;
+
+    @Column(name = "name")
+    String name;
+
+    @Column(name = "description")
+    String description;
+
+    @Column(name = "zone_id")
+    long zoneId;
+
+    @Column(name = "zone_uuid")
+    String zoneUuid;
+
+    @Column(name = "zone_name")
+    String zoneName;
+
+    @Column(name = "template_id")
+    long templateId;
+
+    @Column(name = "template_uuid")
+    String templateUuid;
+
+    @Column(name = "service_offering_id")
+    long serviceOfferingId;
+
+    @Column(name = "service_offering_uuid")
+    String serviceOfferingUuid;
+
+    @Column(name = "service_offering_name")
+    String serviceOfferingName;
+
+    @Column(name = "network_id")
+    long networkId;
+
+    @Column(name = "network_uuid")
+    String networkUuid;
+
+    @Column(name = "network_name")
+    String networkName;
+
+    @Column(name = "account_id")
+    long accountId;
+
+    @Column(name = "domain_id")
+    long domainId;
+
+    @Column(name = "node_count")
+    long nodeCount;
+
+    @Column(name = "cores")
+    long cores;
+
+    @Column(name = "memory")
+    long memory;
+
+    @Column(name = "state")
+    ContainerCluster.State state;
+
+    @Column(name = "key_pair")
+    String keyPair;
+
+    @Column(name = "endpoint")
+    String endpoint;
+
+    @Column(name = "console_endpoint")
+    String consoleEndpoint;
+
+    @Column(name = "username")
+    String username;
+
+    @Column(name = "password")
+    String password;
+
+    @Column(name = GenericDao.CREATED_COLUMN)
+    Date created;
+
+    @Column(name = GenericDao.REMOVED_COLUMN)
+    Date removed;
+
+    public ContainerClusterJoinVO() {
+
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getZoneId() {
+        return zoneId;
+    }
+
+    public String getZoneUuid() {
+        return zoneUuid;
+    }
+
+    public String getZoneName() {
+        return zoneName;
+    }
+
+    public long getTemplateId() {
+        return templateId;
+    }
+
+    public String getTemplateUuid() {
+        return templateUuid;
+    }
+
+    public long getServiceOfferingId() {
+        return serviceOfferingId;
+    }
+
+    public String getServiceOfferingUuid() {
+        return serviceOfferingUuid;
+    }
+
+    public String getServiceOfferingName() {
+        return serviceOfferingName;
+    }
+
+    public long getNetworkId() {
+        return networkId;
+    }
+
+    public String getNetworkUuid() {
+        return networkUuid;
+    }
+
+    public String getNetworkName() {
+        return networkName;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public long getDomainId() {
+        return domainId;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getCores() {
+        return cores;
+    }
+
+    public long getMemory() {
+        return memory;
+    }
+
+    public ContainerCluster.State getState() {
+        return state;
+    }
+
+    public String getKeyPair() {
+        return keyPair;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getConsoleEndpoint() {
+        return consoleEndpoint;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public Date getRemoved() {
+        return removed;
+    }
+}
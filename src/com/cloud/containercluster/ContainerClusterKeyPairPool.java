@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Pool of RSA key pairs generated ahead of time for the API server certificates of container cluster masters.
+ *
+ * Generating a key pair is the expensive part of issuing a certificate, so the provisioning path takes a key pair
+ * from the pool and only has the certificate for it signed. The pool is topped up in the background. If the pool runs
+ * dry, key pairs are generated in line.
+ */
+public class ContainerClusterKeyPairPool {
+
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterKeyPairPool.class);
+
+    private final int _keySize;
+    private final BlockingQueue<KeyPair> _keyPairs;
+    private final AtomicBoolean _refilling = new AtomicBoolean(false);
+
+    /**
+     * @param size number of key pairs kept ready
+     * @param keySize size in bits of the generated keys
+     */
+    public ContainerClusterKeyPairPool(final int size, final int keySize) {
+        _keySize = keySize;
+        _keyPairs = new ArrayBlockingQueue<KeyPair>(Math.max(1, size));
+    }
+
+    /**
+     * @return a key pair from the pool, or a newly generated one if the pool is empty
+     */
+    public KeyPair take() throws GeneralSecurityException {
+        final KeyPair keyPair = _keyPairs.poll();
+        if (keyPair != null) {
+            return keyPair;
+        }
+        if (s_logger.isDebugEnabled()) {
+            s_logger.debug("Container cluster key pair pool is empty, generating a key pair in line");
+        }
+        return generate();
+    }
+
+    /**
+     * Generates key pairs until the pool is full. Does nothing if the pool is being refilled by another thread.
+     *
+     * @return number of key pairs added to the pool
+     */
+    public int refill() {
+        if (!_refilling.compareAndSet(false, true)) {
+            return 0;
+        }
+        int generated = 0;
+        try {
+            while (_keyPairs.remainingCapacity() > 0) {
+                if (!_keyPairs.offer(generate())) {
+                    break;
+                }
+                generated++;
+            }
+        } catch (GeneralSecurityException e) {
+            s_logger.warn("Failed to generate a key pair for the container cluster key pair pool due to " + e);
+        } finally {
+            _refilling.set(false);
+        }
+        return generated;
+    }
+
+    public int size() {
+        return _keyPairs.size();
+    }
+
+    private KeyPair generate() throws GeneralSecurityException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(_keySize, new SecureRandom());
+        return generator.generateKeyPair();
+    }
+}
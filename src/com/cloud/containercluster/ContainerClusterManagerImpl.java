@@ -15,9 +15,8 @@
  */
 package com.cloud.containercluster;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Field;
@@ -27,69 +26,122 @@ import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
-import java.net.Socket;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
 import java.security.SecureRandom;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.naming.ConfigurationException;
+import javax.security.auth.x500.X500Principal;
 
 import org.apache.cloudstack.acl.ControlledEntity;
 import org.apache.cloudstack.acl.SecurityChecker;
 import org.apache.cloudstack.api.ApiErrorCode;
 import org.apache.cloudstack.api.BaseCmd;
+import org.apache.cloudstack.api.InternalIdentity;
 import org.apache.cloudstack.api.ServerApiException;
+import org.apache.cloudstack.api.command.admin.containercluster.ListContainerClusterWarmPoolsCmd;
+import org.apache.cloudstack.api.command.admin.vm.AssignVMCmd;
 import org.apache.cloudstack.api.command.user.containercluster.CreateContainerClusterCmd;
 import org.apache.cloudstack.api.command.user.containercluster.DeleteContainerClusterCmd;
+import org.apache.cloudstack.api.command.user.containercluster.DeleteContainerClustersCmd;
 import org.apache.cloudstack.api.command.user.containercluster.ListContainerClusterCmd;
 import org.apache.cloudstack.api.command.user.containercluster.StartContainerClusterCmd;
+import org.apache.cloudstack.api.command.user.containercluster.StartContainerClustersCmd;
 import org.apache.cloudstack.api.command.user.containercluster.StopContainerClusterCmd;
+import org.apache.cloudstack.api.command.user.containercluster.StopContainerClustersCmd;
 import org.apache.cloudstack.api.command.user.firewall.CreateFirewallRuleCmd;
+import org.apache.cloudstack.api.command.user.vm.ResetVMSSHKeyCmd;
 import org.apache.cloudstack.api.command.user.vm.StartVMCmd;
+import org.apache.cloudstack.api.command.user.vm.UpdateVMCmd;
+import org.apache.cloudstack.api.response.ContainerClusterActionResponse;
 import org.apache.cloudstack.api.response.ContainerClusterResponse;
+import org.apache.cloudstack.api.response.ContainerClusterWarmPoolResponse;
 import org.apache.cloudstack.api.response.ListResponse;
 import org.apache.cloudstack.ca.CAManager;
 import org.apache.cloudstack.context.CallContext;
 import org.apache.cloudstack.engine.orchestration.service.NetworkOrchestrationService;
 import org.apache.cloudstack.framework.ca.Certificate;
+import org.apache.cloudstack.framework.config.ConfigKey;
+import org.apache.cloudstack.framework.config.Configurable;
+import org.apache.cloudstack.framework.config.ScopedConfigStorage;
 import org.apache.cloudstack.framework.config.dao.ConfigurationDao;
 import org.apache.cloudstack.managed.context.ManagedContextRunnable;
+import org.apache.cloudstack.utils.identity.ManagementServerNode;
 import org.apache.cloudstack.utils.security.CertUtils;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.log4j.Logger;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
 import org.flywaydb.core.Flyway;
 import org.flywaydb.core.api.FlywayException;
 
-import com.cloud.api.ApiDBUtils;
 import com.cloud.capacity.CapacityManager;
+import com.cloud.capacity.CapacityVO;
+import com.cloud.configuration.Resource.ResourceType;
+import com.cloud.containercluster.ContainerClusterCapacityLedger.Reservation;
+import com.cloud.containercluster.ContainerClusterCheckpointVO.Step;
+import com.cloud.containercluster.dao.ContainerClusterCapacityDao;
+import com.cloud.containercluster.dao.ContainerClusterCheckpointDao;
 import com.cloud.containercluster.dao.ContainerClusterDao;
 import com.cloud.containercluster.dao.ContainerClusterDetailsDao;
+import com.cloud.containercluster.dao.ContainerClusterJoinDao;
+import com.cloud.containercluster.dao.ContainerClusterPooledNetworkDao;
+import com.cloud.containercluster.dao.ContainerClusterServiceOfferingDao;
+import com.cloud.containercluster.dao.ContainerClusterVmDao;
 import com.cloud.containercluster.dao.ContainerClusterVmMapDao;
+import com.cloud.containercluster.dao.ContainerClusterWarmPoolVmDao;
+import com.cloud.containercluster.dao.ContainerClusterZoneDao;
 import com.cloud.dc.ClusterDetailsDao;
-import com.cloud.dc.ClusterDetailsVO;
-import com.cloud.dc.ClusterVO;
 import com.cloud.dc.DataCenter;
+import com.cloud.dc.DataCenterDetailVO;
 import com.cloud.dc.DataCenterVO;
 import com.cloud.dc.dao.ClusterDao;
 import com.cloud.dc.dao.DataCenterDao;
+import com.cloud.dc.dao.DataCenterDetailsDao;
+import com.cloud.dc.dao.VlanDao;
 import com.cloud.deploy.DeployDestination;
+import com.cloud.event.EventTypes;
+import com.cloud.event.UsageEventUtils;
 import com.cloud.exception.ConcurrentOperationException;
 import com.cloud.exception.InsufficientCapacityException;
 import com.cloud.exception.InsufficientServerCapacityException;
@@ -129,19 +181,25 @@ import com.cloud.org.Grouping;
 import com.cloud.resource.ResourceManager;
 import com.cloud.service.ServiceOfferingVO;
 import com.cloud.service.dao.ServiceOfferingDao;
+import com.cloud.storage.VMTemplateDetailVO;
 import com.cloud.storage.VMTemplateVO;
 import com.cloud.storage.VMTemplateZoneVO;
 import com.cloud.storage.dao.VMTemplateDao;
+import com.cloud.storage.dao.VMTemplateDetailsDao;
 import com.cloud.storage.dao.VMTemplateZoneDao;
 import com.cloud.template.VirtualMachineTemplate;
 import com.cloud.user.Account;
 import com.cloud.user.AccountManager;
+import com.cloud.user.ResourceLimitService;
 import com.cloud.user.SSHKeyPairVO;
 import com.cloud.user.User;
+import com.cloud.user.UserVO;
 import com.cloud.user.dao.AccountDao;
 import com.cloud.user.dao.SSHKeyPairDao;
+import com.cloud.user.dao.UserDao;
 import com.cloud.uservm.UserVm;
 import com.cloud.utils.Pair;
+import com.cloud.utils.Ternary;
 import com.cloud.utils.component.ComponentContext;
 import com.cloud.utils.component.ManagerBase;
 import com.cloud.utils.concurrency.NamedThreadFactory;
@@ -153,7 +211,9 @@ import com.cloud.utils.db.Transaction;
 import com.cloud.utils.db.TransactionCallback;
 import com.cloud.utils.db.TransactionCallbackWithException;
 import com.cloud.utils.db.TransactionStatus;
+import com.cloud.utils.exception.CloudRuntimeException;
 import com.cloud.utils.fsm.NoTransitionException;
+import com.cloud.utils.fsm.StateListener;
 import com.cloud.utils.fsm.StateMachine2;
 import com.cloud.utils.net.Ip;
 import com.cloud.vm.Nic;
@@ -166,7 +226,7 @@ import com.cloud.vm.VirtualMachine;
 import com.cloud.vm.dao.UserVmDao;
 import com.cloud.vm.dao.VMInstanceDao;
 
-public class ContainerClusterManagerImpl extends ManagerBase implements ContainerClusterService {
+public class ContainerClusterManagerImpl extends ManagerBase implements ContainerClusterService, Configurable {
 
     private static final Logger s_logger = Logger.getLogger(ContainerClusterManagerImpl.class);
 
@@ -174,6 +234,65 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
 
     ScheduledExecutorService _gcExecutor;
     ScheduledExecutorService _stateScanner;
+    ExecutorService _provisioningExecutor;
+    ExecutorService _recoveryExecutor;
+    ScheduledExecutorService _warmPoolExecutor;
+    ExecutorService _teardownExecutor;
+    ExecutorService _bulkActionExecutor;
+    ScheduledExecutorService _keyPairExecutor;
+    ContainerClusterKeyPairPool _keyPairPool;
+    // VM's whose state changed since the clusters owning them were last reconciled
+    final Set<Long> _changedVmIds = ConcurrentHashMap.newKeySet();
+    final AtomicBoolean _stateReconcileScheduled = new AtomicBoolean(false);
+    // clusters whose resources are being destroyed on this management server
+    final Set<Long> _teardownsInProgress = ConcurrentHashMap.newKeySet();
+    // clusters being provisioned on this management server
+    final Set<Long> _provisioningsInProgress = ConcurrentHashMap.newKeySet();
+    // when this management server started, provisioning checkpointed before then was interrupted by a restart
+    Date _startedAt;
+    // clusters in 'Starting' state that provisioning recovery found without checkpoints on its last run
+    Set<Long> _uncheckpointedStartingClusters = new HashSet<Long>();
+    final ContainerClusterWarmPool _warmPool = new ContainerClusterWarmPool();
+    ContainerClusterReadinessProber _readinessProber;
+    ContainerClusterCapacityLedger _capacityLedger = new ContainerClusterCapacityLedger(
+            TimeUnit.SECONDS.toMillis(Long.parseLong(CcsConfig.ContainerClusterCapacityReservationTtl.defaultValue())));
+    final Map<Long, ContainerClusterApiClient> _apiClients = new ConcurrentHashMap<Long, ContainerClusterApiClient>();
+    ContainerClusterSettings _settings;
+    final ContainerClusterCloudConfigTemplate.Cache _cloudConfigTemplates = new ContainerClusterCloudConfigTemplate.Cache();
+    final ContainerServiceReadinessCache _readinessCache = new ContainerServiceReadinessCache(READINESS_CACHE_TTL);
+
+    // delay after start up before provisioning interrupted by a restart of this management server is resumed
+    private static final long PROVISIONING_RECOVERY_DELAY = TimeUnit.SECONDS.toMillis(60);
+
+    // how long VM state changes are collected before the clusters owning the VM's are reconciled, so the VM's of a
+    // cluster changing state together cause a single reconciliation
+    private static final long STATE_RECONCILE_DELAY = TimeUnit.SECONDS.toMillis(5);
+
+    // how often the outcome of operations on cluster VM's is polled
+    private static final long VM_OPERATION_POLL_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    // how long values of dynamic container service settings are cached
+    private static final long SETTINGS_CACHE_TTL = TimeUnit.SECONDS.toMillis(30);
+
+    // how long a zone is taken as configured for container service before the checks are run again
+    private static final long READINESS_CACHE_TTL = TimeUnit.MINUTES.toMillis(5);
+
+    // key pairs generated ahead of time for the API server certificates of cluster masters
+    private static final int KEY_PAIR_POOL_SIZE = 4;
+    private static final long KEY_PAIR_POOL_REFILL_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final int API_SERVER_CERTIFICATE_VALIDITY_DAYS = 3650;
+
+    // template detail that, set to false, keeps the user data of VMs from the template uncompressed
+    private static final String USER_DATA_COMPRESSION_DETAIL = "ccs.userdata.compression";
+
+    // connections kept open to the kubernetes API server of each cluster for health checks
+    private static final int API_CLIENT_CONNECT_TIMEOUT = (int)TimeUnit.SECONDS.toMillis(10);
+    private static final int API_CLIENT_READ_TIMEOUT = (int)TimeUnit.SECONDS.toMillis(30);
+    private static final int API_CLIENT_MAX_CONNECTIONS = 2;
+    private static final long API_CLIENT_KEEP_ALIVE = TimeUnit.SECONDS.toMillis(60);
+
+    // ids resolved per IN query when looking up the entities referenced by the responses of an API call
+    private static final int LOOKUP_BATCH_SIZE = 100;
 
     @Inject
     protected CAManager caManager;
@@ -190,6 +309,8 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
     @Inject
     protected DataCenterDao _dcDao;
     @Inject
+    protected DataCenterDetailsDao _dcDetailsDao;
+    @Inject
     protected ServiceOfferingDao _offeringDao;
     @Inject
     protected VMTemplateDao _templateDao;
@@ -232,8 +353,12 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
     @Inject
     private VMInstanceDao _vmInstanceDao;
     @Inject
+    protected UserDao _userDao;
+    @Inject
     private VMTemplateZoneDao _templateZoneDao;
     @Inject
+    protected VMTemplateDetailsDao _templateDetailsDao;
+    @Inject
     protected CapacityManager _capacityMgr;
     @Inject
     protected ResourceManager _resourceMgr;
@@ -242,8 +367,28 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
     @Inject
     protected ClusterDao _clusterDao;
     @Inject
+    protected ContainerClusterCapacityDao _ccsCapacityDao;
+    @Inject
+    protected ContainerClusterCheckpointDao _checkpointDao;
+    @Inject
+    protected ContainerClusterWarmPoolVmDao _warmPoolVmDao;
+    @Inject
+    protected ContainerClusterPooledNetworkDao _pooledNetworkDao;
+    @Inject
+    protected ResourceLimitService _resourceLimitMgr;
+    @Inject
+    protected ContainerClusterVmDao _ccsVmDao;
+    @Inject
+    protected ContainerClusterZoneDao _ccsZoneDao;
+    @Inject
+    protected ContainerClusterServiceOfferingDao _ccsServiceOfferingDao;
+    @Inject
+    protected ContainerClusterJoinDao _containerClusterJoinDao;
+    @Inject
     FirewallRulesDao _firewallDao;
     @Inject
+    protected VlanDao _vlanDao;
+    @Inject
     protected IpAddressManager ipAddressManager;
 
     @Override
@@ -295,13 +440,13 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             }
         }
 
-        if (!isContainerServiceConfigured(zone)) {
+        final ContainerServiceReadinessCache.Readiness readiness = getContainerServiceReadiness(zone, false);
+        if (readiness == null) {
             throw new ManagementServerException("Container service has not been configured properly to provision container clusters.");
         }
 
-        VMTemplateVO template = _templateDao.findByTemplateName(_globalConfigDao.getValue(CcsConfig.ContainerClusterTemplateName.key()));
-        List<VMTemplateZoneVO> listZoneTemplate = _templateZoneDao.listByZoneTemplate(zone.getId(), template.getId());
-        if (listZoneTemplate == null || listZoneTemplate.isEmpty()) {
+        VMTemplateVO template = readiness.getTemplate();
+        if (!readiness.isTemplateInZone()) {
             s_logger.warn("The template:" + template.getId() + " is not available for use in zone:" + zoneId + " to provision container cluster name:" + name);
             throw new ManagementServerException("Container service has not been configured properly to provision container clusters.");
         }
@@ -329,24 +474,13 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             else {
                 throw new InvalidParameterValueException("This network is already under use by another k8s cluster, network id is " + networkId);
             }
-        } else { // user has not specified network in which cluster VM's to be provisioned, so create a network for container cluster
-            NetworkOfferingVO networkOffering = _networkOfferingDao.findByUniqueName(
-                    _globalConfigDao.getValue(CcsConfig.ContainerClusterNetworkOffering.key()));
-
-            long physicalNetworkId = _networkModel.findPhysicalNetworkId(zone.getId(), networkOffering.getTags(), networkOffering.getTrafficType());
-            PhysicalNetwork physicalNetwork = _physicalNetworkDao.findById(physicalNetworkId);
-
-            if (s_logger.isDebugEnabled()) {
-                s_logger.debug("Creating network for account " + owner + " from the network offering id=" +
-                        networkOffering.getId() + " as a part of cluster: " + name + " deployment process");
-            }
-
-            try {
-                network = _networkMgr.createGuestNetwork(networkOffering.getId(), name + "-network", owner.getAccountName() + "-network",
-                        null, null, null, false,null, owner, null, physicalNetwork, zone.getId(), ControlledEntity.ACLType.Account, null, null, null, null, true, null, null);
-            } catch(Exception e) {
-                s_logger.warn("Unable to create a network for the container cluster due to " + e);
-                throw new ManagementServerException("Unable to create a network for the container cluster.");
+        } else { // user has not specified network in which cluster VM's to be provisioned, so take a network from the pool or create one
+            network = claimPooledNetwork(zone, owner, name);
+            if (network == null) {
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Creating network for account " + owner + " as a part of cluster: " + name + " deployment process");
+                }
+                network = createContainerClusterNetwork(zone, owner, name + "-network", owner.getAccountName() + "-network");
             }
         }
 
@@ -414,50 +548,87 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
     // perform a cold start (which will provision resources as well)
     private boolean startContainerClusterOnCreate(final long containerClusterId) throws ManagementServerException {
 
-        // Starting a contriner cluster has below workflow
+        final ContainerClusterVO containerCluster = _containerClusterDao.findById(containerClusterId);
+
+        if (s_logger.isDebugEnabled()) {
+            s_logger.debug("Starting container cluster: " + containerCluster.getName());
+        }
+
+        if (!stateTransitTo(containerCluster, ContainerCluster.Event.StartRequested)) {
+            throw new ManagementServerException("Container cluster id: " + containerClusterId + " changed state while being started, please retry.");
+        }
+        recordCheckpoint(containerClusterId, Step.Provisioning, 0, null);
+
+        return provisionContainerCluster(containerClusterId);
+    }
+
+    // Provisions a container cluster in 'Starting' state, skipping the steps recorded as done in the checkpoints of
+    // the cluster, so provisioning interrupted by a management server restart carries on where it stopped. The
+    // checkpoints are removed once the cluster leaves 'Starting' state.
+    boolean provisionContainerCluster(final long containerClusterId) throws ManagementServerException {
+        if (!_provisioningsInProgress.add(containerClusterId)) {
+            throw new ManagementServerException("Container cluster id: " + containerClusterId + " is already being provisioned");
+        }
+        try {
+            return doProvisionContainerCluster(containerClusterId);
+        } finally {
+            _provisioningsInProgress.remove(containerClusterId);
+            final ContainerClusterVO containerCluster = _containerClusterDao.findById(containerClusterId);
+            if (containerCluster == null || containerCluster.getState() != ContainerCluster.State.Starting) {
+                _checkpointDao.removeByClusterId(containerClusterId);
+            }
+        }
+    }
+
+    private boolean doProvisionContainerCluster(final long containerClusterId) throws ManagementServerException {
+
+        // Provisioning a contriner cluster has below workflow
         //   - start the newtwork
-        //   - provision the master /node VM
-        //   - priovision node VM's (as many as cluster size)
+        //   - allocate the master VM (which reserves the master IP)
+        //   - start the master VM, while node VM's (as many as cluster size) are provisioned in parallel
         //   - update the booke keeping data of the VM's provisioned for the cluster
         //   - setup networking (add Firewall and PF rules)
         //   - wait till kubernetes API server on master VM to come up
         //   - wait till addon services (dashboard etc) to come up
         //   - update API and dashboard URL endpoints in container cluster details
+        // Each step is checkpointed once done, and skipped when provisioning is resumed.
 
         ContainerClusterVO containerCluster = _containerClusterDao.findById(containerClusterId);
-
-        if (s_logger.isDebugEnabled()) {
-            s_logger.debug("Starting container cluster: " + containerCluster.getName());
-        }
-
-        stateTransitTo(containerClusterId, ContainerCluster.Event.StartRequested);
+        final Map<String, ContainerClusterCheckpointVO> checkpoints = getCheckpoints(containerClusterId);
 
         Account account = _accountDao.findById(containerCluster.getAccountId());
 
-        DeployDestination dest = null;
-        try {
-            dest = plan(containerClusterId, containerCluster.getZoneId());
-        }
-        catch (InsufficientCapacityException e){
-            stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
-            s_logger.warn("Provisioning the cluster failed due to insufficient capacity in the container cluster: " + containerCluster.getName() + " due to " + e);
-            throw new ManagementServerException("Provisioning the cluster failed due to insufficient capacity in the container cluster: " + containerCluster.getName(), e);
-        }
-        final ReservationContext context = new ReservationContextImpl(null, null, null, account);
+        ContainerClusterPlacement placement = null;
+        if (!checkpoints.containsKey(checkpointKey(Step.NetworkImplemented, 0))) {
+            try {
+                placement = planPlacement(containerClusterId, containerCluster.getNodeCount(), containerCluster.getZoneId(),
+                        _srvOfferingDao.findById(containerCluster.getServiceOfferingId()));
+            }
+            catch (InsufficientCapacityException e){
+                stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
+                s_logger.warn("Provisioning the cluster failed due to insufficient capacity in the container cluster: " + containerCluster.getName() + " due to " + e);
+                throw new ManagementServerException("Provisioning the cluster failed due to insufficient capacity in the container cluster: " + containerCluster.getName(), e);
+            }
+            final ReservationContext context = new ReservationContextImpl(null, null, null, account);
 
-        try {
-            _networkMgr.startNetwork(containerCluster.getNetworkId(), dest, context);
-            if (s_logger.isDebugEnabled()) {
-                s_logger.debug("Network:" + containerCluster.getNetworkId() + " is started for the  container cluster: " + containerCluster.getName());
+            try {
+                _networkMgr.startNetwork(containerCluster.getNetworkId(), placement.getDestination(), context);
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Network:" + containerCluster.getNetworkId() + " is started for the  container cluster: " + containerCluster.getName());
+                }
+            } catch (RuntimeException e) {
+                stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
+                s_logger.warn("Starting the network failed as part of starting container cluster " + containerCluster.getName() + " due to " + e);
+                throw new ManagementServerException("Failed to start the network while creating container cluster name:" + containerCluster.getName(), e);
+            } catch(Exception e) {
+                stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
+                s_logger.warn("Starting the network failed as part of starting container cluster " + containerCluster.getName() + " due to " + e);
+                throw new ManagementServerException("Failed to start the network while creating container cluster name:" + containerCluster.getName(), e);
             }
-        } catch (RuntimeException e) {
-            stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
-            s_logger.warn("Starting the network failed as part of starting container cluster " + containerCluster.getName() + " due to " + e);
-            throw new ManagementServerException("Failed to start the network while creating container cluster name:" + containerCluster.getName(), e);
-        } catch(Exception e) {
-            stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
-            s_logger.warn("Starting the network failed as part of starting container cluster " + containerCluster.getName() + " due to " + e);
-            throw new ManagementServerException("Failed to start the network while creating container cluster name:" + containerCluster.getName(), e);
+            recordCheckpoint(containerClusterId, Step.NetworkImplemented, 0, null);
+        } else {
+            // capacity planned before the restart is gone along with the ledger, VM's left to start are placed by the allocator
+            placement = new ContainerClusterPlacement(_dcDao.findById(containerCluster.getZoneId()), Collections.<HostVO>emptyList(), null);
         }
 
         IPAddressVO publicIp = null;
@@ -469,132 +640,91 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         }
         publicIp = ips.get(0);
 
+        // The master's guest IP is reserved when the master VM is allocated. Nodes only need that IP to join the
+        // cluster, so once the master VM is allocated the master boot and the node provisioning run side by side.
         UserVm k8sMasterVM = null;
-        try {
-            k8sMasterVM = createK8SMaster(containerCluster, ips);
-
-            final long clusterId = containerCluster.getId();
-            final long masterVmId = k8sMasterVM.getId();
-            Transaction.execute(new TransactionCallback<ContainerClusterVmMapVO>() {
-                @Override
-                public ContainerClusterVmMapVO doInTransaction(TransactionStatus status) {
-                    ContainerClusterVmMapVO newClusterVmMap = new ContainerClusterVmMapVO(clusterId, masterVmId);
-                    _clusterVmMapDao.persist(newClusterVmMap);
-                    return newClusterVmMap;
-                }
-            });
-
-            startK8SVM(k8sMasterVM, containerCluster);
-            k8sMasterVM = _vmDao.findById(k8sMasterVM.getId());
-            if (s_logger.isDebugEnabled()) {
-                s_logger.debug("Provisioned the master VM's in to the container cluster name:" + containerCluster.getName());
+        String masterIP = null;
+        final ContainerClusterCheckpointVO masterCreated = checkpoints.get(checkpointKey(Step.MasterCreated, 0));
+        if (masterCreated != null) {
+            k8sMasterVM = _vmDao.findById(masterCreated.getVmId());
+            if (k8sMasterVM == null) {
+                stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
+                throw new ManagementServerException("Master VM of the container cluster: " + containerCluster.getName() + " no longer exists");
             }
-        } catch (RuntimeException e) {
-            stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
-            s_logger.warn("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName() + " due to " + e);
-            throw new ManagementServerException("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName(), e);
-        } catch (Exception e) {
-            stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
-            s_logger.warn("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName() + " due to " + e);
-            throw new ManagementServerException("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName(), e);
-        }
-
-        String masterIP = k8sMasterVM.getPrivateIpAddress();
-
-        long anyNodeVmId = 0;
-        UserVm k8anyNodeVM = null;
-        for (int i=1; i <= containerCluster.getNodeCount(); i++) {
-            UserVm vm = null;
+            masterIP = k8sMasterVM.getPrivateIpAddress();
+        } else {
             try {
-                vm = createK8SNode(containerCluster, masterIP, i);
-                final long nodeVmId = vm.getId();
-                ContainerClusterVmMapVO clusterNodeVmMap = Transaction.execute(new TransactionCallback<ContainerClusterVmMapVO>() {
-                    @Override
-                    public ContainerClusterVmMapVO doInTransaction(TransactionStatus status) {
-                        ContainerClusterVmMapVO newClusterVmMap = new ContainerClusterVmMapVO(containerClusterId, nodeVmId);
-                        _clusterVmMapDao.persist(newClusterVmMap);
-                        return newClusterVmMap;
-                    }
-                });
-                startK8SVM(vm, containerCluster);
-
-                vm = _vmDao.findById(vm.getId());
-                if (s_logger.isDebugEnabled()) {
-                    s_logger.debug("Provisioned a node VM in to the container cluster: " + containerCluster.getName());
+                masterIP = ipAddressManager.acquireGuestIpAddress(_networkDao.findById(containerCluster.getNetworkId()), null);
+                if (masterIP == null) {
+                    throw new ManagementServerException("Unable to acquire a guest IP address for the master VM in the network:" + containerCluster.getNetworkId());
                 }
+                k8sMasterVM = createK8SMaster(containerCluster, masterIP, ips);
+                persistClusterVm(containerClusterId, k8sMasterVM.getId(), Step.MasterCreated, 0);
             } catch (RuntimeException e) {
                 stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
-                s_logger.warn("Provisioning the node VM failed in the container cluster " + containerCluster.getName() + " due to " + e);
-                throw new ManagementServerException("Provisioning the node VM failed in the container cluster " + containerCluster.getName(), e);
+                s_logger.warn("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName() + " due to " + e);
+                throw new ManagementServerException("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName(), e);
             } catch (Exception e) {
                 stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
-                s_logger.warn("Provisioning the node VM failed in the container cluster " + containerCluster.getName() + " due to " + e);
-                throw new ManagementServerException("Provisioning the node VM failed in the container cluster " + containerCluster.getName(), e);
+                s_logger.warn("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName() + " due to " + e);
+                throw new ManagementServerException("Provisioning the master VM' failed in the container cluster: " + containerCluster.getName(), e);
             }
+        }
 
-            if (anyNodeVmId == 0) {
-                anyNodeVmId = vm.getId();
-                k8anyNodeVM = vm;
-            }
+        try {
+            k8sMasterVM = startK8SMasterAndProvisionNodes(containerCluster, k8sMasterVM, masterIP, placement, checkpoints);
+        } catch (ManagementServerException e) {
+            stateTransitTo(containerClusterId, ContainerCluster.Event.CreateFailed);
+            s_logger.warn("Provisioning the cluster VM's failed in the container cluster " + containerCluster.getName() + " due to " + e);
+            throw e;
         }
 
         if (s_logger.isDebugEnabled()) {
             s_logger.debug("Container cluster : " + containerCluster.getName() + " VM's are successfully provisioned.");
         }
 
-        setupContainerClusterNetworkRules(publicIp, account, containerClusterId, k8sMasterVM.getId());
-
-        int retryCounter = 0;
-        int maxRetries = 30;
-        boolean k8sApiServerSetup = false;
+        if (!checkpoints.containsKey(checkpointKey(Step.RulesApplied, 0))) {
+            setupContainerClusterNetworkRules(publicIp, account, containerClusterId, k8sMasterVM.getId());
+            recordCheckpoint(containerClusterId, Step.RulesApplied, 0, null);
+        }
 
-        while (retryCounter < maxRetries) {
-            try (Socket socket = new Socket()) {
-                socket.connect(new InetSocketAddress(publicIp.getAddress().addr(), 6443), 10000);
-                k8sApiServerSetup = true;
+        boolean k8sApiServerSetup = checkpoints.containsKey(checkpointKey(Step.ApiReady, 0));
+        if (!k8sApiServerSetup) {
+            k8sApiServerSetup = awaitReadiness(_readinessProber.probeEndpoint(
+                    new InetSocketAddress(publicIp.getAddress().addr(), 6443), getTimeout(CcsConfig.ContainerClusterApiServerCreateTimeout, containerCluster)));
+            if (k8sApiServerSetup) {
                 containerCluster = _containerClusterDao.findById(containerClusterId);
                 containerCluster.setEndpoint("https://" + publicIp.getAddress() + ":6443/");
                 _containerClusterDao.update(containerCluster.getId(), containerCluster);
-                break;
-            } catch (IOException e) {
-                if (s_logger.isDebugEnabled()) {
-                    s_logger.debug("Waiting for container cluster: " + containerCluster.getName() + " API endpoint to be available. retry: " + retryCounter + "/" + maxRetries);
-                }
-                try { Thread.sleep(60000); } catch (InterruptedException ex) {}
-                retryCounter++;
+                recordCheckpoint(containerClusterId, Step.ApiReady, 0, null);
             }
         }
 
         if (k8sApiServerSetup) {
-
-            retryCounter = 0;
-            maxRetries = 30;
             // Dashbaord service is a docker image downloaded at run time.
             // So wait for some time and check if dashbaord service is up running.
-            while (retryCounter < maxRetries) {
-
-                if (s_logger.isDebugEnabled()) {
-                    s_logger.debug("Waiting for dashboard service for the container cluster: " + containerCluster.getName()
-                            + " to come up. Attempt: " + retryCounter + " of max retries " + maxRetries);
-                }
-
-                if (isAddOnServiceRunning(containerCluster.getId(), "kubernetes-dashboard")) {
+            final boolean dashboardRunning = awaitReadiness(_readinessProber.probeCondition(
+                    "dashboard service of the container cluster: " + containerCluster.getName(),
+                    new ContainerClusterTask<Boolean>() {
+                        @Override
+                        protected Boolean doInContext() {
+                            return isAddOnServiceRunning(containerClusterId, "kubernetes-dashboard");
+                        }
+                    }, getTimeout(CcsConfig.ContainerClusterDashboardTimeout, containerCluster)));
 
-                    stateTransitTo(containerClusterId, ContainerCluster.Event.OperationSucceeded);
+            if (dashboardRunning) {
 
-                    containerCluster = _containerClusterDao.findById(containerClusterId);
-                    containerCluster.setConsoleEndpoint("https://" + publicIp.getAddress() + ":6443/api/v1/namespaces/kube-system/services/https:kubernetes-dashboard:/proxy#!/overview?namespace=_all");
-                    _containerClusterDao.update(containerCluster.getId(), containerCluster);
+                stateTransitTo(containerClusterId, ContainerCluster.Event.OperationSucceeded);
 
-                    if (s_logger.isDebugEnabled()) {
-                        s_logger.debug("Container cluster name:" + containerCluster.getName() + " is successfully started");
-                    }
+                containerCluster = _containerClusterDao.findById(containerClusterId);
+                containerCluster.setConsoleEndpoint("https://" + publicIp.getAddress() + ":6443/api/v1/namespaces/kube-system/services/https:kubernetes-dashboard:/proxy#!/overview?namespace=_all");
+                _containerClusterDao.update(containerCluster.getId(), containerCluster);
 
-                    return true;
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Container cluster name:" + containerCluster.getName() + " is successfully started");
                 }
 
-                try { Thread.sleep(10000);} catch (InterruptedException ex) {}
-                retryCounter++;
+                return true;
             }
             s_logger.warn("Failed to setup container cluster " + containerCluster.getName() + " in usable state as" +
                     " unable to bring dashboard add on service up");
@@ -609,6 +739,36 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
                 "Failed to deploy container cluster: " + containerCluster.getId() + " as unable to setup up in usable state");
     }
 
+    private static String checkpointKey(final Step step, final int nodeInstance) {
+        return step + ":" + nodeInstance;
+    }
+
+    private Map<String, ContainerClusterCheckpointVO> getCheckpoints(final long containerClusterId) {
+        final Map<String, ContainerClusterCheckpointVO> checkpoints = new HashMap<String, ContainerClusterCheckpointVO>();
+        for (ContainerClusterCheckpointVO checkpoint : _checkpointDao.listByClusterId(containerClusterId)) {
+            checkpoints.put(checkpointKey(checkpoint.getStep(), checkpoint.getNodeInstance()), checkpoint);
+        }
+        return checkpoints;
+    }
+
+    private void recordCheckpoint(final long containerClusterId, final Step step, final int nodeInstance, final Long vmId) {
+        _checkpointDao.persist(new ContainerClusterCheckpointVO(containerClusterId, step, nodeInstance, vmId,
+                ManagementServerNode.getManagementServerId()));
+    }
+
+    // records a VM created for the cluster in the cluster VM map along with the checkpoint of its creation
+    private void persistClusterVm(final long containerClusterId, final long vmId, final Step step, final int nodeInstance) {
+        Transaction.execute(new TransactionCallback<ContainerClusterVmMapVO>() {
+            @Override
+            public ContainerClusterVmMapVO doInTransaction(TransactionStatus status) {
+                ContainerClusterVmMapVO newClusterVmMap = new ContainerClusterVmMapVO(containerClusterId, vmId);
+                _clusterVmMapDao.persist(newClusterVmMap);
+                recordCheckpoint(containerClusterId, step, nodeInstance, vmId);
+                return newClusterVmMap;
+            }
+        });
+    }
+
     private boolean startStoppedContainerCluster(long containerClusterId) throws ManagementServerException,
             ResourceAllocationException, ResourceUnavailableException, InsufficientCapacityException {
 
@@ -616,7 +776,12 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         if (containerCluster == null) {
             throw new ManagementServerException("Failed to find container cluster id: " + containerClusterId);
         }
+        return startStoppedContainerCluster(containerCluster);
+    }
 
+    // starts a stopped container cluster from an already loaded row, as bulk starts load all their clusters at once
+    private boolean startStoppedContainerCluster(final ContainerClusterVO containerCluster) throws ManagementServerException {
+        final long containerClusterId = containerCluster.getId();
         if (containerCluster.getRemoved() != null) {
             throw new ManagementServerException("Container cluster id:" + containerClusterId + " is already deleted.");
         }
@@ -639,28 +804,40 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             s_logger.debug("Starting container cluster: " + containerCluster.getName());
         }
 
-        stateTransitTo(containerClusterId, ContainerCluster.Event.StartRequested);
+        if (!stateTransitTo(containerCluster, ContainerCluster.Event.StartRequested)) {
+            throw new ManagementServerException("Container cluster id: " + containerClusterId + " changed state while being started, please retry.");
+        }
+        // the checkpoint tells provisioning recovery which management server starts the cluster
+        recordCheckpoint(containerClusterId, Step.Starting, 0, null);
+        try {
+            return startContainerClusterVms(containerCluster);
+        } finally {
+            final ContainerClusterVO cluster = _containerClusterDao.findById(containerClusterId);
+            if (cluster != null && cluster.getState() == ContainerCluster.State.Starting) {
+                stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
+            }
+            _checkpointDao.removeByClusterId(containerClusterId);
+        }
+    }
 
-        for (final ContainerClusterVmMapVO vmMapVO : _clusterVmMapDao.listByClusterId(containerClusterId)) {
-            final UserVmVO vm = _userVmDao.findById(vmMapVO.getVmId());
-            try {
+    // starts the VM's of a stopped container cluster in 'Starting' state and waits for its API server
+    private boolean startContainerClusterVms(final ContainerClusterVO containerCluster) throws ManagementServerException {
+        final long containerClusterId = containerCluster.getId();
+        final List<Long> vmIds = getClusterVmIds(containerClusterId);
+        runOnClusterVms(containerCluster, vmIds, "start", getTimeout(CcsConfig.ContainerClusterVmStartTimeout, containerCluster), new ClusterVmOperation() {
+            @Override
+            public void apply(final long vmId) throws Exception {
+                final UserVmVO vm = _userVmDao.findById(vmId);
                 if (vm == null) {
-                    stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
-                    throw new ManagementServerException("Failed to start all VMs in container cluster id: " + containerClusterId);
+                    throw new ManagementServerException("VM id: " + vmId + " of the container cluster no longer exists");
                 }
                 startK8SVM(vm, containerCluster);
-            } catch (ServerApiException ex) {
-                s_logger.warn("Failed to start VM in container cluster id:" + containerClusterId + " due to " + ex);
-                // dont bail out here. proceed further to stop the reset of the VM's
             }
-        }
+        });
 
-        for (final ContainerClusterVmMapVO vmMapVO : _clusterVmMapDao.listByClusterId(containerClusterId)) {
-            final UserVmVO vm = _userVmDao.findById(vmMapVO.getVmId());
-            if (vm == null || !vm.getState().equals(VirtualMachine.State.Running)) {
-                stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
-                throw new ManagementServerException("Failed to start all VMs in container cluster id: " + containerClusterId);
-            }
+        if (!areClusterVmsInState(containerCluster, vmIds, VirtualMachine.State.Running)) {
+            stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
+            throw new ManagementServerException("Failed to start all VMs in container cluster id: " + containerClusterId);
         }
 
         InetAddress address = null;
@@ -673,23 +850,9 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             throw new ManagementServerException("Can not verify if container cluster id:" + containerClusterId + " is in usable state.");
         }
 
-        // wait for fixed time for K8S api server to be avaialble
-        int retryCounter = 0;
-        int maxRetries = 10;
-        boolean k8sApiServerSetup = false;
-        while (retryCounter < maxRetries) {
-            try (Socket socket = new Socket()) {
-                socket.connect(new InetSocketAddress(address.getHostAddress(), 6443), 10000);
-                k8sApiServerSetup = true;
-                break;
-            } catch (IOException e) {
-                if (s_logger.isDebugEnabled()) {
-                    s_logger.debug("Waiting for container cluster: " + containerCluster.getName() + " API endpoint to be available. retry: " + retryCounter + "/" + maxRetries);
-                }
-                try { Thread.sleep(50000); } catch (InterruptedException ex) {}
-                retryCounter++;
-            }
-        }
+        // wait for K8S api server to be avaialble
+        final boolean k8sApiServerSetup = awaitReadiness(_readinessProber.probeEndpoint(
+                new InetSocketAddress(address.getHostAddress(), 6443), getTimeout(CcsConfig.ContainerClusterApiServerStartTimeout, containerCluster)));
 
         if (!k8sApiServerSetup) {
             stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
@@ -925,53 +1088,49 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
     }
 
     public DeployDestination plan(final long clusterSize, final long dcId, final ServiceOffering offering) throws InsufficientServerCapacityException {
+        return planPlacement(null, clusterSize, dcId, offering).getDestination();
+    }
+
+    // Plans the hosts of the master VM and clusterSize node VM's with the configured placement strategy. When a
+    // container cluster id is given, the planned capacity is held in the reservation ledger for the cluster.
+    protected ContainerClusterPlacement planPlacement(final Long containerClusterId, final long clusterSize, final long dcId, final ServiceOffering offering)
+            throws InsufficientServerCapacityException {
         final int cpu_requested = offering.getCpu() * offering.getSpeed();
         final long ram_requested = offering.getRamSize() * 1024L * 1024L;
-        List<HostVO> hosts = _resourceMgr.listAllHostsInOneZoneByType(Type.Routing, dcId);
-        final Map<String, Pair<HostVO, Integer>> hosts_with_resevered_capacity = new ConcurrentHashMap<String, Pair<HostVO, Integer>>();
-        for (HostVO h : hosts) {
-           hosts_with_resevered_capacity.put(h.getUuid(), new Pair<HostVO, Integer>(h, 0));
-        }
-        boolean suitable_host_found=false;
+        final ContainerClusterPlacementStrategy strategy = getPlacementStrategy(dcId);
+        final List<Pair<Long, Long>> requirements = new ArrayList<Pair<Long, Long>>();
         for (int i=1; i <= clusterSize+1; i++) {
-            suitable_host_found=false;
-            for (Map.Entry<String, Pair<HostVO, Integer>> hostEntry : hosts_with_resevered_capacity.entrySet()) {
-                Pair<HostVO, Integer> hp = hostEntry.getValue();
-                HostVO h = hp.first();
-                int reserved = hp.second();
-                reserved++;
-                ClusterVO cluster = _clusterDao.findById(h.getClusterId());
-                ClusterDetailsVO cluster_detail_cpu = _clusterDetailsDao.findDetail(cluster.getId(), "cpuOvercommitRatio");
-                ClusterDetailsVO cluster_detail_ram = _clusterDetailsDao.findDetail(cluster.getId(), "memoryOvercommitRatio");
-                Float cpuOvercommitRatio = Float.parseFloat(cluster_detail_cpu.getValue());
-                Float memoryOvercommitRatio = Float.parseFloat(cluster_detail_ram.getValue());
-                if (s_logger.isDebugEnabled()){
-                    s_logger.debug("Checking host " + h.getId() + " for capacity already reserved " + reserved);
-                }
-                if (_capacityMgr.checkIfHostHasCapacity(h.getId(), cpu_requested * reserved, ram_requested * reserved, false, cpuOvercommitRatio, memoryOvercommitRatio, true)) {
+            requirements.add(new Pair<Long, Long>((long)cpu_requested, ram_requested));
+        }
+        _capacityLedger.purgeExpired();
+        final int placementAttempts = _settings.valueIn(CcsConfig.ContainerClusterPlacementAttempts, dcId);
+        for (int attempt = 1; attempt <= placementAttempts; attempt++) {
+            final ContainerClusterCapacitySnapshot capacitySnapshot = loadCapacitySnapshot(dcId);
+            final List<HostVO> hosts = capacitySnapshot.place(requirements, strategy);
+            if (hosts == null) {
+                break;
+            }
+            List<Reservation> reservations = null;
+            if (containerClusterId != null) {
+                reservations = capacitySnapshot.holdInLedger(containerClusterId, hosts, requirements);
+                if (reservations == null) {
                     if (s_logger.isDebugEnabled()){
-                        s_logger.debug("Found host " + h.getId() + " has enough capacity cpu = " + cpu_requested * reserved + " ram =" + ram_requested * reserved);
+                        s_logger.debug("Capacity planned in datacenter " + dcId + " was reserved by a concurrent plan, attempt: " + attempt);
                     }
-                    hostEntry.setValue(new Pair<HostVO, Integer>(h, reserved));
-                    suitable_host_found = true;
-                    break;
+                    continue;
                 }
             }
-            if (suitable_host_found){
-                continue;
-            }
-            else {
-                 if (s_logger.isDebugEnabled()){
-                     s_logger.debug("Suitable hosts not found in datacenter " + dcId + " for node " + i);
-                 }
-                break;
-            }
-        }
-        if (suitable_host_found){
             if (s_logger.isDebugEnabled()){
-                s_logger.debug("Suitable hosts found in datacenter " + dcId + " creating deployment destination");
+                final StringBuilder placement = new StringBuilder();
+                for (HostVO h : hosts) {
+                    placement.append(placement.length() == 0 ? "" : ", ").append(h.getId());
+                }
+                s_logger.debug("Suitable hosts found in datacenter " + dcId + " with " + strategy.getName() + " placement, hosts: " + placement);
             }
-            return new DeployDestination(_dcDao.findById(dcId), null, null, null);
+            return new ContainerClusterPlacement(_dcDao.findById(dcId), hosts, reservations);
+        }
+        if (s_logger.isDebugEnabled()){
+            s_logger.debug("Suitable hosts not found in datacenter " + dcId + " for " + requirements.size() + " VM's");
         }
         String msg = String.format("Cannot find enough capacity for container_cluster(requested cpu=%1$s memory=%2$s)",
                 cpu_requested*clusterSize, ram_requested*clusterSize);
@@ -979,6 +1138,48 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         throw new InsufficientServerCapacityException(msg, DataCenter.class, dcId);
     }
 
+    private ContainerClusterPlacementStrategy getPlacementStrategy(final long dcId) {
+        final String name = _settings.valueIn(CcsConfig.ContainerClusterPlacementStrategy, dcId);
+        ContainerClusterPlacementStrategy strategy = ContainerClusterPlacementStrategies.getStrategy(name);
+        if (strategy == null) {
+            if (name != null) {
+                s_logger.warn("Unknown container cluster placement strategy " + name + ", using " + CcsConfig.ContainerClusterPlacementStrategy.defaultValue());
+            }
+            strategy = ContainerClusterPlacementStrategies.getStrategy(CcsConfig.ContainerClusterPlacementStrategy.defaultValue());
+        }
+        return strategy;
+    }
+
+    // Loads the hosts of the zone with their capacity and cluster overcommit ratios in bulk, one query for the
+    // hosts, one for their capacities and one per host cluster for the overcommit ratios.
+    protected ContainerClusterCapacitySnapshot loadCapacitySnapshot(final long dcId) {
+        final List<HostVO> hosts = _resourceMgr.listAllHostsInOneZoneByType(Type.Routing, dcId);
+        final Map<Long, Pair<Float, Float>> overcommitRatios = new HashMap<Long, Pair<Float, Float>>();
+        for (HostVO h : hosts) {
+            if (h.getClusterId() == null || overcommitRatios.containsKey(h.getClusterId())) {
+                continue;
+            }
+            final Map<String, String> clusterDetails = _clusterDetailsDao.findDetails(h.getClusterId());
+            overcommitRatios.put(h.getClusterId(), new Pair<Float, Float>(
+                    parseOvercommitRatio(clusterDetails.get("cpuOvercommitRatio")),
+                    parseOvercommitRatio(clusterDetails.get("memoryOvercommitRatio"))));
+        }
+        final List<CapacityVO> capacities = hosts.isEmpty() ? new ArrayList<CapacityVO>() : _ccsCapacityDao.listHostCapacitiesByZone(dcId);
+        return new ContainerClusterCapacitySnapshot(hosts, capacities, overcommitRatios, _capacityLedger);
+    }
+
+    private static float parseOvercommitRatio(final String ratio) {
+        if (ratio == null) {
+            return 1.0f;
+        }
+        try {
+            return Float.parseFloat(ratio);
+        } catch (NumberFormatException e) {
+            s_logger.warn("Invalid overcommit ratio " + ratio + ", assuming no overcommit");
+            return 1.0f;
+        }
+    }
+
     public DeployDestination plan(final long containerClusterId, final long dcId) throws InsufficientServerCapacityException {
         ContainerClusterVO containerCluster = _containerClusterDao.findById(containerClusterId);
         ServiceOffering offering = _srvOfferingDao.findById(containerCluster.getServiceOfferingId());
@@ -997,7 +1198,12 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         if (containerCluster == null) {
             throw new ManagementServerException("Failed to find container cluster id: " + containerClusterId);
         }
+        return stopContainerCluster(containerCluster);
+    }
 
+    // stops a container cluster from an already loaded row, as bulk stops load all their clusters at once
+    private boolean stopContainerCluster(final ContainerClusterVO containerCluster) throws ManagementServerException {
+        final long containerClusterId = containerCluster.getId();
         if (containerCluster.getRemoved() != null) {
             throw new ManagementServerException("Container cluster id:" + containerClusterId + " is already deleted.");
         }
@@ -1020,28 +1226,22 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             s_logger.debug("Stopping container cluster: " + containerCluster.getName());
         }
 
-        stateTransitTo(containerClusterId, ContainerCluster.Event.StopRequested);
-
-        for (final ContainerClusterVmMapVO vmMapVO : _clusterVmMapDao.listByClusterId(containerClusterId)) {
-            final UserVmVO vm = _userVmDao.findById(vmMapVO.getVmId());
-            try {
-                if (vm == null) {
-                    stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
-                    throw new ManagementServerException("Failed to start all VMs in container cluster id: " + containerClusterId);
-                }
-                stopK8SVM(vmMapVO);
-            } catch (ServerApiException ex) {
-                s_logger.warn("Failed to stop VM in container cluster id:" + containerClusterId + " due to " + ex);
-                // dont bail out here. proceed further to stop the reset of the VM's
-            }
+        if (!stateTransitTo(containerCluster, ContainerCluster.Event.StopRequested)) {
+            throw new ManagementServerException("Container cluster id: " + containerClusterId + " changed state while being stopped, please retry.");
         }
+        releaseApiClient(containerClusterId);
 
-        for (final ContainerClusterVmMapVO vmMapVO : _clusterVmMapDao.listByClusterId(containerClusterId)) {
-            final UserVmVO vm = _userVmDao.findById(vmMapVO.getVmId());
-            if (vm == null || !vm.getState().equals(VirtualMachine.State.Stopped)) {
-                stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
-                throw new ManagementServerException("Failed to stop all VMs in container cluster id: " + containerClusterId);
+        final List<Long> vmIds = getClusterVmIds(containerClusterId);
+        runOnClusterVms(containerCluster, vmIds, "stop", getTimeout(CcsConfig.ContainerClusterVmStopTimeout, containerCluster), new ClusterVmOperation() {
+            @Override
+            public void apply(final long vmId) throws Exception {
+                stopK8SVM(vmId);
             }
+        });
+
+        if (!areClusterVmsInState(containerCluster, vmIds, VirtualMachine.State.Stopped)) {
+            stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
+            throw new ManagementServerException("Failed to stop all VMs in container cluster id: " + containerClusterId);
         }
 
         stateTransitTo(containerClusterId, ContainerCluster.Event.OperationSucceeded);
@@ -1053,42 +1253,126 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         ContainerClusterVO containerCluster = _containerClusterDao.findById(clusterId);
 
         //FIXME: whole logic needs revamp. Assumption that management server has public network access is not practical
-        IPAddressVO publicIp = null;
-        List<IPAddressVO> ips = _publicIpAddressDao.listByAssociatedNetwork(containerCluster.getNetworkId(), true);
-        publicIp = ips.get(0);
-
-        Runtime r = Runtime.getRuntime();
-        int nodePort = 0;
         try {
-            ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerCluster.getId());
-            String execStr = "kubectl -s https://admin:" + clusterDetails.getPassword() + "@" + publicIp.getAddress().addr() + ":6443/"
-                    + " get pods --insecure-skip-tls-verify=true --namespace=kube-system";
-            Process p = r.exec(execStr);
-            p.waitFor();
-            BufferedReader b = new BufferedReader(new InputStreamReader(p.getInputStream(), "UTF8"));
-            String line = "";
-            while ((line = b.readLine()) != null) {
+            if (getApiClient(containerCluster).isKubeSystemPodRunning(svcName)) {
                 if (s_logger.isDebugEnabled()) {
-                    s_logger.debug("KUBECTL : " + line);
-                }
-                if (line.contains(svcName) && line.contains("Running")) {
-                    if (s_logger.isDebugEnabled()) {
-                        s_logger.debug("Service :" + svcName + " for the container cluster "
-                                + containerCluster.getName() + " is running");
-                    }
-                    b.close();
-                    return true;
+                    s_logger.debug("Service :" + svcName + " for the container cluster "
+                            + containerCluster.getName() + " is running");
                 }
+                return true;
             }
-            b.close();
-        } catch (IOException excep) {
-            s_logger.warn("KUBECTL: " + excep);
-        } catch (InterruptedException e) {
-            s_logger.warn("KUBECTL: " + e);
+        } catch (IOException | GeneralSecurityException e) {
+            s_logger.warn("Failed to query the pods of container cluster " + containerCluster.getName() + " due to " + e);
         }
         return false;
     }
 
+    // Returns the certificate of the kubernetes API server of the cluster. The certificate stored for the cluster is reused
+    // as long as it is valid for the names and addresses of the master, so a master created again keeps the certificate
+    // clients already trust. Otherwise a certificate is issued for a key pair taken from the pool and stored.
+    private Certificate getApiServerCertificate(final ContainerClusterVO containerCluster, final String hostName, final List<String> addresses)
+            throws IOException, GeneralSecurityException {
+        final List<String> domainNames = Arrays.asList(hostName, "kubernetes", "kubernetes.default", "kubernetes.default.svc",
+                "kubernetes.default.svc.cluster", "kubernetes.default.svc.cluster.local");
+
+        final ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerCluster.getId());
+        if (clusterDetails.getApiServerCertificate() != null && clusterDetails.getApiServerPrivateKey() != null
+                && clusterDetails.getCaCertificates() != null) {
+            final X509Certificate certificate = CertUtils.pemToX509Certificate(clusterDetails.getApiServerCertificate());
+            if (isCertificateValidFor(certificate, domainNames, addresses)) {
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Reusing the API server certificate of the container cluster: " + containerCluster.getName());
+                }
+                return new Certificate(certificate, CertUtils.pemToPrivateKey(clusterDetails.getApiServerPrivateKey()),
+                        pemToX509Certificates(clusterDetails.getCaCertificates()));
+            }
+        }
+
+        final KeyPair keyPair = _keyPairPool.take();
+        _keyPairExecutor.execute(new ContainerClusterKeyPairPoolRefiller());
+        final Certificate issued = caManager.issueCertificate(createCertificateRequest(keyPair, hostName), domainNames, addresses,
+                API_SERVER_CERTIFICATE_VALIDITY_DAYS, null);
+
+        clusterDetails.setApiServerCertificate(CertUtils.x509CertificateToPem(issued.getClientCertificate()));
+        clusterDetails.setApiServerPrivateKey(CertUtils.privateKeyToPem(keyPair.getPrivate()));
+        clusterDetails.setCaCertificates(CertUtils.x509CertificatesToPem(issued.getCaCertificates()));
+        _containerClusterDetailsDao.update(clusterDetails.getId(), clusterDetails);
+        return new Certificate(issued.getClientCertificate(), keyPair.getPrivate(), issued.getCaCertificates());
+    }
+
+    // true if the certificate has not expired and its subject alternative names cover the given names and addresses
+    private static boolean isCertificateValidFor(final X509Certificate certificate, final List<String> domainNames, final List<String> addresses)
+            throws GeneralSecurityException {
+        try {
+            certificate.checkValidity();
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+        final Set<String> alternativeNames = new HashSet<String>();
+        if (certificate.getSubjectAlternativeNames() != null) {
+            for (List<?> alternativeName : certificate.getSubjectAlternativeNames()) {
+                alternativeNames.add(String.valueOf(alternativeName.get(1)));
+            }
+        }
+        return alternativeNames.containsAll(domainNames) && alternativeNames.containsAll(addresses);
+    }
+
+    private static String createCertificateRequest(final KeyPair keyPair, final String commonName) throws IOException, GeneralSecurityException {
+        final PKCS10CertificationRequest request;
+        try {
+            request = new JcaPKCS10CertificationRequestBuilder(new X500Principal("CN=" + commonName), keyPair.getPublic())
+                    .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()));
+        } catch (final OperatorCreationException e) {
+            throw new GeneralSecurityException("Failed to sign the certificate request for " + commonName, e);
+        }
+        final StringWriter writer = new StringWriter();
+        try (PemWriter pemWriter = new PemWriter(writer)) {
+            pemWriter.writeObject(new PemObject("CERTIFICATE REQUEST", request.getEncoded()));
+        }
+        return writer.toString();
+    }
+
+    private static List<X509Certificate> pemToX509Certificates(final String pem) throws GeneralSecurityException {
+        final List<X509Certificate> certificates = new ArrayList<X509Certificate>();
+        for (java.security.cert.Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(
+                new ByteArrayInputStream(pem.getBytes(Charset.forName("UTF-8"))))) {
+            certificates.add((X509Certificate)certificate);
+        }
+        return certificates;
+    }
+
+    // Returns the API client of the cluster, connections to the API server are kept alive across health checks.
+    private ContainerClusterApiClient getApiClient(final ContainerClusterVO containerCluster) throws IOException, GeneralSecurityException {
+        List<IPAddressVO> ips = _publicIpAddressDao.listByAssociatedNetwork(containerCluster.getNetworkId(), true);
+        if (ips == null || ips.isEmpty()) {
+            throw new IOException("No public IP address is associated with the network of the container cluster");
+        }
+        final String publicIp = ips.get(0).getAddress().addr();
+
+        ContainerClusterApiClient apiClient = _apiClients.get(containerCluster.getId());
+        if (apiClient != null && apiClient.getHost().equals(publicIp)) {
+            return apiClient;
+        }
+
+        final ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerCluster.getId());
+        final String caCertificates = clusterDetails.getCaCertificates() != null ? clusterDetails.getCaCertificates() : caManager.getCaCertificate(null);
+        apiClient = new ContainerClusterApiClient(publicIp, 6443, clusterDetails.getUserName(), clusterDetails.getPassword(),
+                ContainerClusterApiClient.createSocketFactory(caCertificates),
+                API_CLIENT_CONNECT_TIMEOUT, API_CLIENT_READ_TIMEOUT, API_CLIENT_MAX_CONNECTIONS, API_CLIENT_KEEP_ALIVE);
+        final ContainerClusterApiClient previous = _apiClients.put(containerCluster.getId(), apiClient);
+        if (previous != null) {
+            previous.close();
+        }
+        return apiClient;
+    }
+
+    private void releaseApiClient(final long containerClusterId) {
+        final ContainerClusterApiClient apiClient = _apiClients.remove(containerClusterId);
+        if (apiClient != null) {
+            apiClient.close();
+        }
+    }
+
     @Override
     public boolean deleteContainerCluster(Long containerClusterId) throws ManagementServerException {
 
@@ -1101,67 +1385,207 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         Account caller = ctx.getCallingAccount();
 
         _accountMgr.checkAccess(caller, SecurityChecker.AccessType.OperateEntry, false, cluster);
-
-        return cleanupContainerClusterResources(containerClusterId);
+        return deleteContainerCluster(cluster);
     }
 
-    private boolean cleanupContainerClusterResources(Long containerClusterId) throws ManagementServerException {
-
-        ContainerClusterVO cluster = _containerClusterDao.findById(containerClusterId);
-
-        if (!(cluster.getState().equals(ContainerCluster.State.Running)
-                || cluster.getState().equals(ContainerCluster.State.Stopped)
-                || cluster.getState().equals(ContainerCluster.State.Alert)
-                || cluster.getState().equals(ContainerCluster.State.Error)
-                || cluster.getState().equals(ContainerCluster.State.Destroying))) {
+    // deletes a container cluster from an already loaded row the caller has been checked to have access to, as bulk
+    // deletes load and check all their clusters at once
+    private boolean deleteContainerCluster(final ContainerClusterVO cluster) throws ManagementServerException {
+        final long containerClusterId = cluster.getId();
+        checkContainerClusterDeletable(cluster);
+        if (!_teardownsInProgress.add(containerClusterId)) {
             if (s_logger.isDebugEnabled()) {
-                s_logger.debug("Cannot perform delete operation on cluster:" + cluster.getName() + " in state " + cluster.getState() );
+                s_logger.debug("Container cluster name:" + cluster.getName() + " is already being deleted");
             }
-            throw new PermissionDeniedException("Cannot perform delete operation on cluster: " + cluster.getName() + " in state" + cluster.getState() );
+            return true;
         }
 
-        stateTransitTo(containerClusterId, ContainerCluster.Event.DestroyRequested);
-
-        boolean failedVmDestroy = false;
-        List<ContainerClusterVmMapVO> clusterVMs = _containerClusterVmMapDao.listByClusterId(cluster.getId());
-        if ( (clusterVMs != null) && !clusterVMs.isEmpty()) {
-            for (ContainerClusterVmMapVO clusterVM: clusterVMs) {
-                long vmID = clusterVM.getVmId();
-
-                // delete only if VM exists and is not removed
-                UserVmVO userVM = _vmDao.findById(vmID);
-                if (userVM== null || userVM.isRemoved()) {
-                    continue;
-                }
+        // The cluster is marked for GC before its resources are touched, so that whatever is left of it when the
+        // teardown fails or this management server goes down is picked up by the garbage collector. The teardown
+        // itself runs in the background instead of holding the API job thread until all the VM's are expunged.
+        try {
+            if (!stateTransitTo(cluster, ContainerCluster.Event.DestroyRequested)) {
+                throw new ManagementServerException("Container cluster id: " + containerClusterId + " changed state while being deleted, please retry.");
+            }
+            cluster.setCheckForGc(true);
+            _containerClusterDao.update(cluster.getId(), cluster);
 
-                try {
-                    UserVm vm = _userVmService.destroyVm(vmID, true);
-                    if(! VirtualMachine.State.Expunging.equals(vm.getState())) {
-                        s_logger.warn(String.format("VM '%s' with uuid '%s' should have been expunging by now but is '%s'... retrying..."
-                                , vm.getInstanceName()
-                                , vm.getUuid()
-                                , vm.getState().toString() ));
-                        vm = _userVmService.expungeVm(vmID);
-                        if(! VirtualMachine.State.Expunging.equals(vm.getState())) {
-                            s_logger.error(String.format("VM '%s' is now in state '%s'. I will probably fail at deleting it's cluster."
-                                    , vm.getInstanceName()
-                                    , vm.getState().toString()));
-                        }
-                    }
-                    _containerClusterVmMapDao.expunge(clusterVM.getId());
-                    if (s_logger.isDebugEnabled()) {
-                        s_logger.debug("Destroyed VM: " + userVM.getInstanceName() + " as part of cluster: " + cluster.getName() + " destroy.");
+            final String clusterName = cluster.getName();
+            _teardownExecutor.submit(new ContainerClusterTask<Boolean>() {
+                @Override
+                protected Boolean doInContext() {
+                    try {
+                        return cleanupContainerClusterResources(containerClusterId);
+                    } catch (Exception e) {
+                        s_logger.warn("Failed to delete container cluster name:" + clusterName + " due to " + e
+                                + ". Will be attempted by the garbage collector.");
+                        return false;
+                    } finally {
+                        _teardownsInProgress.remove(containerClusterId);
                     }
-                } catch (Exception e ) {
-                    failedVmDestroy = true;
-                    s_logger.warn("Failed to destroy VM :" + userVM.getInstanceName() + " part of the cluster: " + cluster.getName() +
-                            " due to " + e);
-                    s_logger.warn("Moving on with destroying remaining resources provisioned for the cluster: " + cluster.getName());
                 }
-            }
+            });
+        } catch (ManagementServerException | RuntimeException e) {
+            _teardownsInProgress.remove(containerClusterId);
+            throw e;
+        }
+        return true;
+    }
+
+    // operation run on a single container cluster of a bulk request
+    interface ClusterOperation {
+        boolean apply(ContainerClusterVO containerCluster) throws Exception;
+    }
+
+    @Override
+    public ListResponse<ContainerClusterActionResponse> startContainerClusters(final List<Long> containerClusterIds) {
+        return runOnContainerClusters(containerClusterIds, "start", new ClusterOperation() {
+            @Override
+            public boolean apply(final ContainerClusterVO containerCluster) throws Exception {
+                return startStoppedContainerCluster(containerCluster);
+            }
+        });
+    }
+
+    @Override
+    public ListResponse<ContainerClusterActionResponse> stopContainerClusters(final List<Long> containerClusterIds) {
+        return runOnContainerClusters(containerClusterIds, "stop", new ClusterOperation() {
+            @Override
+            public boolean apply(final ContainerClusterVO containerCluster) throws Exception {
+                return stopContainerCluster(containerCluster);
+            }
+        });
+    }
+
+    @Override
+    public ListResponse<ContainerClusterActionResponse> deleteContainerClusters(final List<Long> containerClusterIds) {
+        return runOnContainerClusters(containerClusterIds, "delete", new ClusterOperation() {
+            @Override
+            public boolean apply(final ContainerClusterVO containerCluster) throws Exception {
+                return deleteContainerCluster(containerCluster);
+            }
+        });
+    }
+
+    // Runs an operation on a batch of container clusters on the bulk action pool. The clusters are loaded with a
+    // single query and access to all of them is checked before any of them is touched; the operations work on the
+    // loaded rows instead of looking the clusters up again. A failure on one cluster does
+    // not stop the operation on the others, the outcome is reported per cluster in the order of the given ids.
+    private ListResponse<ContainerClusterActionResponse> runOnContainerClusters(final List<Long> containerClusterIds, final String operation,
+                                                                                final ClusterOperation clusterOperation) {
+        final Account caller = CallContext.current().getCallingAccount();
+        final List<Long> ids = new ArrayList<Long>(new LinkedHashSet<Long>(containerClusterIds));
+        final Map<Long, ContainerClusterVO> clusters = new HashMap<Long, ContainerClusterVO>();
+        for (ContainerClusterVO cluster : _containerClusterDao.listByIds(ids)) {
+            clusters.put(cluster.getId(), cluster);
+        }
+        for (Long id : ids) {
+            final ContainerClusterVO cluster = clusters.get(id);
+            if (cluster == null) {
+                throw new InvalidParameterValueException("Invalid cluster id specified");
+            }
+            _accountMgr.checkAccess(caller, SecurityChecker.AccessType.OperateEntry, false, cluster);
+        }
+
+        final List<Future<ContainerClusterActionResponse>> futures = new ArrayList<Future<ContainerClusterActionResponse>>(ids.size());
+        for (Long id : ids) {
+            final ContainerClusterVO cluster = clusters.get(id);
+            futures.add(_bulkActionExecutor.submit(new ContainerClusterTask<ContainerClusterActionResponse>() {
+                @Override
+                protected ContainerClusterActionResponse doInContext() {
+                    boolean success = false;
+                    String reason = null;
+                    try {
+                        success = clusterOperation.apply(cluster);
+                    } catch (Exception e) {
+                        s_logger.warn("Failed to " + operation + " container cluster name:" + cluster.getName() + " due to " + e);
+                        reason = e.getMessage();
+                    }
+                    return createContainerClusterActionResponse(cluster, success, reason);
+                }
+            }));
+        }
+
+        final List<ContainerClusterActionResponse> responses = new ArrayList<ContainerClusterActionResponse>(ids.size());
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            final ContainerClusterVO cluster = clusters.get(ids.get(i));
+            try {
+                responses.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                interrupted = true;
+                futures.get(i).cancel(true);
+                responses.add(createContainerClusterActionResponse(cluster, false, "Interrupted while waiting for the " + operation + " to complete"));
+            } catch (CancellationException e) {
+                responses.add(createContainerClusterActionResponse(cluster, false, "The " + operation + " was cancelled"));
+            } catch (ExecutionException e) {
+                responses.add(createContainerClusterActionResponse(cluster, false, e.getCause().getMessage()));
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
-        ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerClusterId);
-        boolean cleanupNetwork = clusterDetails.getNetworkCleanup();
+
+        final ListResponse<ContainerClusterActionResponse> response = new ListResponse<ContainerClusterActionResponse>();
+        response.setResponses(responses, responses.size());
+        return response;
+    }
+
+    private ContainerClusterActionResponse createContainerClusterActionResponse(final ContainerClusterVO cluster, final boolean success,
+                                                                                final String reason) {
+        final ContainerClusterVO current = _containerClusterDao.findByIdIncludingRemoved(cluster.getId());
+        final ContainerClusterActionResponse response = new ContainerClusterActionResponse();
+        response.setId(cluster.getUuid());
+        response.setName(cluster.getName());
+        response.setState((current != null ? current : cluster).getState().toString());
+        response.setSuccess(success);
+        response.setDisplayText(reason);
+        response.setObjectName("containercluster");
+        return response;
+    }
+
+    private void checkContainerClusterDeletable(final ContainerClusterVO cluster) {
+        if (!(cluster.getState().equals(ContainerCluster.State.Running)
+                || cluster.getState().equals(ContainerCluster.State.Stopped)
+                || cluster.getState().equals(ContainerCluster.State.Alert)
+                || cluster.getState().equals(ContainerCluster.State.Error)
+                || cluster.getState().equals(ContainerCluster.State.Destroying))) {
+            if (s_logger.isDebugEnabled()) {
+                s_logger.debug("Cannot perform delete operation on cluster:" + cluster.getName() + " in state " + cluster.getState() );
+            }
+            throw new PermissionDeniedException("Cannot perform delete operation on cluster: " + cluster.getName() + " in state" + cluster.getState() );
+        }
+    }
+
+    private boolean cleanupContainerClusterResources(Long containerClusterId) throws ManagementServerException {
+
+        releaseApiClient(containerClusterId);
+
+        ContainerClusterVO cluster = _containerClusterDao.findById(containerClusterId);
+
+        checkContainerClusterDeletable(cluster);
+
+        stateTransitTo(cluster, ContainerCluster.Event.DestroyRequested);
+
+        // VM's are destroyed in parallel on the provisioning pool. Each VM's map entry is expunged as soon as the VM
+        // is gone, so a teardown that is interrupted leaves only the remaining VM's for the garbage collector.
+        final Map<Long, ContainerClusterVmMapVO> clusterVMs = new HashMap<Long, ContainerClusterVmMapVO>();
+        for (ContainerClusterVmMapVO clusterVM : _containerClusterVmMapDao.listByClusterId(cluster.getId())) {
+            clusterVMs.put(clusterVM.getVmId(), clusterVM);
+        }
+        final String clusterName = cluster.getName();
+        final Set<Long> failedVms = runOnClusterVms(cluster, new ArrayList<Long>(clusterVMs.keySet()), "destroy",
+                getTimeout(CcsConfig.ContainerClusterVmDestroyTimeout, cluster),
+                new ClusterVmOperation() {
+                    @Override
+                    public void apply(long vmId) throws Exception {
+                        destroyK8SVM(clusterName, clusterVMs.get(vmId));
+                    }
+                });
+        boolean failedVmDestroy = !failedVms.isEmpty();
+
+        ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerClusterId);
+        boolean cleanupNetwork = clusterDetails.getNetworkCleanup();
 
         // if there are VM's that were not expunged, we can not delete the network
         if(!failedVmDestroy) {
@@ -1218,6 +1642,34 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         return true;
     }
 
+    // destroys and expunges a VM of a cluster being deleted, and then removes it from the cluster
+    private void destroyK8SVM(final String clusterName, final ContainerClusterVmMapVO clusterVM) throws ResourceUnavailableException,
+            ConcurrentOperationException {
+        final long vmID = clusterVM.getVmId();
+
+        // delete only if VM exists and is not removed
+        UserVmVO userVM = _vmDao.findById(vmID);
+        if (userVM != null && !userVM.isRemoved()) {
+            UserVm vm = _userVmService.destroyVm(vmID, true);
+            if(! VirtualMachine.State.Expunging.equals(vm.getState())) {
+                s_logger.warn(String.format("VM '%s' with uuid '%s' should have been expunging by now but is '%s'... retrying..."
+                        , vm.getInstanceName()
+                        , vm.getUuid()
+                        , vm.getState().toString() ));
+                vm = _userVmService.expungeVm(vmID);
+                if(! VirtualMachine.State.Expunging.equals(vm.getState())) {
+                    s_logger.error(String.format("VM '%s' is now in state '%s'. I will probably fail at deleting it's cluster."
+                            , vm.getInstanceName()
+                            , vm.getState().toString()));
+                }
+            }
+            if (s_logger.isDebugEnabled()) {
+                s_logger.debug("Destroyed VM: " + userVM.getInstanceName() + " as part of cluster: " + clusterName + " destroy.");
+            }
+        }
+        _containerClusterVmMapDao.expunge(clusterVM.getId());
+    }
+
     void processFailedNetworkDelete(long containerClusterId) {
         stateTransitTo(containerClusterId, ContainerCluster.Event.OperationFailed);
         ContainerClusterVO cluster = _containerClusterDao.findById(containerClusterId);
@@ -1225,7 +1677,7 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         _containerClusterDao.update(cluster.getId(), cluster);
     }
 
-    UserVm createK8SMaster(final ContainerClusterVO containerCluster, final List<IPAddressVO> ips) throws ManagementServerException,
+    UserVm createK8SMaster(final ContainerClusterVO containerCluster, final String masterIp, final List<IPAddressVO> ips) throws ManagementServerException,
             ResourceAllocationException, ResourceUnavailableException, InsufficientCapacityException {
 
         UserVm masterVm = null;
@@ -1239,7 +1691,6 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
 
         Account owner = _accountDao.findById(containerCluster.getAccountId());
 
-        final String masterIp = ipAddressManager.acquireGuestIpAddress(_networkDao.findById(containerCluster.getNetworkId()), null);
         Network.IpAddresses addrs = new Network.IpAddresses(masterIp, null);
 
         Map<String, String> customparameterMap = new HashMap<String, String>();
@@ -1248,14 +1699,7 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
 
         String k8sMasterConfig = null;
         try {
-            String masterCloudConfig = _globalConfigDao.getValue(CcsConfig.ContainerClusterMasterCloudConfig.key());
-            k8sMasterConfig = readFile(masterCloudConfig);
-
-            final String user = "{{ k8s_master.user }}";
-            final String password = "{{ k8s_master.password }}";
-            final String apiServerCert = "{{ k8s_master.apiserver.crt }}";
-            final String apiServerKey = "{{ k8s_master.apiserver.key }}";
-            final String caCert = "{{ k8s_master.ca.crt }}";
+            String masterCloudConfig = _settings.value(CcsConfig.ContainerClusterMasterCloudConfig);
 
             final List<String> addresses = new ArrayList<>();
             addresses.add(masterIp);
@@ -1263,21 +1707,18 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
                 addresses.add(ip.getAddress().addr());
             }
 
-            final Certificate certificate = caManager.issueCertificate(null, Arrays.asList(hostName, "kubernetes",
-                    "kubernetes.default", "kubernetes.default.svc", "kubernetes.default.svc.cluster", "kubernetes.default.svc.cluster.local"),
-                    addresses, 3650, null);
-
-            final String tlsClientCert = CertUtils.x509CertificateToPem(certificate.getClientCertificate());
-            final String tlsPrivateKey = CertUtils.privateKeyToPem(certificate.getPrivateKey());
-            final String tlsCaCert = CertUtils.x509CertificatesToPem(certificate.getCaCertificates());
+            final Certificate certificate = getApiServerCertificate(containerCluster, hostName, addresses);
 
-            k8sMasterConfig = k8sMasterConfig.replace(apiServerCert, tlsClientCert.replace("\n", "\n      "));
-            k8sMasterConfig = k8sMasterConfig.replace(apiServerKey, tlsPrivateKey.replace("\n", "\n      "));
-            k8sMasterConfig = k8sMasterConfig.replace(caCert, tlsCaCert.replace("\n", "\n      "));
+            final Map<String, String> values = new HashMap<String, String>();
+            values.put("k8s_master.apiserver.crt", CertUtils.x509CertificateToPem(certificate.getClientCertificate()));
+            values.put("k8s_master.apiserver.key", CertUtils.privateKeyToPem(certificate.getPrivateKey()));
+            values.put("k8s_master.ca.crt", CertUtils.x509CertificatesToPem(certificate.getCaCertificates()));
 
             ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerCluster.getId());
-            k8sMasterConfig = k8sMasterConfig.replace(password, clusterDetails.getPassword());
-            k8sMasterConfig = k8sMasterConfig.replace(user, clusterDetails.getUserName());
+            values.put("k8s_master.password", clusterDetails.getPassword());
+            values.put("k8s_master.user", clusterDetails.getUserName());
+
+            k8sMasterConfig = _cloudConfigTemplates.get(masterCloudConfig).render(values);
         } catch (RuntimeException e ) {
             s_logger.error("Failed to read kubernetes master configuration file due to " + e);
             throw new ManagementServerException("Failed to read kubernetes master configuration file", e);
@@ -1286,7 +1727,7 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             throw new ManagementServerException("Failed to read kubernetes master configuration file", e);
         }
 
-        String base64UserData = Base64.encodeBase64String(k8sMasterConfig.getBytes(Charset.forName("UTF-8")));
+        String base64UserData = ContainerClusterUserData.encode("VM " + hostName, k8sMasterConfig, isUserDataCompressionEnabled(containerCluster));
 
         masterVm = _userVmService.createAdvancedVirtualMachine(zone, serviceOffering, template, networkIds, owner,
                 hostName, containerCluster.getDescription(), null, null, null,
@@ -1301,7 +1742,7 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
     }
 
 
-    UserVm createK8SNode(ContainerClusterVO containerCluster, String masterIp, int nodeInstance) throws ManagementServerException,
+    UserVm createK8SNode(ContainerClusterVO containerCluster, String base64UserData, int nodeInstance) throws ManagementServerException,
             ResourceAllocationException, ResourceUnavailableException, InsufficientCapacityException {
 
         UserVm nodeVm = null;
@@ -1319,15 +1760,33 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
 
         Map<String, String> customparameterMap = new HashMap<String, String>();
 
-        String hostName = containerCluster.getName() + "-k8s-node-" + String.valueOf(nodeInstance);
+        String hostName = getK8SNodeHostName(containerCluster, nodeInstance);
+
+        nodeVm = _userVmService.createAdvancedVirtualMachine(zone, serviceOffering, template, networkIds, owner,
+                hostName, containerCluster.getDescription(), null, null, null,
+                null, BaseCmd.HTTPMethod.POST, base64UserData, containerCluster.getKeyPair(),
+                null, addrs, null, null, null, customparameterMap, null, null, null);
+
+        if (s_logger.isDebugEnabled()) {
+            s_logger.debug("Created cluster node VM: " + hostName + " in the container cluster: " + containerCluster.getName());
+        }
+
+        return nodeVm;
+    }
+
+    private static String getK8SNodeHostName(final ContainerClusterVO containerCluster, final int nodeInstance) {
+        return containerCluster.getName() + "-k8s-node-" + String.valueOf(nodeInstance);
+    }
 
+    // cloud config of the node VM's of the cluster, base64 encoded to be passed as user data
+    private String getK8SNodeUserData(final ContainerClusterVO containerCluster, final String masterIp) throws ManagementServerException {
         String k8sNodeConfig = null;
         try {
-            String nodeCloudConfig = _globalConfigDao.getValue(CcsConfig.ContainerClusterNodeCloudConfig.key());
-            k8sNodeConfig = readFile(nodeCloudConfig).toString();
-            String masterIPString = "{{ k8s_master.default_ip }}";
+            String nodeCloudConfig = _settings.value(CcsConfig.ContainerClusterNodeCloudConfig);
 
-            k8sNodeConfig = k8sNodeConfig.replace(masterIPString, masterIp);
+            final Map<String, String> values = new HashMap<String, String>();
+            final Set<String> sections = new HashSet<String>();
+            values.put("k8s_master.default_ip", masterIp);
 
             ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerCluster.getId());
 
@@ -1336,31 +1795,15 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             String dockerUserName = clusterDetails.getRegistryUsername();
             String dockerPassword = clusterDetails.getRegistryPassword();
             if (dockerUserName != null && !dockerUserName.isEmpty() && dockerPassword != null && !dockerPassword.isEmpty()) {
-                // do write file for  /.docker/config.json through the code instead of k8s-node.yml as we can no make a section
-                // optional or conditionally applied
-                String dockerConfigString = "write-files:\n" +
-                        "  - path: /.docker/config.json\n" +
-                        "    owner: core:core\n" +
-                        "    permissions: '0644'\n" +
-                        "    content: |\n" +
-                        "      {\n" +
-                        "        \"auths\": {\n" +
-                        "          {{docker.url}}: {\n" +
-                        "            \"auth\": {{docker.secret}},\n" +
-                        "            \"email\": {{docker.email}}\n" +
-                        "          }\n" +
-                        "         }\n" +
-                        "      }";
-                k8sNodeConfig = k8sNodeConfig.replace("write-files:", dockerConfigString);
-                String dockerUrl = "{{docker.url}}";
-                String dockerAuth = "{{docker.secret}}";
-                String dockerEmail = "{{docker.email}}";
                 String usernamePassword = dockerUserName + ":" + dockerPassword;
                 String base64Auth = Base64.encodeBase64String(usernamePassword.getBytes(Charset.forName("UTF-8")));
-                k8sNodeConfig = k8sNodeConfig.replace(dockerUrl, "\"" + clusterDetails.getRegistryUrl() + "\"");
-                k8sNodeConfig = k8sNodeConfig.replace(dockerAuth, "\"" + base64Auth + "\"");
-                k8sNodeConfig = k8sNodeConfig.replace(dockerEmail, "\"" + clusterDetails.getRegistryEmail() + "\"");
+                sections.add("docker");
+                values.put("docker.url", "\"" + clusterDetails.getRegistryUrl() + "\"");
+                values.put("docker.secret", "\"" + base64Auth + "\"");
+                values.put("docker.email", "\"" + clusterDetails.getRegistryEmail() + "\"");
             }
+
+            k8sNodeConfig = _cloudConfigTemplates.get(nodeCloudConfig).render(values, sections);
         } catch (RuntimeException e ) {
             s_logger.warn("Failed to read node configuration file due to " + e );
             throw new ManagementServerException("Failed to read cluster node configuration file.", e);
@@ -1369,29 +1812,482 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             throw new ManagementServerException("Failed to read cluster node configuration file.", e);
         }
 
-        String base64UserData = Base64.encodeBase64String(k8sNodeConfig.getBytes(Charset.forName("UTF-8")));
+        return ContainerClusterUserData.encode("the node VMs of container cluster " + containerCluster.getName(), k8sNodeConfig,
+                isUserDataCompressionEnabled(containerCluster));
+    }
+
+    // user data is compressed if enabled for the zone of the cluster, unless the template of the cluster opts out
+    private boolean isUserDataCompressionEnabled(final ContainerClusterVO containerCluster) {
+        if (!_settings.valueIn(CcsConfig.ContainerClusterUserDataCompression, containerCluster.getZoneId())) {
+            return false;
+        }
+        final VMTemplateDetailVO detail = _templateDetailsDao.findDetail(containerCluster.getTemplateId(), USER_DATA_COMPRESSION_DETAIL);
+        return detail == null || !"false".equalsIgnoreCase(detail.getValue());
+    }
+
+    // creates an isolated network for container clusters from the container service network offering
+    private Network createContainerClusterNetwork(final DataCenter zone, final Account owner, final String name,
+                                                  final String displayText) throws ManagementServerException {
+        final ContainerServiceReadinessCache.Readiness readiness = getContainerServiceReadiness(zone, false);
+        if (readiness == null) {
+            throw new ManagementServerException("Container service has not been configured properly to provision container clusters.");
+        }
 
-        nodeVm = _userVmService.createAdvancedVirtualMachine(zone, serviceOffering, template, networkIds, owner,
-                hostName, containerCluster.getDescription(), null, null, null,
-                null, BaseCmd.HTTPMethod.POST, base64UserData, containerCluster.getKeyPair(),
-                null, addrs, null, null, null, customparameterMap, null, null, null);
+        try {
+            return _networkMgr.createGuestNetwork(readiness.getNetworkOffering().getId(), name, displayText,
+                    null, null, null, false,null, owner, null, readiness.getPhysicalNetwork(), zone.getId(), ControlledEntity.ACLType.Account, null, null, null, null, true, null, null);
+        } catch(Exception e) {
+            s_logger.warn("Unable to create a network for the container cluster due to " + e);
+            throw new ManagementServerException("Unable to create a network for the container cluster.");
+        }
+    }
+
+    // Hands an implemented network from the pool of the zone over to the owner of a container cluster being created.
+    // The network is marked for clean up like any network created for a cluster, so it is destroyed along with the
+    // cluster rather than recycled into the pool. Returns null if the pool has no implemented network left, or the
+    // owner has no room for another network and its public IP's.
+    Network claimPooledNetwork(final DataCenter zone, final Account owner, final String clusterName) {
+        for (final ContainerClusterPooledNetworkVO pooledNetwork : _pooledNetworkDao.listByZoneId(zone.getId())) {
+            final NetworkVO network = _networkDao.findById(pooledNetwork.getNetworkId());
+            if (network == null || network.getRemoved() != null) {
+                _pooledNetworkDao.claim(pooledNetwork.getId());
+                continue;
+            }
+            if (network.getState() != Network.State.Implemented) {
+                // shut down by the network garbage collector, left to the refiller to implement again
+                continue;
+            }
+
+            final List<IPAddressVO> publicIps = _publicIpAddressDao.listByAssociatedNetwork(network.getId(), null);
+            try {
+                _resourceLimitMgr.checkResourceLimit(owner, ResourceType.network);
+                _resourceLimitMgr.checkResourceLimit(owner, ResourceType.public_ip, publicIps.size());
+            } catch (ResourceAllocationException e) {
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Not taking a network from the pool for account " + owner + " due to " + e.getMessage());
+                }
+                return null;
+            }
+
+            // the pool row is removed in the same transaction as the hand over, so a failed transfer leaves the
+            // network in the pool rather than orphaned under the system account
+            final boolean claimed;
+            try {
+                claimed = transferPooledNetworkInTransaction(pooledNetwork.getId(), network, owner, clusterName, publicIps);
+            } catch (CloudRuntimeException e) {
+                s_logger.warn("Failed to take network id: " + network.getId() + " from the pool for the container cluster: " + clusterName
+                        + ", a network is created instead, due to " + e);
+                return null;
+            }
+            if (!claimed) {
+                continue;
+            }
+            if (s_logger.isDebugEnabled()) {
+                s_logger.debug("Took network id: " + network.getId() + " from the pool of zone: " + zone.getName() + " for the container cluster: " + clusterName);
+            }
+            return _networkDao.findById(network.getId());
+        }
+        return null;
+    }
+
+    boolean transferPooledNetworkInTransaction(final long pooledNetworkId, final NetworkVO network, final Account owner, final String clusterName,
+                                               final List<IPAddressVO> publicIps) {
+        return Transaction.execute(new TransactionCallback<Boolean>() {
+            @Override
+            public Boolean doInTransaction(TransactionStatus status) {
+                return transferPooledNetwork(pooledNetworkId, network, owner, clusterName, publicIps);
+            }
+        });
+    }
+
+    // Removes a network from the pool and hands it over to the owner of a container cluster, along with its public
+    // IP's, rules, resource counts and IP usage. Runs in the transaction of the caller. Returns false if a concurrent
+    // claim took the network first.
+    boolean transferPooledNetwork(final long pooledNetworkId, final NetworkVO network, final Account owner, final String clusterName,
+                                  final List<IPAddressVO> publicIps) {
+        if (!_pooledNetworkDao.claim(pooledNetworkId)) {
+            return false;
+        }
+        final long previousOwnerId = network.getAccountId();
+        _pooledNetworkDao.transferNetwork(network.getId(), owner.getId(), owner.getDomainId());
+        network.setName(clusterName + "-network");
+        network.setDisplayText(owner.getAccountName() + "-network");
+        _networkDao.update(network.getId(), network);
+        _resourceLimitMgr.decrementResourceCount(previousOwnerId, ResourceType.network);
+        _resourceLimitMgr.decrementResourceCount(previousOwnerId, ResourceType.public_ip, (long)publicIps.size());
+        _resourceLimitMgr.incrementResourceCount(owner.getId(), ResourceType.network);
+        _resourceLimitMgr.incrementResourceCount(owner.getId(), ResourceType.public_ip, (long)publicIps.size());
+        for (IPAddressVO ip : publicIps) {
+            publishIpUsageEvent(EventTypes.EVENT_NET_IP_RELEASE, previousOwnerId, ip);
+            publishIpUsageEvent(EventTypes.EVENT_NET_IP_ASSIGN, owner.getId(), ip);
+        }
+        return true;
+    }
+
+    void publishIpUsageEvent(final String eventType, final long accountId, final IPAddressVO ip) {
+        final String guestType = _vlanDao.findById(ip.getVlanId()).getVlanType().toString();
+        UsageEventUtils.publishUsageEvent(eventType, accountId, ip.getDataCenterId(), ip.getId(), ip.getAddress().addr(), ip.isSourceNat(),
+                guestType, ip.getSystem(), ip.getClass().getName(), ip.getUuid());
+    }
+
+    // Keeps the network pool of a zone at its target size. Pooled networks shut down by the network garbage
+    // collector are implemented again, and networks beyond the target size are destroyed.
+    private void refillNetworkPool(final DataCenter zone, final int targetSize) {
+        final ReservationContext context = new ReservationContextImpl(null, null, _accountMgr.getSystemUser(), _accountMgr.getSystemAccount());
+        int available = 0;
+        for (ContainerClusterPooledNetworkVO pooledNetwork : _pooledNetworkDao.listByZoneId(zone.getId())) {
+            final NetworkVO network = _networkDao.findById(pooledNetwork.getNetworkId());
+            if (network == null || network.getRemoved() != null) {
+                _pooledNetworkDao.claim(pooledNetwork.getId());
+                continue;
+            }
+            if (available >= targetSize) {
+                if (_pooledNetworkDao.claim(pooledNetwork.getId())) {
+                    destroyPooledNetwork(network.getId());
+                }
+                continue;
+            }
+            if (network.getState() != Network.State.Implemented) {
+                try {
+                    _networkMgr.startNetwork(network.getId(), new DeployDestination(zone, null, null, null), context);
+                } catch (Exception e) {
+                    s_logger.warn("Failed to implement pooled network id: " + network.getId() + " due to " + e);
+                    continue;
+                }
+            }
+            available++;
+        }
 
+        for (; available < targetSize; available++) {
+            Network network = null;
+            try {
+                network = createContainerClusterNetwork(zone, _accountMgr.getSystemAccount(),
+                        "ccs-pool-network-" + UUID.randomUUID().toString().substring(0, 8), "ccs-pool-network");
+                _networkMgr.startNetwork(network.getId(), new DeployDestination(zone, null, null, null), context);
+                _pooledNetworkDao.persist(new ContainerClusterPooledNetworkVO(zone.getId(), network.getId()));
+            } catch (Exception e) {
+                s_logger.warn("Failed to add a network to the container cluster network pool of zone: " + zone.getName() + " due to " + e);
+                if (network != null) {
+                    destroyPooledNetwork(network.getId());
+                }
+                return;
+            }
+            if (s_logger.isDebugEnabled()) {
+                s_logger.debug("Added network id: " + network.getId() + " to the container cluster network pool of zone: " + zone.getName());
+            }
+        }
+    }
+
+    private void destroyPooledNetwork(final long networkId) {
+        try {
+            _networkMgr.destroyNetwork(networkId, new ReservationContextImpl(null, null, _accountMgr.getSystemUser(), _accountMgr.getSystemAccount()), true);
+        } catch (Exception e) {
+            s_logger.warn("Failed to destroy pooled network id: " + networkId + " due to " + e);
+        }
+    }
+
+    // Claims a VM from the warm pool of the cluster's zone and service offering and turns it into a node of the
+    // cluster: the VM is moved to the cluster's account and network, and gets the node's host name, cloud config and
+    // SSH key pair. Returns null if no pool is kept for the cluster or the pool has no VM left to claim, in which
+    // case the node VM is to be created from scratch.
+    private UserVm claimWarmPoolVm(final ContainerClusterVO containerCluster, final String base64UserData, final int nodeInstance) {
+        final long zoneId = containerCluster.getZoneId();
+        final long serviceOfferingId = containerCluster.getServiceOfferingId();
+        if (_warmPool.getTargetSize(zoneId, serviceOfferingId) == 0) {
+            return null;
+        }
+
+        for (ContainerClusterWarmPoolVmVO pooledVm : _warmPoolVmDao.listByZoneAndServiceOffering(zoneId, serviceOfferingId)) {
+            if (pooledVm.getTemplateId() != containerCluster.getTemplateId() || !_warmPoolVmDao.claim(pooledVm.getId())) {
+                continue;
+            }
+            try {
+                final UserVm vm = adoptWarmPoolVm(pooledVm.getVmId(), containerCluster, base64UserData, nodeInstance);
+                _warmPool.recordHit(zoneId, serviceOfferingId);
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Claimed VM id: " + vm.getId() + " from the warm pool as node " + nodeInstance + " of the container cluster: "
+                            + containerCluster.getName());
+                }
+                return vm;
+            } catch (Exception e) {
+                s_logger.warn("Failed to claim VM id: " + pooledVm.getVmId() + " from the warm pool for the container cluster: "
+                        + containerCluster.getName() + " due to " + e);
+                destroyWarmPoolVm(pooledVm.getVmId());
+            }
+        }
+
+        _warmPool.recordMiss(zoneId, serviceOfferingId);
+        return null;
+    }
+
+    // Takes a node VM from the warm pool, or creates it when the pool has none to give.
+    UserVm claimOrCreateK8SNode(final ContainerClusterVO containerCluster, final String base64UserData, final int nodeInstance)
+            throws ManagementServerException, ResourceAllocationException, ResourceUnavailableException, InsufficientCapacityException {
+        final UserVm vm = claimWarmPoolVm(containerCluster, base64UserData, nodeInstance);
+        if (vm != null) {
+            return vm;
+        }
+        return createK8SNode(containerCluster, base64UserData, nodeInstance);
+    }
+
+    UserVm adoptWarmPoolVm(final long vmId, final ContainerClusterVO containerCluster, final String base64UserData,
+                           final int nodeInstance) throws Exception {
+        final Account owner = _accountDao.findById(containerCluster.getAccountId());
+        final String hostName = getK8SNodeHostName(containerCluster, nodeInstance);
+
+        // The pooled VM belongs to the system account, which hands it over to the owner of the cluster. Once the VM is
+        // the owner's, it is updated as the caller.
+        CallContext.register(_accountMgr.getSystemUser(), _accountMgr.getSystemAccount());
+        try {
+            AssignVMCmd assignVm = ComponentContext.inject(new AssignVMCmd());
+            setCmdParameter(assignVm, "virtualMachineId", vmId);
+            setCmdParameter(assignVm, "accountName", owner.getAccountName());
+            setCmdParameter(assignVm, "domainId", owner.getDomainId());
+            setCmdParameter(assignVm, "networkIds", Arrays.asList(containerCluster.getNetworkId()));
+            _userVmService.moveVMToUser(assignVm);
+        } finally {
+            CallContext.unregister();
+        }
+
+        UpdateVMCmd updateVm = ComponentContext.inject(new UpdateVMCmd());
+        setCmdParameter(updateVm, "id", vmId);
+        setCmdParameter(updateVm, "name", hostName);
+        setCmdParameter(updateVm, "displayName", hostName);
+        setCmdParameter(updateVm, "userData", base64UserData);
+        updateVm.setHttpMethod(BaseCmd.HTTPMethod.POST.name());
+        _userVmService.updateVirtualMachine(updateVm);
+
+        if (containerCluster.getKeyPair() != null && !containerCluster.getKeyPair().isEmpty()) {
+            ResetVMSSHKeyCmd resetSshKey = ComponentContext.inject(new ResetVMSSHKeyCmd());
+            setCmdParameter(resetSshKey, "id", vmId);
+            setCmdParameter(resetSshKey, "name", containerCluster.getKeyPair());
+            setCmdParameter(resetSshKey, "accountName", owner.getAccountName());
+            setCmdParameter(resetSshKey, "domainId", owner.getDomainId());
+            _userVmService.resetVMSSHKey(resetSshKey);
+        }
+        return _vmDao.findById(vmId);
+    }
+
+    // sets a parameter of an API command, as the commands only expose setters for a few of them
+    private static void setCmdParameter(final BaseCmd cmd, final String name, final Object value) throws ReflectiveOperationException {
+        Class<?> clazz = cmd.getClass();
+        while (clazz != null) {
+            try {
+                Field f = clazz.getDeclaredField(name);
+                f.setAccessible(true);
+                f.set(cmd, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                clazz = clazz.getSuperclass();
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    private void loadWarmPoolTargetSizes() {
+        final Map<ContainerClusterWarmPool.Key, Integer> targetSizes = new HashMap<ContainerClusterWarmPool.Key, Integer>();
+        for (Ternary<String, String, Integer> entry : ContainerClusterWarmPool.parseTargetSizes(
+                _settings.value(CcsConfig.ContainerClusterWarmPool))) {
+            final DataCenterVO zone = _dcDao.findByUuid(entry.first());
+            final ServiceOfferingVO serviceOffering = _srvOfferingDao.findByUuid(entry.second());
+            if (zone == null || serviceOffering == null) {
+                s_logger.warn("Ignoring container cluster warm pool entry for unknown zone: " + entry.first() + " or service offering: " + entry.second());
+                continue;
+            }
+            targetSizes.put(new ContainerClusterWarmPool.Key(zone.getId(), serviceOffering.getId()), entry.third());
+        }
+        _warmPool.setTargetSizes(targetSizes);
+    }
+
+    // Tops up the warm pool of a zone and service offering to its target size, and retires pooled VM's beyond the
+    // target or created from a template no longer used for container clusters.
+    private void refillWarmPool(final ContainerClusterWarmPool.Key key, final int targetSize, final VMTemplateVO template) {
+        int available = 0;
+        for (ContainerClusterWarmPoolVmVO pooledVm : _warmPoolVmDao.listByZoneAndServiceOffering(key.getZoneId(), key.getServiceOfferingId())) {
+            final UserVmVO vm = _vmDao.findById(pooledVm.getVmId());
+            if (vm == null) {
+                _warmPoolVmDao.claim(pooledVm.getId());
+            } else if (available >= targetSize || pooledVm.getTemplateId() != template.getId()) {
+                if (_warmPoolVmDao.claim(pooledVm.getId())) {
+                    destroyWarmPoolVm(pooledVm.getVmId());
+                }
+            } else {
+                available++;
+            }
+        }
+
+        for (; available < targetSize; available++) {
+            try {
+                addWarmPoolVm(key, template);
+            } catch (Exception e) {
+                s_logger.warn("Failed to add a VM to the container cluster warm pool of " + key + " due to " + e);
+                return;
+            }
+        }
+    }
+
+    // Creates a VM for the warm pool. The VM is started once so its root volume is created on primary storage, and
+    // is stopped again before it is pooled.
+    private void addWarmPoolVm(final ContainerClusterWarmPool.Key key, final VMTemplateVO template) throws Exception {
+        final DataCenter zone = _dcDao.findById(key.getZoneId());
+        final ServiceOffering serviceOffering = _srvOfferingDao.findById(key.getServiceOfferingId());
+        final Network network = getWarmPoolNetwork(zone);
+        final String hostName = "ccs-pool-" + UUID.randomUUID().toString().substring(0, 8);
+
+        final UserVm vm = _userVmService.createAdvancedVirtualMachine(zone, serviceOffering, template, Arrays.asList(network.getId()),
+                _accountMgr.getSystemAccount(), hostName, hostName, null, null, null,
+                null, BaseCmd.HTTPMethod.POST, null, null,
+                null, new Network.IpAddresses(null, null), null, null, null, new HashMap<String, String>(), null, null, null);
+        try {
+            startVirtualMachine(vm, null);
+            _userVmService.stopVirtualMachine(vm.getId(), false);
+            _warmPoolVmDao.persist(new ContainerClusterWarmPoolVmVO(zone.getId(), serviceOffering.getId(), template.getId(), network.getId(), vm.getId()));
+        } catch (Exception e) {
+            destroyWarmPoolVm(vm.getId());
+            throw e;
+        }
         if (s_logger.isDebugEnabled()) {
-            s_logger.debug("Created cluster node VM: " + hostName + " in the container cluster: " + containerCluster.getName());
+            s_logger.debug("Added VM id: " + vm.getId() + " to the container cluster warm pool of " + key);
         }
+    }
 
-        return nodeVm;
+    // Pooled VM's are parked in an isolated network of the system account, one per zone, until they are moved to the
+    // network of the cluster claiming them.
+    private Network getWarmPoolNetwork(final DataCenter zone) throws ManagementServerException {
+        final String networkName = "ccs-warm-pool-" + zone.getUuid();
+        for (NetworkVO network : _networkDao.listByOwner(_accountMgr.getSystemAccount().getId())) {
+            if (network.getDataCenterId() == zone.getId() && networkName.equals(network.getName()) && network.getRemoved() == null) {
+                return network;
+            }
+        }
+
+        return createContainerClusterNetwork(zone, _accountMgr.getSystemAccount(), networkName, networkName);
+    }
+
+    private void destroyWarmPoolVm(final long vmId) {
+        try {
+            _userVmService.destroyVm(vmId, true);
+        } catch (Exception e) {
+            s_logger.warn("Failed to destroy container cluster warm pool VM id: " + vmId + " due to " + e);
+        }
+    }
+
+    // Starts the already allocated master VM and, at the same time, creates and starts the node VM's of the container
+    // cluster on the provisioning pool. Each node VM is recorded in the cluster VM map as soon as it is created. VM's
+    // checkpointed as created or started by an earlier, interrupted run are not created or started again. On the
+    // first VM that fails to provision, the VM's that are yet to be provisioned are cancelled and the failure is
+    // reported back to the caller. Returns the started master VM.
+    UserVm startK8SMasterAndProvisionNodes(final ContainerClusterVO containerCluster, final UserVm masterVm, final String masterIp,
+                                           final ContainerClusterPlacement placement,
+                                           final Map<String, ContainerClusterCheckpointVO> checkpoints) throws ManagementServerException {
+
+        // the cloud config is the same for all the node VM's of the cluster
+        final String nodeUserData = getK8SNodeUserData(containerCluster, masterIp);
+
+        final CompletionService<UserVm> completionService = new ExecutorCompletionService<UserVm>(_provisioningExecutor);
+        final List<Future<UserVm>> vmFutures = new ArrayList<Future<UserVm>>();
+
+        final Future<UserVm> masterFuture = completionService.submit(new ContainerClusterTask<UserVm>() {
+            @Override
+            protected UserVm doInContext() throws Exception {
+                try {
+                    startK8SVMOnce(masterVm, containerCluster, placement.getMasterHostId(), Step.MasterStarted, 0, checkpoints);
+                } finally {
+                    _capacityLedger.release(placement.getMasterReservation());
+                }
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Provisioned the master VM's in to the container cluster name:" + containerCluster.getName());
+                }
+                return _vmDao.findById(masterVm.getId());
+            }
+        });
+        vmFutures.add(masterFuture);
+
+        for (int i = 1; i <= containerCluster.getNodeCount(); i++) {
+            final int nodeInstance = i;
+            vmFutures.add(completionService.submit(new ContainerClusterTask<UserVm>() {
+                @Override
+                protected UserVm doInContext() throws Exception {
+                    UserVm vm = null;
+                    try {
+                        final ContainerClusterCheckpointVO nodeCreated = checkpoints.get(checkpointKey(Step.NodeCreated, nodeInstance));
+                        if (nodeCreated != null) {
+                            vm = _vmDao.findById(nodeCreated.getVmId());
+                            if (vm == null) {
+                                throw new ManagementServerException("Node VM " + nodeInstance + " of the container cluster: "
+                                        + containerCluster.getName() + " no longer exists");
+                            }
+                        } else {
+                            vm = claimOrCreateK8SNode(containerCluster, nodeUserData, nodeInstance);
+                            persistClusterVm(containerCluster.getId(), vm.getId(), Step.NodeCreated, nodeInstance);
+                        }
+                        startK8SVMOnce(vm, containerCluster, placement.getNodeHostId(nodeInstance), Step.NodeStarted, nodeInstance, checkpoints);
+                    } finally {
+                        _capacityLedger.release(placement.getNodeReservation(nodeInstance));
+                    }
+
+                    vm = _vmDao.findById(vm.getId());
+                    if (s_logger.isDebugEnabled()) {
+                        s_logger.debug("Provisioned a node VM in to the container cluster: " + containerCluster.getName());
+                    }
+                    return vm;
+                }
+            }));
+        }
+
+        try {
+            for (int i = 0; i < vmFutures.size(); i++) {
+                completionService.take().get();
+            }
+            return masterFuture.get();
+        } catch (ExecutionException e) {
+            cancelTasks(vmFutures);
+            throw new ManagementServerException("Provisioning the cluster VM's failed in the container cluster " + containerCluster.getName(), e.getCause());
+        } catch (InterruptedException e) {
+            cancelTasks(vmFutures);
+            throw new ManagementServerException("Interrupted while provisioning VM's in the container cluster " + containerCluster.getName(), e);
+        }
+    }
+
+    private static void cancelTasks(final List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    // Starts a VM of a cluster being provisioned unless it was already started by an earlier run, and checkpoints it.
+    private void startK8SVMOnce(final UserVm vm, final ContainerClusterVO containerCluster, final Long plannedHostId, final Step step,
+                                final int nodeInstance, final Map<String, ContainerClusterCheckpointVO> checkpoints) throws ServerApiException {
+        if (checkpoints.containsKey(checkpointKey(step, nodeInstance))) {
+            return;
+        }
+        final UserVm current = _vmDao.findById(vm.getId());
+        if (current == null || current.getState() != VirtualMachine.State.Running) {
+            startK8SVM(vm, containerCluster, plannedHostId);
+        }
+        recordCheckpoint(containerCluster.getId(), step, nodeInstance, vm.getId());
     }
 
     private void startK8SVM(final UserVm vm, final ContainerClusterVO containerCluster) throws ServerApiException {
+        startK8SVM(vm, containerCluster, null);
+    }
+
+    // Starts the VM on the host picked by the planner if one is given. The planned host is only a hint: if it can
+    // no longer take the VM, the VM is started wherever the allocator finds capacity.
+    private void startK8SVM(final UserVm vm, final ContainerClusterVO containerCluster, final Long plannedHostId) throws ServerApiException {
 
         try {
-            StartVMCmd startVm = new StartVMCmd();
-            startVm = ComponentContext.inject(startVm);
-            Field f = startVm.getClass().getDeclaredField("id");
-            f.setAccessible(true);
-            f.set(startVm, vm.getId());
-            _userVmService.startVirtualMachine(startVm);
+            if (plannedHostId != null) {
+                try {
+                    startVirtualMachine(vm, plannedHostId);
+                } catch (InsufficientCapacityException ex) {
+                    s_logger.info("Unable to start VM " + vm.getUuid() + " on planned host " + plannedHostId + " of the container cluster "
+                            + containerCluster.getName() + ", retrying without a host hint");
+                    startVirtualMachine(vm, null);
+                }
+            } else {
+                startVirtualMachine(vm, null);
+            }
             if (s_logger.isDebugEnabled()) {
                 s_logger.debug("Started VM in the container cluster: " + containerCluster.getName());
             }
@@ -1419,15 +2315,137 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         }
     }
 
-    private void stopK8SVM(final ContainerClusterVmMapVO vmMapVO) throws ServerApiException {
+    // zone scoped timeout setting in seconds, in milliseconds
+    private long getTimeout(final ConfigKey<Long> timeout, final ContainerClusterVO containerCluster) {
+        return TimeUnit.SECONDS.toMillis(_settings.valueIn(timeout, containerCluster.getZoneId()));
+    }
+
+    // operation run on a single VM of a container cluster by runOnClusterVms
+    interface ClusterVmOperation {
+        void apply(long vmId) throws Exception;
+    }
+
+    private List<Long> getClusterVmIds(final long containerClusterId) {
+        final List<Long> vmIds = new ArrayList<Long>();
+        for (ContainerClusterVmMapVO vmMapVO : _clusterVmMapDao.listByClusterId(containerClusterId)) {
+            vmIds.add(vmMapVO.getVmId());
+        }
+        return vmIds;
+    }
+
+    // Runs an operation on each of the given VM's of a cluster on the provisioning pool. Each VM is given the timeout
+    // from the moment its operation starts, so VM's queued behind others on the pool are not timed out. Operations
+    // still running past their timeout are cancelled. Failures are logged and returned as the ids of the VM's the
+    // operation failed on, the caller verifies the outcome against the VM states.
+    Set<Long> runOnClusterVms(final ContainerClusterVO containerCluster, final List<Long> vmIds, final String operation,
+                              final long timeout, final ClusterVmOperation vmOperation) {
+        final CompletionService<Long> completionService = new ExecutorCompletionService<Long>(_provisioningExecutor);
+        final AtomicLongArray startedAt = new AtomicLongArray(vmIds.size());
+        final List<Future<Long>> futures = new ArrayList<Future<Long>>(vmIds.size());
+        for (int i = 0; i < vmIds.size(); i++) {
+            final int index = i;
+            futures.add(completionService.submit(new ContainerClusterTask<Long>() {
+                @Override
+                protected Long doInContext() throws Exception {
+                    startedAt.set(index, System.currentTimeMillis());
+                    vmOperation.apply(vmIds.get(index));
+                    return vmIds.get(index);
+                }
+            }));
+        }
+
+        final Set<Long> failed = new HashSet<Long>();
+        int pending = futures.size();
         try {
-            _userVmService.stopVirtualMachine(vmMapVO.getVmId(), false);
+            while (pending > 0) {
+                final Future<Long> done = completionService.poll(VM_OPERATION_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (done != null) {
+                    pending--;
+                    try {
+                        done.get();
+                    } catch (ExecutionException e) {
+                        final Long vmId = vmIds.get(futures.indexOf(done));
+                        failed.add(vmId);
+                        s_logger.warn("Failed to " + operation + " VM id: " + vmId + " in container cluster: " + containerCluster.getName()
+                                + " due to " + e.getCause());
+                    } catch (CancellationException e) {
+                        // timed out, already accounted for
+                    }
+                }
+                final long now = System.currentTimeMillis();
+                for (int i = 0; i < futures.size(); i++) {
+                    final long started = startedAt.get(i);
+                    if (started > 0 && now - started > timeout && !futures.get(i).isDone() && futures.get(i).cancel(true)) {
+                        failed.add(vmIds.get(i));
+                        s_logger.warn("Timed out waiting " + timeout + "ms to " + operation + " VM id: " + vmIds.get(i)
+                                + " in container cluster: " + containerCluster.getName());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i).cancel(true)) {
+                    failed.add(vmIds.get(i));
+                }
+            }
+            Thread.currentThread().interrupt();
+        }
+        return failed;
+    }
+
+    // checks with a single query that all the given VM's of the cluster exist and are in the state
+    private boolean areClusterVmsInState(final ContainerClusterVO containerCluster, final List<Long> vmIds, final VirtualMachine.State state) {
+        final List<VMInstanceVO> vms = _ccsVmDao.listByIds(vmIds);
+        if (vms.size() != vmIds.size()) {
+            s_logger.warn("Found only " + vms.size() + " of the " + vmIds.size() + " VM's of the container cluster: " + containerCluster.getName());
+            return false;
+        }
+        for (VMInstanceVO vm : vms) {
+            if (vm.getState() != state) {
+                s_logger.warn("VM id: " + vm.getId() + " of the container cluster: " + containerCluster.getName() + " is in state: " + vm.getState()
+                        + " while expected to be in state: " + state);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void stopK8SVM(final long vmId) throws ServerApiException {
+        try {
+            _userVmService.stopVirtualMachine(vmId, false);
         } catch (ConcurrentOperationException ex) {
             s_logger.warn("Failed to stop container cluster VM due to Exception: ", ex);
             throw new ServerApiException(ApiErrorCode.INTERNAL_ERROR, ex.getMessage());
         }
     }
 
+    // Waits for the outcome of a readiness probe. The prober completes every probe by its deadline.
+    private boolean awaitReadiness(final Future<Boolean> readiness) {
+        try {
+            return readiness.get();
+        } catch (InterruptedException e) {
+            readiness.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            s_logger.warn("Readiness probe failed due to " + e.getCause());
+            return false;
+        }
+    }
+
+    // Starts a VM of a cluster through the user VM service, so the start runs all the checks and preparation of a start
+    // by the owner of the VM: the owner being removed or disabled, security groups, saved passwords. The service takes
+    // the host planned for the VM from root admins only, so the VM's of clusters started by anyone else are placed by
+    // the allocator; their plan then only holds the capacity of the cluster while it is provisioned.
+    private void startVirtualMachine(final UserVm vm, final Long hostId) throws Exception {
+        StartVMCmd startVm = ComponentContext.inject(new StartVMCmd());
+        setCmdParameter(startVm, "id", vm.getId());
+        if (hostId != null && _accountMgr.isRootAdmin(CallContext.current().getCallingAccount().getId())) {
+            setCmdParameter(startVm, "hostId", hostId);
+        }
+        _userVmService.startVirtualMachine(startVm);
+    }
+
     @Override
     public ListResponse<ContainerClusterResponse>  listContainerClusters(ListContainerClusterCmd cmd) {
 
@@ -1436,8 +2454,7 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
 
         ListResponse<ContainerClusterResponse> response = new ListResponse<ContainerClusterResponse>();
 
-        List<ContainerClusterResponse> responsesList = new ArrayList<ContainerClusterResponse>();
-        SearchCriteria<ContainerClusterVO> sc = _containerClusterDao.createSearchCriteria();
+        SearchCriteria<ContainerClusterJoinVO> sc = _containerClusterJoinDao.createSearchCriteria();
 
         String state = cmd.getState();
         if (state != null && !state.isEmpty()) {
@@ -1454,10 +2471,8 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
                 throw new InvalidParameterValueException("Invalid cluster id specified");
             }
             _accountMgr.checkAccess(caller, SecurityChecker.AccessType.ListEntry, false, cluster);
-            responsesList.add(createContainerClusterResponse(cmd.getId()));
+            response.setResponses(Collections.singletonList(createContainerClusterResponse(cmd.getId())), 1);
         } else {
-            Filter searchFilter = new Filter(ContainerClusterVO.class, "id", true, cmd.getStartIndex(), cmd.getPageSizeVal());
-
             if (state != null && !state.isEmpty()) {
                 sc.addAnd("state", SearchCriteria.Op.EQ, state);
             }
@@ -1467,97 +2482,196 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             } else if (_accountMgr.isDomainAdmin(caller.getId())) {
                 sc.addAnd("domainId", SearchCriteria.Op.EQ, caller.getDomainId());
             }
+            if (cmd.getAccountId() != null) {
+                sc.addAnd("accountId", SearchCriteria.Op.EQ, cmd.getAccountId());
+            }
+
+            if (cmd.getZoneId() != null) {
+                sc.addAnd("zoneId", SearchCriteria.Op.EQ, cmd.getZoneId());
+            }
+
+            if (cmd.getNetworkId() != null) {
+                sc.addAnd("networkId", SearchCriteria.Op.EQ, cmd.getNetworkId());
+            }
 
             String name = cmd.getName();
             if (name != null && !name.isEmpty()) {
-                sc.addAnd("name", SearchCriteria.Op.LIKE, name);
+                // anchored, so the index on name can be used
+                sc.addAnd("name", SearchCriteria.Op.LIKE, escapeLikePattern(name) + "%");
+            }
+
+            String keyword = cmd.getKeyword();
+            if (keyword != null && !keyword.isEmpty()) {
+                SearchCriteria<ContainerClusterJoinVO> ssc = _containerClusterJoinDao.createSearchCriteria();
+                ssc.addOr("name", SearchCriteria.Op.LIKE, "%" + escapeLikePattern(keyword) + "%");
+                ssc.addOr("description", SearchCriteria.Op.LIKE, "%" + escapeLikePattern(keyword) + "%");
+                sc.addAnd("name", SearchCriteria.Op.SC, ssc);
+            }
+
+            final List<ContainerClusterJoinVO> containerClusters;
+            final int count;
+            if (cmd.getAfterId() != null) {
+                // keyset paging: the count covers all matching clusters, the page starts right after the given one
+                count = _containerClusterJoinDao.getCount(sc);
+                sc.addAnd("id", SearchCriteria.Op.GT, cmd.getAfterId());
+                containerClusters = _containerClusterJoinDao.search(sc, new Filter(ContainerClusterJoinVO.class, "id", true, null, cmd.getPageSizeVal()));
+            } else {
+                final Pair<List<ContainerClusterJoinVO>, Integer> page = _containerClusterJoinDao.searchAndCount(sc,
+                        new Filter(ContainerClusterJoinVO.class, "id", true, cmd.getStartIndex(), cmd.getPageSizeVal()));
+                containerClusters = page.first();
+                count = page.second();
             }
+            response.setResponses(createContainerClusterResponses(containerClusters), count);
+        }
+        return response;
+    }
 
-            List<ContainerClusterVO> containerClusters = _containerClusterDao.search(sc, searchFilter);
-            for (ContainerClusterVO cluster : containerClusters) {
-                ContainerClusterResponse clusterReponse = createContainerClusterResponse(cluster.getId());
-                responsesList.add(clusterReponse);
+    @Override
+    public ListResponse<ContainerClusterWarmPoolResponse> listContainerClusterWarmPools(ListContainerClusterWarmPoolsCmd cmd) {
+
+        final Map<ContainerClusterWarmPool.Key, Integer> pools = new LinkedHashMap<ContainerClusterWarmPool.Key, Integer>();
+        final Set<Long> zoneIds = new HashSet<Long>();
+        final Set<Long> offeringIds = new HashSet<Long>();
+        for (Map.Entry<ContainerClusterWarmPool.Key, Integer> pool : _warmPool.getTargetSizes().entrySet()) {
+            final ContainerClusterWarmPool.Key key = pool.getKey();
+            if (cmd.getZoneId() != null && cmd.getZoneId() != key.getZoneId()) {
+                continue;
             }
+            pools.put(key, pool.getValue());
+            zoneIds.add(key.getZoneId());
+            offeringIds.add(key.getServiceOfferingId());
         }
+        final Map<Long, DataCenterVO> zones = listByIds(new IdsLookup<DataCenterVO>() {
+            @Override
+            public List<DataCenterVO> listByIds(Collection<Long> ids) {
+                return _ccsZoneDao.listByIds(ids);
+            }
+        }, zoneIds);
+        final Map<Long, ServiceOfferingVO> offerings = listByIds(new IdsLookup<ServiceOfferingVO>() {
+            @Override
+            public List<ServiceOfferingVO> listByIds(Collection<Long> ids) {
+                return _ccsServiceOfferingDao.listByIds(ids);
+            }
+        }, offeringIds);
+
+        List<ContainerClusterWarmPoolResponse> responsesList = new ArrayList<ContainerClusterWarmPoolResponse>();
+        for (Map.Entry<ContainerClusterWarmPool.Key, Integer> pool : pools.entrySet()) {
+            final ContainerClusterWarmPool.Key key = pool.getKey();
+            ContainerClusterWarmPoolResponse poolResponse = new ContainerClusterWarmPoolResponse();
+            DataCenterVO zone = zones.get(key.getZoneId());
+            poolResponse.setZoneId(zone.getUuid());
+            poolResponse.setZoneName(zone.getName());
+            ServiceOfferingVO offering = offerings.get(key.getServiceOfferingId());
+            poolResponse.setServiceOfferingId(offering.getUuid());
+            poolResponse.setServiceOfferingName(offering.getName());
+            poolResponse.setSize(pool.getValue());
+            poolResponse.setAvailable(_warmPoolVmDao.countByZoneAndServiceOffering(key.getZoneId(), key.getServiceOfferingId()));
+            poolResponse.setHits(_warmPool.getHits(key));
+            poolResponse.setMisses(_warmPool.getMisses(key));
+            poolResponse.setObjectName("containerclusterwarmpool");
+            responsesList.add(poolResponse);
+        }
+
+        ListResponse<ContainerClusterWarmPoolResponse> response = new ListResponse<ContainerClusterWarmPoolResponse>();
         response.setResponses(responsesList);
         return response;
     }
 
     public ContainerClusterResponse createContainerClusterResponse(long containerClusterId) {
+        return createContainerClusterResponses(Collections.singletonList(_containerClusterJoinDao.findById(containerClusterId))).get(0);
+    }
 
-        ContainerClusterVO containerCluster = _containerClusterDao.findById(containerClusterId);
-        ContainerClusterResponse response = new ContainerClusterResponse();
-
-        response.setId(containerCluster.getUuid());
-
-        response.setName(containerCluster.getName());
-
-        response.setDescription(containerCluster.getDescription());
-
-        DataCenterVO zone = ApiDBUtils.findZoneById(containerCluster.getZoneId());
-        response.setZoneId(zone.getUuid());
-        response.setZoneName(zone.getName());
-
-        response.setClusterSize(String.valueOf(containerCluster.getNodeCount()));
-
-        VMTemplateVO template = ApiDBUtils.findTemplateById(containerCluster.getTemplateId());
-        response.setTemplateId(template.getUuid());
-
-        ServiceOfferingVO offering = _srvOfferingDao.findById(containerCluster.getServiceOfferingId());
-        response.setServiceOfferingId(offering.getUuid());
-
-        response.setServiceOfferingName(offering.getName());
-
-        response.setKeypair(containerCluster.getKeyPair());
-
-        response.setState(containerCluster.getState().toString());
-
-        response.setCores(String.valueOf(containerCluster.getCores()));
-
-        response.setMemory(String.valueOf(containerCluster.getMemory()));
-
-        response.setObjectName("containercluster");
-
-        NetworkVO ntwk = _networkDao.findByIdIncludingRemoved(containerCluster.getNetworkId());
-
-        response.setEndpoint(containerCluster.getEndpoint());
-
-        response.setNetworkId(ntwk.getUuid());
-
-        response.setAssociatedNetworkName(ntwk.getName());
+    // Escapes the wildcards of a LIKE pattern, so user input is matched literally.
+    static String escapeLikePattern(final String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
-        response.setConsoleEndpoint(containerCluster.getConsoleEndpoint());
+    // lookup of the entities with the given ids through the IN search of their DAO
+    interface IdsLookup<T extends InternalIdentity> {
+        List<T> listByIds(Collection<Long> ids);
+    }
 
-        List<String> vmIds = new ArrayList<String>();
-        List<ContainerClusterVmMapVO> vmList = _containerClusterVmMapDao.listByClusterId(containerCluster.getId());
-        if (vmList != null && !vmList.isEmpty()) {
-            for (ContainerClusterVmMapVO vmMapVO: vmList) {
-                UserVmVO userVM = _userVmDao.findById(vmMapVO.getVmId());
-                if (userVM != null) {
-                    vmIds.add(userVM.getUuid());
-                }
+    // Looks up the entities with the given ids, one IN query per batch of ids. Ids of entities that do not exist are
+    // left out of the returned map.
+    private static <T extends InternalIdentity> Map<Long, T> listByIds(final IdsLookup<T> lookup, final Collection<Long> ids) {
+        final List<Long> distinctIds = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+        final Map<Long, T> entities = new HashMap<Long, T>();
+        for (int from = 0; from < distinctIds.size(); from += LOOKUP_BATCH_SIZE) {
+            for (T entity : lookup.listByIds(distinctIds.subList(from, Math.min(distinctIds.size(), from + LOOKUP_BATCH_SIZE)))) {
+                entities.put(entity.getId(), entity);
             }
         }
+        return entities;
+    }
 
-        response.setVirtualMachineIds(vmIds);
-
-        ContainerClusterDetailsVO clusterDetails = _containerClusterDetailsDao.findByClusterId(containerCluster.getId());
-        if (clusterDetails != null) {
-            response.setUsername(clusterDetails.getUserName());
-            response.setPassword(clusterDetails.getPassword());
+    // Builds the responses of clusters read from the cluster view. The VM's of all the clusters are looked up
+    // together, in batches.
+    private List<ContainerClusterResponse> createContainerClusterResponses(final List<ContainerClusterJoinVO> containerClusters) {
+        final Map<Long, List<String>> vmUuidsByClusterId = new HashMap<Long, List<String>>();
+        for (ContainerClusterJoinVO containerCluster : containerClusters) {
+            vmUuidsByClusterId.put(containerCluster.getId(), new ArrayList<String>());
+        }
+        if (!vmUuidsByClusterId.isEmpty()) {
+            final Map<Long, Long> clusterIdsByVmId = new LinkedHashMap<Long, Long>();
+            for (ContainerClusterVmMapVO vmMapVO : _containerClusterVmMapDao.listByClusterIds(vmUuidsByClusterId.keySet())) {
+                clusterIdsByVmId.put(vmMapVO.getVmId(), vmMapVO.getClusterId());
+            }
+            final Map<Long, VMInstanceVO> vms = listByIds(new IdsLookup<VMInstanceVO>() {
+                @Override
+                public List<VMInstanceVO> listByIds(Collection<Long> ids) {
+                    return _ccsVmDao.listByIds(ids);
+                }
+            }, clusterIdsByVmId.keySet());
+            for (Map.Entry<Long, Long> clusterVm : clusterIdsByVmId.entrySet()) {
+                final VMInstanceVO vm = vms.get(clusterVm.getKey());
+                if (vm != null) {
+                    vmUuidsByClusterId.get(clusterVm.getValue()).add(vm.getUuid());
+                }
+            }
         }
 
-        return response;
+        final List<ContainerClusterResponse> responses = new ArrayList<ContainerClusterResponse>(containerClusters.size());
+        for (ContainerClusterJoinVO containerCluster : containerClusters) {
+            ContainerClusterResponse response = new ContainerClusterResponse();
+            response.setId(containerCluster.getUuid());
+            response.setName(containerCluster.getName());
+            response.setDescription(containerCluster.getDescription());
+            response.setZoneId(containerCluster.getZoneUuid());
+            response.setZoneName(containerCluster.getZoneName());
+            response.setClusterSize(String.valueOf(containerCluster.getNodeCount()));
+            response.setTemplateId(containerCluster.getTemplateUuid());
+            response.setServiceOfferingId(containerCluster.getServiceOfferingUuid());
+            response.setServiceOfferingName(containerCluster.getServiceOfferingName());
+            response.setKeypair(containerCluster.getKeyPair());
+            response.setState(containerCluster.getState().toString());
+            response.setCores(String.valueOf(containerCluster.getCores()));
+            response.setMemory(String.valueOf(containerCluster.getMemory()));
+            response.setObjectName("containercluster");
+            response.setEndpoint(containerCluster.getEndpoint());
+            response.setNetworkId(containerCluster.getNetworkUuid());
+            response.setAssociatedNetworkName(containerCluster.getNetworkName());
+            response.setConsoleEndpoint(containerCluster.getConsoleEndpoint());
+            response.setVirtualMachineIds(vmUuidsByClusterId.get(containerCluster.getId()));
+            response.setUsername(containerCluster.getUsername());
+            response.setPassword(containerCluster.getPassword());
+            responses.add(response);
+        }
+        return responses;
     }
 
-    static String readFile(String path) throws IOException
-    {
-        byte[] encoded = Files.readAllBytes(Paths.get(path));
-        return new String(encoded, StandardCharsets.UTF_8);
+    protected boolean stateTransitTo(long containerClusterId, ContainerCluster.Event e) {
+        return stateTransitTo(_containerClusterDao.findById(containerClusterId), e);
     }
 
-    protected boolean stateTransitTo(long containerClusterId, ContainerCluster.Event e) {
-        ContainerClusterVO containerCluster = _containerClusterDao.findById(containerClusterId);
+    // Transitions the cluster from the state it has in the given entity. The transition is only written if the cluster
+    // is still in that state, so concurrent transitions do not overwrite each other; the loser gets false. On success
+    // the entity is updated to the new state, so callers can keep using it for further transitions.
+    protected boolean stateTransitTo(ContainerClusterVO containerCluster, ContainerCluster.Event e) {
+        if (e == ContainerCluster.Event.CreateFailed || e == ContainerCluster.Event.OperationFailed
+                || e == ContainerCluster.Event.OperationSucceeded) {
+            // capacity held for the operation is either in use by now or no longer needed
+            _capacityLedger.releaseCluster(containerCluster.getId());
+        }
         try {
             return _stateMachine.transitTo(containerCluster, e, null, _containerClusterDao);
         } catch (NoTransitionException nte) {
@@ -1574,73 +2688,102 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         return sw.getBuffer().toString();
     }
 
-    private boolean isContainerServiceConfigured(DataCenter zone) {
+    // Checks container service is configured to provision container clusters in the zone, and resolves the template,
+    // network offering and physical network clusters are provisioned with. Verdicts are cached per zone, see
+    // ContainerServiceReadinessCache, unless a refresh is asked for. Returns null if container service is not configured.
+    private ContainerServiceReadinessCache.Readiness getContainerServiceReadiness(DataCenter zone, boolean refresh) {
+
+        String templateName = _settings.value(CcsConfig.ContainerClusterTemplateName);
+        String masterCloudConfig = _settings.value(CcsConfig.ContainerClusterMasterCloudConfig);
+        String nodeCloudConfig = _settings.value(CcsConfig.ContainerClusterNodeCloudConfig);
+        String networkOfferingName = _settings.value(CcsConfig.ContainerClusterNetworkOffering);
+        final String settings = ContainerServiceReadinessCache.settingsFingerprint(templateName, masterCloudConfig, nodeCloudConfig,
+                networkOfferingName);
+        if (refresh) {
+            _readinessCache.invalidate(zone.getId());
+        } else {
+            final ContainerServiceReadinessCache.Readiness cached = _readinessCache.get(zone.getId(), settings);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        String templateName = _globalConfigDao.getValue(CcsConfig.ContainerClusterTemplateName.key());
         if (templateName == null || templateName.isEmpty()) {
             s_logger.warn("Global setting " + CcsConfig.ContainerClusterTemplateName.key() + " is empty." +
                     "Template name need to be specified, for container service to function.");
-            return false;
+            return null;
         }
 
         final VMTemplateVO template = _templateDao.findByTemplateName(templateName);
         if (template == null) {
            s_logger.warn("Unable to find the template:" + templateName  + " to be used for provisioning cluster");
-            return false;
+            return null;
         }
 
-        String masterCloudConfig = _globalConfigDao.getValue(CcsConfig.ContainerClusterMasterCloudConfig.key());
         if (masterCloudConfig == null || masterCloudConfig.isEmpty()) {
             s_logger.warn("global setting " + CcsConfig.ContainerClusterMasterCloudConfig.key() + " is empty." +
                     "Admin has not specified the cloud config template to be used for provisioning master VM");
-            return false;
+            return null;
         }
 
-        String nodeCloudConfig = _globalConfigDao.getValue(CcsConfig.ContainerClusterNodeCloudConfig.key());
         if (nodeCloudConfig == null || nodeCloudConfig.isEmpty()) {
             s_logger.warn("global setting " + CcsConfig.ContainerClusterNodeCloudConfig.key() + " is empty." +
                     "Admin has not specified the cloud config template to be used for provisioning node VM's");
-            return false;
+            return null;
         }
 
-
-        String networkOfferingName = _globalConfigDao.getValue(CcsConfig.ContainerClusterNetworkOffering.key());
         if (networkOfferingName == null || networkOfferingName.isEmpty()) {
             s_logger.warn("global setting " + CcsConfig.ContainerClusterNetworkOffering.key()  + " is empty. " +
                     "Admin has not yet specified the network offering to be used for provisioning isolated network for the cluster.");
-            return false;
+            return null;
         }
 
         NetworkOfferingVO networkOffering = _networkOfferingDao.findByUniqueName(networkOfferingName);
         if (networkOffering == null) {
             s_logger.warn("Network offering with name :" + networkOfferingName + " specified by admin is not found.");
-            return false;
+            return null;
         }
 
         if (networkOffering.getState() == NetworkOffering.State.Disabled) {
             s_logger.warn("Network offering :" + networkOfferingName + "is not enabled.");
-            return false;
+            return null;
         }
 
         List<String> services = _ntwkOfferingServiceMapDao.listServicesForNetworkOffering(networkOffering.getId());
         if (services == null || services.isEmpty() || !services.contains("SourceNat")) {
             s_logger.warn("Network offering :" + networkOfferingName + " does not have necessary services to provision container cluster");
-            return false;
+            return null;
         }
 
         if (networkOffering.getEgressDefaultPolicy() == false) {
             s_logger.warn("Network offering :" + networkOfferingName + "has egress default policy turned off should be on to provision container cluster.");
-            return false;
+            return null;
         }
 
         long physicalNetworkId = _networkModel.findPhysicalNetworkId(zone.getId(), networkOffering.getTags(), networkOffering.getTrafficType());
         PhysicalNetwork physicalNetwork = _physicalNetworkDao.findById(physicalNetworkId);
         if (physicalNetwork == null) {
             s_logger.warn("Unable to find physical network with id: " + physicalNetworkId + " and tag: " + networkOffering.getTags());
-            return false;
+            return null;
         }
 
-        return true;
+        final List<VMTemplateZoneVO> zoneTemplates = _templateZoneDao.listByZoneTemplate(zone.getId(), template.getId());
+        return _readinessCache.put(zone.getId(), settings, template, networkOffering, physicalNetwork,
+                zoneTemplates != null && !zoneTemplates.isEmpty());
+    }
+
+    private boolean isContainerServiceConfigured(DataCenter zone, boolean refresh) {
+        return getContainerServiceReadiness(zone, refresh) != null;
+    }
+
+    @Override
+    public String getConfigComponentName() {
+        return ContainerClusterService.class.getSimpleName();
+    }
+
+    @Override
+    public ConfigKey<?>[] getConfigKeys() {
+        return CcsConfig.getConfigKeys();
     }
 
     @Override
@@ -1650,10 +2793,58 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         cmdList.add(StartContainerClusterCmd.class);
         cmdList.add(StopContainerClusterCmd.class);
         cmdList.add(DeleteContainerClusterCmd.class);
+        cmdList.add(StartContainerClustersCmd.class);
+        cmdList.add(StopContainerClustersCmd.class);
+        cmdList.add(DeleteContainerClustersCmd.class);
         cmdList.add(ListContainerClusterCmd.class);
+        cmdList.add(ListContainerClusterWarmPoolsCmd.class);
         return cmdList;
     }
 
+    /* Unit of container cluster work that is run on the provisioning pool. The work runs in a managed context and
+       under the CallContext of the caller that submitted it, so that the VM and network services see the same
+       caller as they would on the API job thread.
+     */
+    abstract class ContainerClusterTask<T> implements Callable<T> {
+        private final User _callerUser;
+        private final Account _callerAccount;
+
+        ContainerClusterTask() {
+            final CallContext ctx = CallContext.current();
+            _callerUser = ctx == null ? null : ctx.getCallingUser();
+            _callerAccount = ctx == null ? null : ctx.getCallingAccount();
+        }
+
+        @Override
+        public T call() throws Exception {
+            final List<T> result = new ArrayList<T>(1);
+            final List<Exception> failure = new ArrayList<Exception>(1);
+            new ManagedContextRunnable() {
+                @Override
+                protected void runInContext() {
+                    if (_callerUser != null) {
+                        CallContext.register(_callerUser, _callerAccount);
+                    }
+                    try {
+                        result.add(doInContext());
+                    } catch (Exception e) {
+                        failure.add(e);
+                    } finally {
+                        if (_callerUser != null) {
+                            CallContext.unregister();
+                        }
+                    }
+                }
+            }.run();
+            if (!failure.isEmpty()) {
+                throw failure.get(0);
+            }
+            return result.get(0);
+        }
+
+        protected abstract T doInContext() throws Exception;
+    }
+
     // Garbage collector periodically run through the container clusters marked for GC. For each container cluster
     // marked for GC, attempt is made to destroy cluster.
     public class ContainerClusterGarbageCollector extends ManagedContextRunnable {
@@ -1677,6 +2868,10 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
             try {
                 List<ContainerClusterVO> containerClusters = _containerClusterDao.findContainerClustersToGarbageCollect();
                 for (ContainerCluster containerCluster:containerClusters ) {
+                    if (!_teardownsInProgress.add(containerCluster.getId())) {
+                        // still being deleted on this management server
+                        continue;
+                    }
                     if (s_logger.isDebugEnabled()) {
                         s_logger.debug("Running container cluster garbage collector on container cluster name:" + containerCluster.getName());
                     }
@@ -1697,6 +2892,8 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
                     } catch (Exception e) {
                         s_logger.debug("Faied to destroy container cluster name:" + containerCluster.getName() + " during GC due to " + e);
                         // proceed furhter with rest of the container cluster garbage collection
+                    } finally {
+                        _teardownsInProgress.remove(containerCluster.getId());
                     }
                 }
             } catch (Exception e) {
@@ -1734,73 +2931,373 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
 
         public void reallyRun() {
             try {
+                // clusters in 'Running', 'Stopped' and 'Alert' state and the states of all their VM's are loaded with
+                // one query each, the desired state of every cluster is then checked in memory
+                final ContainerCluster.State[] scannedStates = {ContainerCluster.State.Running, ContainerCluster.State.Stopped,
+                        ContainerCluster.State.Alert};
+                final List<ContainerClusterVO> containerClusters = _containerClusterDao.findContainerClustersInStates(scannedStates);
+                if (containerClusters.isEmpty()) {
+                    return;
+                }
+                final Map<Long, List<VirtualMachine.State>> vmStates = _containerClusterVmMapDao.listVmStatesOfClustersInStates(scannedStates);
 
-                // run through container clusters in 'Running' state and ensure all the VM's are Running in the cluster
-                List<ContainerClusterVO> runningContainerClusters = _containerClusterDao.findContainerClustersInState(ContainerCluster.State.Running);
-                for (ContainerCluster containerCluster : runningContainerClusters ) {
+                for (ContainerClusterVO containerCluster : containerClusters) {
                     if (s_logger.isDebugEnabled()) {
-                        s_logger.debug("Running container cluster state scanner on container cluster name:" + containerCluster.getName());
+                        s_logger.debug("Running container cluster state scanner on container cluster name:" + containerCluster.getName()
+                                + " for state " + containerCluster.getState());
                     }
                     try {
-                        if (!isClusterInDesiredState(containerCluster, VirtualMachine.State.Running)) {
-                            stateTransitTo(containerCluster.getId(), ContainerCluster.Event.FaultsDetected);
-                        }
+                        final List<VirtualMachine.State> clusterVmStates = vmStates.get(containerCluster.getId());
+                        reconcileClusterState(containerCluster, clusterVmStates != null ? clusterVmStates : Collections.<VirtualMachine.State>emptyList());
                     } catch (Exception e) {
                         s_logger.warn("Failed to run through VM states of container cluster due to " + e);
                     }
                 }
 
-                // run through container clusters in 'Stopped' state and ensure all the VM's are Stopped in the cluster
-                List<ContainerClusterVO> stoppedContainerClusters = _containerClusterDao.findContainerClustersInState(ContainerCluster.State.Stopped);
-                for (ContainerCluster containerCluster : stoppedContainerClusters ) {
+            } catch (RuntimeException e) {
+                s_logger.warn("Caught exception while running container cluster state scanner.", e);
+            } catch (Exception e) {
+                s_logger.warn("Caught exception while running container cluster state scanner.", e);
+            }
+        }
+    }
+
+    /* Listens to state transitions of user VM's. Clusters owning a VM that changed state are reconciled shortly
+       after, so faults and recoveries are picked up within seconds while the state scanner only runs as a safety net
+       for changes missed, e.g. made on another management server while this one was down.
+     */
+    public class ContainerClusterVmStateListener implements StateListener<VirtualMachine.State, VirtualMachine.Event, VirtualMachine> {
+        @Override
+        public boolean preStateTransitionEvent(VirtualMachine.State oldState, VirtualMachine.Event event, VirtualMachine.State newState,
+                                               VirtualMachine vm, boolean status, Object opaque) {
+            return true;
+        }
+
+        @Override
+        public boolean postStateTransitionEvent(StateMachine2.Transition<VirtualMachine.State, VirtualMachine.Event> transition, VirtualMachine vm,
+                                                boolean status, Object opaque) {
+            if (!status || vm.getType() != VirtualMachine.Type.User || transition.getCurrentState() == transition.getToState()) {
+                return true;
+            }
+            _changedVmIds.add(vm.getId());
+            if (_stateReconcileScheduled.compareAndSet(false, true)) {
+                scheduleStateReconciliation();
+            }
+            return true;
+        }
+    }
+
+    void scheduleStateReconciliation() {
+        try {
+            _stateScanner.schedule(new ContainerClusterStateReconciler(), STATE_RECONCILE_DELAY, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // management server is shutting down, the clusters get reconciled by the next state scan
+            _stateReconcileScheduled.set(false);
+        }
+    }
+
+    /* Reconciles the clusters owning the VM's whose state changed since the last run. VM's that are not part of a
+       container cluster cost one lookup of the VM map for all of them, and the VM states of all the affected clusters
+       are read in a single query.
+     */
+    public class ContainerClusterStateReconciler extends ManagedContextRunnable {
+        @Override
+        protected void runInContext() {
+            // cleared before the VM's are taken, so changes coming in while reconciling schedule another run
+            _stateReconcileScheduled.set(false);
+            final List<Long> vmIds = new ArrayList<Long>(_changedVmIds);
+            _changedVmIds.removeAll(vmIds);
+            if (vmIds.isEmpty()) {
+                return;
+            }
+            try {
+                final Set<Long> containerClusterIds = new HashSet<Long>();
+                for (ContainerClusterVmMapVO vmMapVO : _containerClusterVmMapDao.listByVmIds(vmIds)) {
+                    containerClusterIds.add(vmMapVO.getClusterId());
+                }
+                if (containerClusterIds.isEmpty()) {
+                    return;
+                }
+                final Map<Long, List<VirtualMachine.State>> vmStates = _containerClusterVmMapDao.listVmStatesOfClusters(containerClusterIds);
+                for (ContainerClusterVO containerCluster : _containerClusterDao.listByIds(containerClusterIds)) {
                     if (s_logger.isDebugEnabled()) {
-                        s_logger.debug("Running container cluster state scanner on container cluster name:" + containerCluster.getName()+ " for state " + ContainerCluster.State.Stopped);
+                        s_logger.debug("Reconciling state of container cluster name:" + containerCluster.getName() + " after a state change of its VM's");
                     }
                     try {
-                        if (!isClusterInDesiredState(containerCluster, VirtualMachine.State.Stopped)) {
-                            stateTransitTo(containerCluster.getId(), ContainerCluster.Event.FaultsDetected);
-                        }
+                        final List<VirtualMachine.State> clusterVmStates = vmStates.get(containerCluster.getId());
+                        reconcileClusterState(containerCluster, clusterVmStates != null ? clusterVmStates : Collections.<VirtualMachine.State>emptyList());
                     } catch (Exception e) {
-                        s_logger.warn("Failed to run through VM states of container cluster due to " + e);
+                        s_logger.warn("Failed to reconcile state of container cluster " + containerCluster.getName() + " due to " + e);
+                    }
+                }
+            } catch (RuntimeException e) {
+                s_logger.warn("Caught exception while reconciling container cluster states.", e);
+            }
+        }
+    }
+
+    /* Warm pool refiller keeps the warm pools of stopped node VM's configured by the admin topped up, so cluster
+       creates can claim node VM's whose root volume is already in place instead of creating them from scratch. Pooled
+       VM's of zones and service offerings no longer configured are destroyed. Only one management server refills the
+       pools at a time.
+     */
+    public class ContainerClusterWarmPoolRefiller extends ManagedContextRunnable {
+        @Override
+        protected void runInContext() {
+            GlobalLock warmPoolLock = GlobalLock.getInternLock("ContainerCluster.WarmPool.Lock");
+            try {
+                if (warmPoolLock.lock(3)) {
+                    try {
+                        reallyRun();
+                    } finally {
+                        warmPoolLock.unlock();
+                    }
+                }
+            } finally {
+                warmPoolLock.releaseRef();
+            }
+        }
+
+        public void reallyRun() {
+            CallContext.register(_accountMgr.getSystemUser(), _accountMgr.getSystemAccount());
+            try {
+                loadWarmPoolTargetSizes();
+                final Map<ContainerClusterWarmPool.Key, Integer> targetSizes = _warmPool.getTargetSizes();
+
+                for (ContainerClusterWarmPoolVmVO pooledVm : _warmPoolVmDao.listAll()) {
+                    if (!targetSizes.containsKey(new ContainerClusterWarmPool.Key(pooledVm.getZoneId(), pooledVm.getServiceOfferingId()))
+                            && _warmPoolVmDao.claim(pooledVm.getId())) {
+                        destroyWarmPoolVm(pooledVm.getVmId());
                     }
                 }
 
-                // run through container clusters in 'Alert' state and reconcile state as 'Running' if the VM's are running
-                List<ContainerClusterVO> alertContainerClusters = _containerClusterDao.findContainerClustersInState(ContainerCluster.State.Alert);
-                for (ContainerCluster containerCluster : alertContainerClusters ) {
+                if (targetSizes.isEmpty()) {
+                    return;
+                }
+                final VMTemplateVO template = _templateDao.findByTemplateName(_settings.value(CcsConfig.ContainerClusterTemplateName));
+                if (template == null) {
+                    s_logger.warn("Unable to refill the container cluster warm pools as the container cluster template is not found");
+                    return;
+                }
+                for (Map.Entry<ContainerClusterWarmPool.Key, Integer> pool : targetSizes.entrySet()) {
                     if (s_logger.isDebugEnabled()) {
-                        s_logger.debug("Running container cluster state scanner on container cluster name:" + containerCluster.getName() + " for state " + ContainerCluster.State.Alert);
+                        s_logger.debug("Running container cluster warm pool refiller on the pool of " + pool.getKey());
                     }
+                    refillWarmPool(pool.getKey(), pool.getValue(), template);
+                }
+            } catch (RuntimeException e) {
+                s_logger.warn("Caught exception while refilling container cluster warm pools.", e);
+            } finally {
+                CallContext.unregister();
+            }
+        }
+    }
+
+    public class ContainerClusterKeyPairPoolRefiller extends ManagedContextRunnable {
+        @Override
+        protected void runInContext() {
+            try {
+                final int generated = _keyPairPool.refill();
+                if (generated > 0 && s_logger.isDebugEnabled()) {
+                    s_logger.debug("Added " + generated + " key pairs to the container cluster key pair pool");
+                }
+            } catch (RuntimeException e) {
+                s_logger.warn("Caught exception while refilling the container cluster key pair pool.", e);
+            }
+        }
+    }
+
+    /* Network pool refiller keeps a number of implemented isolated networks ready in each zone container service is
+       configured in, so cluster creates without a network skip booting a virtual router and acquiring a source NAT IP.
+       Only one management server refills the pools at a time.
+     */
+    public class ContainerClusterNetworkPoolRefiller extends ManagedContextRunnable {
+        @Override
+        protected void runInContext() {
+            GlobalLock networkPoolLock = GlobalLock.getInternLock("ContainerCluster.NetworkPool.Lock");
+            try {
+                if (networkPoolLock.lock(3)) {
                     try {
-                        if (isClusterInDesiredState(containerCluster, VirtualMachine.State.Running)) {
-                            // mark the cluster to be running
-                            stateTransitTo(containerCluster.getId(), ContainerCluster.Event.RecoveryRequested);
-                            stateTransitTo(containerCluster.getId(), ContainerCluster.Event.OperationSucceeded);
-                        }
-                    } catch (Exception e) {
-                        s_logger.warn("Failed to run through VM states of container cluster status scanner due to " + e);
+                        reallyRun();
+                    } finally {
+                        networkPoolLock.unlock();
                     }
                 }
+            } finally {
+                networkPoolLock.releaseRef();
+            }
+        }
 
+        public void reallyRun() {
+            CallContext.register(_accountMgr.getSystemUser(), _accountMgr.getSystemAccount());
+            try {
+                for (DataCenterVO zone : _dcDao.listEnabledZones()) {
+                    final int poolSize = _settings.valueIn(CcsConfig.ContainerClusterNetworkPoolSize, zone.getId());
+                    final int targetSize = isContainerServiceConfigured(zone, true) ? Math.max(0, poolSize) : 0;
+                    if (targetSize == 0 && _pooledNetworkDao.listByZoneId(zone.getId()).isEmpty()) {
+                        continue;
+                    }
+                    if (s_logger.isDebugEnabled()) {
+                        s_logger.debug("Running container cluster network pool refiller on zone: " + zone.getName());
+                    }
+                    refillNetworkPool(zone, targetSize);
+                }
             } catch (RuntimeException e) {
-                s_logger.warn("Caught exception while running container cluster state scanner.", e);
-            } catch (Exception e) {
-                s_logger.warn("Caught exception while running container cluster state scanner.", e);
+                s_logger.warn("Caught exception while refilling container cluster network pools.", e);
+            } finally {
+                CallContext.unregister();
+            }
+        }
+    }
+
+    /* Provisioning recovery picks up container clusters left in 'Starting' state by a management server that went
+       down while starting them: this management server before its restart, or another one that is no longer up. It
+       runs periodically, so the clusters of a management server that is removed for good are taken over by the
+       remaining ones. Provisioning of such a cluster carries on from its last checkpoint, on a thread of its own as it
+       waits on the provisioning pool, on behalf of the owner of the cluster. Clusters that cannot be resumed, being
+       provisioned without checkpoints or owned by an account with no active user, are moved to 'Alert' and marked for
+       garbage collection. Stopped clusters whose start was interrupted are moved to 'Alert', for the state scanner to
+       reconcile with the state of their VM's.
+     */
+    public class ContainerClusterProvisioningRecovery extends ManagedContextRunnable {
+        @Override
+        protected void runInContext() {
+            try {
+                recoverInterruptedProvisioning();
+            } catch (RuntimeException e) {
+                s_logger.warn("Caught exception while resuming container cluster provisioning.", e);
+            }
+        }
+    }
+
+    void recoverInterruptedProvisioning() {
+        final long msId = ManagementServerNode.getManagementServerId();
+        final Set<Long> uncheckpointed = new HashSet<Long>();
+        for (final ContainerClusterVO containerCluster : _containerClusterDao.findContainerClustersInState(ContainerCluster.State.Starting)) {
+            if (_provisioningsInProgress.contains(containerCluster.getId())) {
+                continue;
+            }
+            final Map<String, ContainerClusterCheckpointVO> checkpoints = getCheckpoints(containerCluster.getId());
+            final ContainerClusterCheckpointVO provisioning = checkpoints.get(checkpointKey(Step.Provisioning, 0));
+            final ContainerClusterCheckpointVO started = provisioning != null ? provisioning : checkpoints.get(checkpointKey(Step.Starting, 0));
+            if (started == null) {
+                // a start records its first checkpoint right after moving the cluster to 'Starting', so only
+                // a cluster found without checkpoints by two runs in a row is given up on
+                uncheckpointed.add(containerCluster.getId());
+                if (_uncheckpointedStartingClusters.contains(containerCluster.getId())) {
+                    failProvisioning(containerCluster, "it has no checkpoints to resume from");
+                }
+                continue;
+            }
+            if (!isInterrupted(started, msId)) {
+                continue;
+            }
+            if (provisioning == null) {
+                s_logger.info("Start of container cluster name:" + containerCluster.getName() + " was interrupted, moving it to Alert state");
+                stateTransitTo(containerCluster.getId(), ContainerCluster.Event.OperationFailed);
+                _checkpointDao.removeByClusterId(containerCluster.getId());
+                continue;
+            }
+            // provisioning is resumed on behalf of the owner of the cluster, as the job that started it ran
+            final Account owner = _accountDao.findById(containerCluster.getAccountId());
+            final User ownerUser = owner != null ? getActiveUser(owner) : null;
+            if (ownerUser == null) {
+                failProvisioning(containerCluster, "its owner has no active user");
+                continue;
+            }
+            if (started.getMgmtServerId() != msId && !_checkpointDao.takeOver(containerCluster.getId(), started.getMgmtServerId(), msId)) {
+                // taken over by another management server
+                continue;
+            }
+            s_logger.info("Resuming provisioning of container cluster name:" + containerCluster.getName()
+                    + " interrupted on management server id: " + started.getMgmtServerId());
+            _recoveryExecutor.execute(new ManagedContextRunnable() {
+                @Override
+                protected void runInContext() {
+                    CallContext.register(ownerUser, owner);
+                    try {
+                        provisionContainerCluster(containerCluster.getId());
+                    } catch (Exception e) {
+                        s_logger.warn("Failed to resume provisioning of container cluster name:" + containerCluster.getName() + " due to " + e);
+                        final ContainerClusterVO cluster = _containerClusterDao.findById(containerCluster.getId());
+                        if (cluster != null && cluster.getState() == ContainerCluster.State.Starting) {
+                            failProvisioning(cluster, "resuming its provisioning failed");
+                        }
+                    } finally {
+                        CallContext.unregister();
+                    }
+                }
+            });
+        }
+        _uncheckpointedStartingClusters = uncheckpointed;
+    }
+
+    // A start is interrupted when the management server running it went down: this management server if the start
+    // began before its last restart, or another management server that is no longer up.
+    private boolean isInterrupted(final ContainerClusterCheckpointVO started, final long msId) {
+        if (started.getMgmtServerId() == msId) {
+            return started.getCreated().before(_startedAt);
+        }
+        return !_checkpointDao.isManagementServerUp(started.getMgmtServerId());
+    }
+
+    // Gives up on a cluster in 'Starting' state that cannot be resumed. What was provisioned for it is left to the
+    // garbage collector, as for a cluster whose network failed to be deleted.
+    void failProvisioning(final ContainerClusterVO containerCluster, final String reason) {
+        s_logger.warn("Unable to resume provisioning of container cluster name:" + containerCluster.getName() + " as " + reason
+                + ", moving it to Alert state for garbage collection");
+        if (stateTransitTo(containerCluster.getId(), ContainerCluster.Event.OperationFailed)) {
+            final ContainerClusterVO cluster = _containerClusterDao.findById(containerCluster.getId());
+            cluster.setCheckForGc(true);
+            _containerClusterDao.update(cluster.getId(), cluster);
+        }
+        _checkpointDao.removeByClusterId(containerCluster.getId());
+    }
+
+    private User getActiveUser(final Account account) {
+        for (UserVO user : _userDao.listByAccount(account.getId())) {
+            if (user.getState() == Account.State.enabled && user.getRemoved() == null) {
+                return user;
             }
         }
+        return null;
     }
 
-    // checks if container cluster is in desired state
-    boolean isClusterInDesiredState(ContainerCluster containerCluster, VirtualMachine.State state) {
-        List<ContainerClusterVmMapVO> clusterVMs = _containerClusterVmMapDao.listByClusterId(containerCluster.getId());
+    // Moves a running or stopped cluster whose VM's are not all in the matching state to Alert, and an Alert cluster
+    // whose VM's are all running back to Running. Clusters in other states are being worked on and left alone.
+    void reconcileClusterState(ContainerClusterVO containerCluster, List<VirtualMachine.State> vmStates) {
+        switch (containerCluster.getState()) {
+            case Running:
+                if (!isClusterInDesiredState(containerCluster, VirtualMachine.State.Running, vmStates)) {
+                    stateTransitTo(containerCluster, ContainerCluster.Event.FaultsDetected);
+                }
+                break;
+            case Stopped:
+                if (!isClusterInDesiredState(containerCluster, VirtualMachine.State.Stopped, vmStates)) {
+                    stateTransitTo(containerCluster, ContainerCluster.Event.FaultsDetected);
+                }
+                break;
+            case Alert:
+                if (isClusterInDesiredState(containerCluster, VirtualMachine.State.Running, vmStates)) {
+                    // mark the cluster to be running
+                    if (stateTransitTo(containerCluster, ContainerCluster.Event.RecoveryRequested)) {
+                        stateTransitTo(containerCluster, ContainerCluster.Event.OperationSucceeded);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
 
+    // vmStates are the states of all the VM's of the cluster, removed ones included
+    boolean isClusterInDesiredState(ContainerCluster containerCluster, VirtualMachine.State state, List<VirtualMachine.State> vmStates) {
         // check if all the VM's are in same state
-        for (ContainerClusterVmMapVO clusterVm : clusterVMs) {
-            VMInstanceVO vm = _vmInstanceDao.findByIdIncludingRemoved(clusterVm.getVmId());
-            if (vm.getState() != state) {
+        for (VirtualMachine.State vmState : vmStates) {
+            if (vmState != state) {
                 if (s_logger.isDebugEnabled()) {
                     s_logger.debug("Found VM in the container cluster: " + containerCluster.getName() +
-                            " in state: " + vm.getState().toString() + " while expected to be in state: " + state.toString() +
+                            " in state: " + vmState.toString() + " while expected to be in state: " + state.toString() +
                             " So moving the cluster to Alert state for reconciliation.");
                 }
                 return false;
@@ -1808,9 +3305,9 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         }
 
         // check cluster is running at desired capacity include master node as well, so count should be cluster size + 1
-        if (clusterVMs.size() != (containerCluster.getNodeCount() + 1)) {
+        if (vmStates.size() != (containerCluster.getNodeCount() + 1)) {
             if (s_logger.isDebugEnabled()) {
-                s_logger.debug("Found only " + clusterVMs.size() + " VM's in the container cluster: " + containerCluster.getName() +
+                s_logger.debug("Found only " + vmStates.size() + " VM's in the container cluster: " + containerCluster.getName() +
                         " in state: " + state.toString() + " While expected number of VM's to " +
                         " be in state: " + state.toString() + " is " + (containerCluster.getNodeCount() + 1) +
                         " So moving the cluster to Alert state for reconciliation.");
@@ -1822,8 +3319,28 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
 
     @Override
     public boolean start() {
-        _gcExecutor.scheduleWithFixedDelay(new ContainerClusterGarbageCollector(), 300, 300, TimeUnit.SECONDS);
-        _stateScanner.scheduleWithFixedDelay(new ContainerClusterStatusScanner(), 300, 30, TimeUnit.SECONDS);
+        _startedAt = new Date();
+        final long gcInterval = _settings.value(CcsConfig.ContainerClusterGcInterval);
+        _gcExecutor.scheduleWithFixedDelay(new ContainerClusterGarbageCollector(), 300, gcInterval, TimeUnit.SECONDS);
+        final long stateScannerInterval = _settings.value(CcsConfig.ContainerClusterStateScannerInterval);
+        _stateScanner.scheduleWithFixedDelay(new ContainerClusterStatusScanner(), 300, stateScannerInterval, TimeUnit.SECONDS);
+        _stateScanner.scheduleWithFixedDelay(new ContainerClusterProvisioningRecovery(), PROVISIONING_RECOVERY_DELAY,
+                TimeUnit.SECONDS.toMillis(stateScannerInterval), TimeUnit.MILLISECONDS);
+        VirtualMachine.State.getStateMachine().registerListener(new ContainerClusterVmStateListener());
+
+        loadWarmPoolTargetSizes();
+        final long warmPoolRefillInterval = _settings.value(CcsConfig.ContainerClusterWarmPoolRefillInterval);
+        _warmPoolExecutor.scheduleWithFixedDelay(new ContainerClusterWarmPoolRefiller(), warmPoolRefillInterval, warmPoolRefillInterval, TimeUnit.SECONDS);
+        _warmPoolExecutor.scheduleWithFixedDelay(new ContainerClusterNetworkPoolRefiller(), warmPoolRefillInterval, warmPoolRefillInterval, TimeUnit.SECONDS);
+
+        _keyPairExecutor.scheduleWithFixedDelay(new ContainerClusterKeyPairPoolRefiller(), 0, KEY_PAIR_POOL_REFILL_INTERVAL, TimeUnit.MILLISECONDS);
+
+        try {
+            _readinessProber.start();
+        } catch (IOException e) {
+            s_logger.error("Failed to start the container cluster readiness prober due to " + e);
+            return false;
+        }
 
         // run the data base migration.
         Properties dbProps = DbProperties.getDbProperties();
@@ -1861,6 +3378,48 @@ public class ContainerClusterManagerImpl extends ManagerBase implements Containe
         _gcExecutor = Executors.newScheduledThreadPool(1, new NamedThreadFactory("Container-Cluster-Scavenger"));
         _stateScanner = Executors.newScheduledThreadPool(1, new NamedThreadFactory("Container-Cluster-State-Scanner"));
 
+        _settings = new ContainerClusterSettings(_globalConfigDao, new ScopedConfigStorage() {
+            @Override
+            public ConfigKey.Scope getScope() {
+                return ConfigKey.Scope.Zone;
+            }
+
+            @Override
+            public String getConfigValue(long id, ConfigKey<?> key) {
+                final DataCenterDetailVO detail = _dcDetailsDao.findDetail(id, key.key());
+                return detail == null ? null : detail.getValue();
+            }
+        }, SETTINGS_CACHE_TTL);
+        final int provisioningParallelism = _settings.value(CcsConfig.ContainerClusterProvisioningParallelism);
+        _provisioningExecutor = Executors.newFixedThreadPool(Math.max(1, provisioningParallelism), new NamedThreadFactory("Container-Cluster-Provisioner"));
+        _recoveryExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("Container-Cluster-Recovery"));
+        _warmPoolExecutor = Executors.newScheduledThreadPool(1, new NamedThreadFactory("Container-Cluster-Warm-Pool"));
+        _teardownExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("Container-Cluster-Teardown"));
+        final int bulkActionParallelism = _settings.value(CcsConfig.ContainerClusterBulkActionParallelism);
+        _bulkActionExecutor = Executors.newFixedThreadPool(Math.max(1, bulkActionParallelism), new NamedThreadFactory("Container-Cluster-Bulk-Action"));
+        final long reservationTtl = _settings.value(CcsConfig.ContainerClusterCapacityReservationTtl);
+        _capacityLedger = new ContainerClusterCapacityLedger(TimeUnit.SECONDS.toMillis(reservationTtl));
+        _keyPairExecutor = Executors.newScheduledThreadPool(1, new NamedThreadFactory("Container-Cluster-Key-Pair-Generator"));
+        _keyPairPool = new ContainerClusterKeyPairPool(KEY_PAIR_POOL_SIZE, _settings.value(CAManager.CertKeySize));
+        _readinessProber = new ContainerClusterReadinessProber(TimeUnit.SECONDS.toMillis(2), TimeUnit.SECONDS.toMillis(60), TimeUnit.SECONDS.toMillis(10));
+
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        _readinessProber.stop();
+        for (Long containerClusterId : _apiClients.keySet()) {
+            releaseApiClient(containerClusterId);
+        }
+        _warmPoolExecutor.shutdownNow();
+        _keyPairExecutor.shutdownNow();
+        _teardownExecutor.shutdownNow();
+        _bulkActionExecutor.shutdownNow();
+        _recoveryExecutor.shutdownNow();
+        _provisioningExecutor.shutdownNow();
+        _stateScanner.shutdownNow();
+        _gcExecutor.shutdownNow();
         return true;
     }
 }
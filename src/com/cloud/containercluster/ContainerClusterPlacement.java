@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.cloud.containercluster.ContainerClusterCapacityLedger.Reservation;
+import com.cloud.dc.DataCenter;
+import com.cloud.deploy.DeployDestination;
+import com.cloud.host.HostVO;
+
+/**
+ * Hosts planned for the VM's of a container cluster. The master VM is placed at index 0 and node n at index n,
+ * matching the node instance numbers used when the node VM's are created. When the placement was planned for a
+ * cluster being provisioned, the capacity of each VM is held in the reservation ledger until it is released.
+ */
+public class ContainerClusterPlacement {
+
+    private final DataCenter _zone;
+    private final List<HostVO> _hosts;
+    private final List<Reservation> _reservations;
+
+    /**
+     * @param reservations ledger reservations in the order of the hosts, or null if no capacity is held
+     */
+    public ContainerClusterPlacement(final DataCenter zone, final List<HostVO> hosts, final List<Reservation> reservations) {
+        _zone = zone;
+        _hosts = Collections.unmodifiableList(hosts);
+        _reservations = reservations == null ? Collections.<Reservation>emptyList() : Collections.unmodifiableList(reservations);
+    }
+
+    public DataCenter getZone() {
+        return _zone;
+    }
+
+    public DeployDestination getDestination() {
+        return new DeployDestination(_zone, null, null, null);
+    }
+
+    public int getVmCount() {
+        return _hosts.size();
+    }
+
+    public Long getMasterHostId() {
+        return getHostId(0);
+    }
+
+    /**
+     * @return id of the host planned for the node, or null if no host is planned for it
+     */
+    public Long getNodeHostId(final int nodeInstance) {
+        return getHostId(nodeInstance);
+    }
+
+    public Reservation getMasterReservation() {
+        return getReservation(0);
+    }
+
+    public Reservation getNodeReservation(final int nodeInstance) {
+        return getReservation(nodeInstance);
+    }
+
+    private Reservation getReservation(final int index) {
+        if (index < 0 || index >= _reservations.size()) {
+            return null;
+        }
+        return _reservations.get(index);
+    }
+
+    private Long getHostId(final int index) {
+        if (index < 0 || index >= _hosts.size()) {
+            return null;
+        }
+        return _hosts.get(index).getId();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.List;
+
+import com.cloud.containercluster.ContainerClusterCapacitySnapshot.HostCapacity;
+
+/**
+ * Built-in placement strategies, selected with the cloud.container.cluster.placement.strategy setting.
+ */
+public enum ContainerClusterPlacementStrategies implements ContainerClusterPlacementStrategy {
+
+    /**
+     * First host, in snapshot order, that fits the VM.
+     */
+    FirstFit("firstfit") {
+        @Override
+        public HostCapacity selectHost(List<HostCapacity> candidates, long cpu, long ram) {
+            return candidates.get(0);
+        }
+    },
+
+    /**
+     * Host with the most free memory, then cpu, spreading the cluster over as many hosts as possible.
+     */
+    Spread("spread") {
+        @Override
+        public HostCapacity selectHost(List<HostCapacity> candidates, long cpu, long ram) {
+            HostCapacity selected = candidates.get(0);
+            for (HostCapacity candidate : candidates) {
+                if (candidate.getFreeRam() > selected.getFreeRam()
+                        || (candidate.getFreeRam() == selected.getFreeRam() && candidate.getFreeCpu() > selected.getFreeCpu())) {
+                    selected = candidate;
+                }
+            }
+            return selected;
+        }
+    },
+
+    /**
+     * Host with the least free memory, then cpu, that still fits the VM, packing the cluster on as few hosts as
+     * possible.
+     */
+    Pack("pack") {
+        @Override
+        public HostCapacity selectHost(List<HostCapacity> candidates, long cpu, long ram) {
+            HostCapacity selected = candidates.get(0);
+            for (HostCapacity candidate : candidates) {
+                if (candidate.getFreeRam() < selected.getFreeRam()
+                        || (candidate.getFreeRam() == selected.getFreeRam() && candidate.getFreeCpu() < selected.getFreeCpu())) {
+                    selected = candidate;
+                }
+            }
+            return selected;
+        }
+    };
+
+    private final String _name;
+
+    private ContainerClusterPlacementStrategies(final String name) {
+        _name = name;
+    }
+
+    @Override
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * @return the strategy with the given name, or null if there is none
+     */
+    public static ContainerClusterPlacementStrategy getStrategy(final String name) {
+        for (ContainerClusterPlacementStrategies strategy : values()) {
+            if (strategy.getName().equalsIgnoreCase(name)) {
+                return strategy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.List;
+
+import com.cloud.containercluster.ContainerClusterCapacitySnapshot.HostCapacity;
+
+/**
+ * Decides on which host of a capacity snapshot each VM of a container cluster is placed.
+ */
+public interface ContainerClusterPlacementStrategy {
+
+    String getName();
+
+    /**
+     * Picks the host for a VM.
+     *
+     * @param candidates hosts with enough free capacity for the VM, in snapshot order, never empty
+     */
+    HostCapacity selectHost(List<HostCapacity> candidates, long cpu, long ram);
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Implemented isolated network kept in the network pool of a zone, ready to be handed to a container cluster that
+ * is created without a network.
+ */
+@Entity
+@Table(name = "sb_ccs_network_pool")
+public class ContainerClusterPooledNetworkVO {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    long id;
+
+    @Column(name = "zone_id")
+    long zoneId;
+
+    @Column(name = "network_id")
+    long networkId;
+
+    @Column(name = "created")
+    @Temporal(value = TemporalType.TIMESTAMP)
+    Date created;
+
+    public ContainerClusterPooledNetworkVO() {
+
+    }
+
+    public ContainerClusterPooledNetworkVO(long zoneId, long networkId) {
+        this.zoneId = zoneId;
+        this.networkId = networkId;
+        this.created = new Date();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getZoneId() {
+        return zoneId;
+    }
+
+    public long getNetworkId() {
+        return networkId;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+}
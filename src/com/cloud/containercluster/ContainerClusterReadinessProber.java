@@ -0,0 +1,337 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.cloud.utils.concurrency.NamedThreadFactory;
+
+/**
+ * Shared readiness prober for container cluster endpoints.
+ *
+ * A single selector thread drives non-blocking TCP connect probes for any number of clusters. Each registered
+ * endpoint is retried with exponential backoff and jitter until it accepts a connection or its deadline passes,
+ * and the future handed out at registration is completed with the outcome. Readiness conditions that can not be
+ * checked with a plain connect (e.g. add-on services running in the cluster) are polled with the same backoff on
+ * a small shared pool, so no thread is held per cluster while waiting.
+ */
+public class ContainerClusterReadinessProber {
+
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterReadinessProber.class);
+
+    private static final int MAX_BACKOFF_SHIFT = 30;
+
+    private final long _initialBackoff;
+    private final long _maxBackoff;
+    private final long _connectTimeout;
+    private final Random _random = new Random();
+
+    // probes handed over by the registering threads, picked up by the selector thread
+    private final Queue<EndpointProbe> _newProbes = new ConcurrentLinkedQueue<EndpointProbe>();
+    // probes waiting for their next attempt, only accessed by the selector thread
+    private final PriorityQueue<EndpointProbe> _scheduledProbes = new PriorityQueue<EndpointProbe>(16, new Comparator<EndpointProbe>() {
+        @Override
+        public int compare(EndpointProbe p1, EndpointProbe p2) {
+            return Long.compare(p1.nextAttempt, p2.nextAttempt);
+        }
+    });
+
+    private Selector _selector;
+    private Thread _selectorThread;
+    private ScheduledExecutorService _conditionExecutor;
+    private volatile boolean _running;
+
+    /**
+     * @param initialBackoff delay in milliseconds before the first retry, doubled on every further retry
+     * @param maxBackoff upper bound in milliseconds for the delay between two attempts
+     * @param connectTimeout time in milliseconds a single connect attempt is given before it is retried
+     */
+    public ContainerClusterReadinessProber(final long initialBackoff, final long maxBackoff, final long connectTimeout) {
+        _initialBackoff = initialBackoff;
+        _maxBackoff = maxBackoff;
+        _connectTimeout = connectTimeout;
+    }
+
+    public synchronized void start() throws IOException {
+        if (_running) {
+            return;
+        }
+        _selector = Selector.open();
+        _conditionExecutor = Executors.newScheduledThreadPool(2, new NamedThreadFactory("Container-Cluster-Readiness-Checker"));
+        _running = true;
+        _selectorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runSelectorLoop();
+            }
+        }, "Container-Cluster-Readiness-Prober");
+        _selectorThread.setDaemon(true);
+        _selectorThread.start();
+    }
+
+    public synchronized void stop() {
+        if (!_running) {
+            return;
+        }
+        _running = false;
+        _selector.wakeup();
+        try {
+            _selectorThread.join(_connectTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        _conditionExecutor.shutdownNow();
+    }
+
+    /**
+     * Registers an endpoint to be probed until it accepts a TCP connection.
+     *
+     * @return future completed with true once the endpoint accepts a connection, or with false once the timeout
+     *         passes without the endpoint becoming reachable
+     */
+    public CompletableFuture<Boolean> probeEndpoint(final InetSocketAddress address, final long timeout) {
+        final EndpointProbe probe = new EndpointProbe(address, System.currentTimeMillis() + timeout);
+        if (!_running) {
+            probe.future.complete(false);
+            return probe.future;
+        }
+        _newProbes.add(probe);
+        _selector.wakeup();
+        return probe.future;
+    }
+
+    /**
+     * Registers a readiness condition to be polled until it holds. A condition that throws is treated as not
+     * (yet) holding.
+     *
+     * @return future completed with true once the condition holds, or with false once the timeout passes
+     */
+    public CompletableFuture<Boolean> probeCondition(final String description, final Callable<Boolean> condition, final long timeout) {
+        final CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
+        if (!_running) {
+            future.complete(false);
+            return future;
+        }
+        final long deadline = System.currentTimeMillis() + timeout;
+        _conditionExecutor.execute(new Runnable() {
+            private int _attempt = 0;
+
+            @Override
+            public void run() {
+                if (future.isDone()) {
+                    return;
+                }
+                boolean ready = false;
+                try {
+                    ready = Boolean.TRUE.equals(condition.call());
+                } catch (Exception e) {
+                    if (s_logger.isDebugEnabled()) {
+                        s_logger.debug("Readiness check of " + description + " failed due to " + e);
+                    }
+                }
+                if (ready) {
+                    future.complete(true);
+                    return;
+                }
+                final long delay = nextBackoff(_attempt++);
+                if (System.currentTimeMillis() + delay > deadline) {
+                    future.complete(false);
+                    return;
+                }
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Waiting for " + description + " to be ready. attempt: " + _attempt + ", next check in " + delay + "ms");
+                }
+                try {
+                    _conditionExecutor.schedule(this, delay, TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                    // prober is being stopped
+                    future.complete(false);
+                }
+            }
+        });
+        return future;
+    }
+
+    // delay before retry number attempt + 1: exponential backoff capped at max backoff, with half of it jittered
+    long nextBackoff(final int attempt) {
+        final long backoff = Math.min(_maxBackoff, _initialBackoff << Math.min(attempt, MAX_BACKOFF_SHIFT));
+        final long half = Math.max(1, backoff / 2);
+        synchronized (_random) {
+            return half + (long)(_random.nextDouble() * half);
+        }
+    }
+
+    private void runSelectorLoop() {
+        while (_running) {
+            try {
+                EndpointProbe probe;
+                while ((probe = _newProbes.poll()) != null) {
+                    probe.nextAttempt = System.currentTimeMillis();
+                    _scheduledProbes.add(probe);
+                }
+
+                long now = System.currentTimeMillis();
+                while (!_scheduledProbes.isEmpty() && _scheduledProbes.peek().nextAttempt <= now) {
+                    probe = _scheduledProbes.poll();
+                    if (probe.future.isDone()) {
+                        continue;
+                    }
+                    if (now >= probe.deadline) {
+                        probe.future.complete(false);
+                        continue;
+                    }
+                    connect(probe, now);
+                }
+
+                long wait = _connectTimeout;
+                for (SelectionKey key : _selector.keys()) {
+                    probe = (EndpointProbe)key.attachment();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (probe.future.isDone()) {
+                        closeQuietly(key);
+                    } else if (now - probe.connectStarted >= _connectTimeout) {
+                        closeQuietly(key);
+                        retry(probe, now);
+                    } else {
+                        wait = Math.min(wait, probe.connectStarted + _connectTimeout - now);
+                    }
+                }
+                if (!_scheduledProbes.isEmpty()) {
+                    wait = Math.min(wait, _scheduledProbes.peek().nextAttempt - now);
+                }
+
+                _selector.select(Math.max(1, wait));
+
+                now = System.currentTimeMillis();
+                final Iterator<SelectionKey> it = _selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    final SelectionKey key = it.next();
+                    it.remove();
+                    probe = (EndpointProbe)key.attachment();
+                    try {
+                        if (key.isValid() && key.isConnectable() && ((SocketChannel)key.channel()).finishConnect()) {
+                            closeQuietly(key);
+                            probe.future.complete(true);
+                        }
+                    } catch (IOException e) {
+                        closeQuietly(key);
+                        retry(probe, now);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                s_logger.warn("Caught exception while probing container cluster endpoints.", e);
+            }
+        }
+
+        final List<EndpointProbe> pending = new ArrayList<EndpointProbe>(_scheduledProbes);
+        pending.addAll(_newProbes);
+        for (SelectionKey key : _selector.keys()) {
+            pending.add((EndpointProbe)key.attachment());
+            closeQuietly(key);
+        }
+        for (EndpointProbe probe : pending) {
+            probe.future.complete(false);
+        }
+        _scheduledProbes.clear();
+        _newProbes.clear();
+        try {
+            _selector.close();
+        } catch (IOException e) {
+            s_logger.debug("Failed to close the readiness prober selector due to " + e);
+        }
+    }
+
+    private void connect(final EndpointProbe probe, final long now) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            if (channel.connect(probe.address)) {
+                channel.close();
+                probe.future.complete(true);
+                return;
+            }
+            probe.connectStarted = now;
+            channel.register(_selector, SelectionKey.OP_CONNECT, probe);
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ce) {
+                    s_logger.debug("Failed to close probe channel due to " + ce);
+                }
+            }
+            retry(probe, now);
+        }
+    }
+
+    private void retry(final EndpointProbe probe, final long now) {
+        final long delay = nextBackoff(probe.attempt++);
+        if (now + delay > probe.deadline) {
+            probe.future.complete(false);
+            return;
+        }
+        if (s_logger.isDebugEnabled()) {
+            s_logger.debug("Waiting for endpoint " + probe.address + " to be available. attempt: " + probe.attempt + ", next probe in " + delay + "ms");
+        }
+        probe.nextAttempt = now + delay;
+        _scheduledProbes.add(probe);
+    }
+
+    private static void closeQuietly(final SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            s_logger.debug("Failed to close probe channel due to " + e);
+        }
+    }
+
+    private static class EndpointProbe {
+        final InetSocketAddress address;
+        final long deadline;
+        final CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
+        int attempt = 0;
+        long nextAttempt;
+        long connectStarted;
+
+        EndpointProbe(final InetSocketAddress address, final long deadline) {
+            this.address = address;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -22,10 +22,15 @@ import com.cloud.exception.ResourceAllocationException;
 import com.cloud.exception.ResourceUnavailableException;
 import com.cloud.user.Account;
 import com.cloud.utils.component.PluggableService;
+import org.apache.cloudstack.api.command.admin.containercluster.ListContainerClusterWarmPoolsCmd;
 import org.apache.cloudstack.api.command.user.containercluster.ListContainerClusterCmd;
+import org.apache.cloudstack.api.response.ContainerClusterActionResponse;
 import org.apache.cloudstack.api.response.ContainerClusterResponse;
+import org.apache.cloudstack.api.response.ContainerClusterWarmPoolResponse;
 import org.apache.cloudstack.api.response.ListResponse;
 
+import java.util.List;
+
 public interface ContainerClusterService extends PluggableService {
 
     ContainerCluster findById(final Long id);
@@ -52,8 +57,16 @@ public interface ContainerClusterService extends PluggableService {
 
     boolean deleteContainerCluster(Long containerClusterId) throws ManagementServerException;
 
+    ListResponse<ContainerClusterActionResponse> startContainerClusters(List<Long> containerClusterIds);
+
+    ListResponse<ContainerClusterActionResponse> stopContainerClusters(List<Long> containerClusterIds);
+
+    ListResponse<ContainerClusterActionResponse> deleteContainerClusters(List<Long> containerClusterIds);
+
     ListResponse<ContainerClusterResponse>  listContainerClusters(ListContainerClusterCmd cmd);
 
     ContainerClusterResponse createContainerClusterResponse(long containerClusterId);
 
+    ListResponse<ContainerClusterWarmPoolResponse> listContainerClusterWarmPools(ListContainerClusterWarmPoolsCmd cmd);
+
 }
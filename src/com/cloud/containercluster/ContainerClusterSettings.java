@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.cloudstack.framework.config.ConfigKey;
+import org.apache.cloudstack.framework.config.ScopedConfigStorage;
+import org.apache.cloudstack.framework.config.dao.ConfigurationDao;
+import org.apache.log4j.Logger;
+
+/**
+ * In-memory cache of the container service settings declared in {@link CcsConfig}.
+ *
+ * Values of dynamic settings are read again once they are older than the time to live, so a setting changed through
+ * the configuration API takes effect within that time without every request going to the database. Values of
+ * settings that are not dynamic are read once, as for any other setting that needs a restart of the management
+ * server. A zone scoped setting that is not overridden for a zone takes its global value.
+ */
+public class ContainerClusterSettings {
+
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterSettings.class);
+
+    private static final class Entry {
+        private final Object _value;
+        private final long _expiresAt;
+
+        Entry(final Object value, final long expiresAt) {
+            _value = value;
+            _expiresAt = expiresAt;
+        }
+    }
+
+    private final ConfigurationDao _configDao;
+    private final ScopedConfigStorage _zoneConfigStorage;
+    private final long _ttl;
+    private final ConcurrentMap<String, Entry> _values = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * @param configDao global settings
+     * @param zoneConfigStorage settings overridden per zone, or null if zone scoped settings only take global values
+     * @param ttl time in milliseconds values of dynamic settings are cached for
+     */
+    public ContainerClusterSettings(final ConfigurationDao configDao, final ScopedConfigStorage zoneConfigStorage, final long ttl) {
+        _configDao = configDao;
+        _zoneConfigStorage = zoneConfigStorage;
+        _ttl = ttl;
+    }
+
+    /**
+     * @return global value of the setting, or its default value if it is not set or can not be parsed
+     */
+    public <T> T value(final ConfigKey<T> key) {
+        return valueIn(key, null);
+    }
+
+    /**
+     * @return value of the setting in the zone, its global value if it is not zone scoped or not overridden for the
+     *         zone, or its default value if it is not set or can not be parsed
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T valueIn(final ConfigKey<T> key, final Long zoneId) {
+        final Long scopeId = key.scope() == ConfigKey.Scope.Zone ? zoneId : null;
+        final String cacheKey = scopeId == null ? key.key() : key.key() + "@" + scopeId;
+        final long now = System.currentTimeMillis();
+        final Entry cached = _values.get(cacheKey);
+        if (cached != null && (!key.isDynamic() || cached._expiresAt > now)) {
+            return (T)cached._value;
+        }
+
+        String value = null;
+        if (scopeId != null && _zoneConfigStorage != null) {
+            value = _zoneConfigStorage.getConfigValue(scopeId, key);
+        }
+        if (value == null) {
+            value = _configDao.getValue(key.key());
+        }
+        final T parsed = parse(key, value);
+        _values.put(cacheKey, new Entry(parsed, now + _ttl));
+        return parsed;
+    }
+
+    /**
+     * Drops all the cached values, so they are read again on next use.
+     */
+    public void invalidate() {
+        _values.clear();
+    }
+
+    private static <T> T parse(final ConfigKey<T> key, final String value) {
+        if (value != null) {
+            try {
+                return convert(key.type(), value);
+            } catch (IllegalArgumentException e) {
+                s_logger.warn("Invalid value " + value + " of setting " + key.key() + ", using its default value " + key.defaultValue());
+            }
+        }
+        return key.defaultValue() == null ? null : convert(key.type(), key.defaultValue());
+    }
+
+    private static <T> T convert(final Class<T> type, final String value) {
+        final Object converted;
+        if (type == Integer.class) {
+            converted = Integer.valueOf(value.trim());
+        } else if (type == Long.class) {
+            converted = Long.valueOf(value.trim());
+        } else if (type == Float.class) {
+            converted = Float.valueOf(value.trim());
+        } else if (type == Double.class) {
+            converted = Double.valueOf(value.trim());
+        } else if (type == Boolean.class) {
+            converted = Boolean.valueOf(value.trim());
+        } else if (type == String.class) {
+            converted = value;
+        } else {
+            throw new IllegalArgumentException("Unsupported setting type " + type.getName());
+        }
+        return type.cast(converted);
+    }
+}
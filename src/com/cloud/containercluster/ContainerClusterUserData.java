@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.log4j.Logger;
+
+/**
+ * Encodes the cloud config of container cluster VMs as user data.
+ *
+ * The cloud config can be gzip compressed before it is base64 encoded, which cloud-init and CoreOS coreos-cloudinit
+ * detect and decompress on their own. The master cloud config carries certificates and keys, so compressing it keeps
+ * it well within the user data size limit and makes it cheaper for the virtual router to serve.
+ */
+public final class ContainerClusterUserData {
+
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterUserData.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ContainerClusterUserData() {
+    }
+
+    /**
+     * @param description what the user data is for, used in log messages
+     * @param compress whether to gzip the cloud config, it is left uncompressed if compressing does not make it smaller
+     * @return base64 encoded user data
+     */
+    public static String encode(final String description, final String cloudConfig, final boolean compress) {
+        final byte[] plain = cloudConfig.getBytes(UTF8);
+        if (compress) {
+            final byte[] compressed = gzip(plain);
+            if (compressed != null && compressed.length < plain.length) {
+                final String userData = Base64.encodeBase64String(compressed);
+                if (s_logger.isDebugEnabled()) {
+                    s_logger.debug("Compressed the user data of " + description + " from " + plain.length + " to " + compressed.length
+                            + " bytes, " + (encodedLength(plain.length) - userData.length()) + " bytes of encoded user data saved");
+                }
+                return userData;
+            }
+        }
+        return Base64.encodeBase64String(plain);
+    }
+
+    static byte[] gzip(final byte[] data) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            s_logger.warn("Failed to compress user data, it is passed uncompressed due to " + e);
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private static int encodedLength(final int length) {
+        return (length + 2) / 3 * 4;
+    }
+}
@@ -159,6 +159,19 @@ public class ContainerClusterVO implements ContainerCluster {
         this.state = state;
     }
 
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    /**
+     * Brings the state of the entity in line with a state transition already written to the database, without
+     * marking the state as changed, so a later update of the entity does not write the state again.
+     */
+    public void transitionedTo(State state) {
+        this.state = state;
+        this.updateCount++;
+    }
+
     @Override
     public String getEndpoint() {
         return endpoint;
@@ -247,6 +260,9 @@ public class ContainerClusterVO implements ContainerCluster {
     @Column(name = "gc")
     boolean checkForGc;
 
+    @Column(name = "update_count", updatable = true, nullable = false)
+    protected long updateCount;
+
     public ContainerClusterVO() {
 
     }
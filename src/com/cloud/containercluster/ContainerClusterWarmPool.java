@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.cloud.utils.Ternary;
+
+/**
+ * Target sizes and hit/miss counters of the warm pools of stopped node VM's, one pool per zone and service offering.
+ *
+ * The pooled VM's themselves are tracked in the database, this only holds what the management server needs in
+ * memory: the sizes the refiller tops the pools up to, as configured by the admin, and how often cluster creates
+ * found a pooled VM to claim since the management server started.
+ */
+public class ContainerClusterWarmPool {
+
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterWarmPool.class);
+
+    /**
+     * Zone and service offering a warm pool is kept for.
+     */
+    public static final class Key {
+        private final long _zoneId;
+        private final long _serviceOfferingId;
+
+        public Key(final long zoneId, final long serviceOfferingId) {
+            _zoneId = zoneId;
+            _serviceOfferingId = serviceOfferingId;
+        }
+
+        public long getZoneId() {
+            return _zoneId;
+        }
+
+        public long getServiceOfferingId() {
+            return _serviceOfferingId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)obj;
+            return _zoneId == other._zoneId && _serviceOfferingId == other._serviceOfferingId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(_zoneId) + Long.hashCode(_serviceOfferingId);
+        }
+
+        @Override
+        public String toString() {
+            return "zone id: " + _zoneId + ", service offering id: " + _serviceOfferingId;
+        }
+    }
+
+    private volatile Map<Key, Integer> _targetSizes = Collections.emptyMap();
+    private final ConcurrentMap<Key, AtomicLong> _hits = new ConcurrentHashMap<Key, AtomicLong>();
+    private final ConcurrentMap<Key, AtomicLong> _misses = new ConcurrentHashMap<Key, AtomicLong>();
+
+    /**
+     * Parses the warm pool setting, a comma separated list of <zone uuid>:<service offering uuid>:<size> entries.
+     * Malformed entries are logged and skipped.
+     *
+     * @return zone uuid, service offering uuid and size of each entry
+     */
+    public static List<Ternary<String, String, Integer>> parseTargetSizes(final String setting) {
+        final List<Ternary<String, String, Integer>> targetSizes = new ArrayList<Ternary<String, String, Integer>>();
+        if (setting == null || setting.trim().isEmpty()) {
+            return targetSizes;
+        }
+        for (String entry : setting.split(",")) {
+            final String[] parts = entry.trim().split(":");
+            try {
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("expected <zone uuid>:<service offering uuid>:<size>");
+                }
+                final int size = Integer.parseInt(parts[2].trim());
+                if (size < 0) {
+                    throw new IllegalArgumentException("size can not be negative");
+                }
+                targetSizes.add(new Ternary<String, String, Integer>(parts[0].trim(), parts[1].trim(), size));
+            } catch (IllegalArgumentException e) {
+                s_logger.warn("Ignoring invalid container cluster warm pool entry: " + entry + " due to " + e.getMessage());
+            }
+        }
+        return targetSizes;
+    }
+
+    public void setTargetSizes(final Map<Key, Integer> targetSizes) {
+        _targetSizes = Collections.unmodifiableMap(new HashMap<Key, Integer>(targetSizes));
+    }
+
+    public Map<Key, Integer> getTargetSizes() {
+        return _targetSizes;
+    }
+
+    /**
+     * @return number of VM's the pool is kept at, 0 if no pool is kept for the zone and service offering
+     */
+    public int getTargetSize(final long zoneId, final long serviceOfferingId) {
+        final Integer size = _targetSizes.get(new Key(zoneId, serviceOfferingId));
+        return size == null ? 0 : size;
+    }
+
+    public void recordHit(final long zoneId, final long serviceOfferingId) {
+        counter(_hits, new Key(zoneId, serviceOfferingId)).incrementAndGet();
+    }
+
+    public void recordMiss(final long zoneId, final long serviceOfferingId) {
+        counter(_misses, new Key(zoneId, serviceOfferingId)).incrementAndGet();
+    }
+
+    public long getHits(final Key key) {
+        final AtomicLong hits = _hits.get(key);
+        return hits == null ? 0 : hits.get();
+    }
+
+    public long getMisses(final Key key) {
+        final AtomicLong misses = _misses.get(key);
+        return misses == null ? 0 : misses.get();
+    }
+
+    private static AtomicLong counter(final ConcurrentMap<Key, AtomicLong> counters, final Key key) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Stopped VM kept in the warm pool of a zone and service offering, ready to be claimed as a container cluster node.
+ */
+@Entity
+@Table(name = "sb_ccs_warm_pool_vm")
+public class ContainerClusterWarmPoolVmVO {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    long id;
+
+    @Column(name = "zone_id")
+    long zoneId;
+
+    @Column(name = "service_offering_id")
+    long serviceOfferingId;
+
+    @Column(name = "template_id")
+    long templateId;
+
+    @Column(name = "network_id")
+    long networkId;
+
+    @Column(name = "vm_id")
+    long vmId;
+
+    @Column(name = "created")
+    @Temporal(value = TemporalType.TIMESTAMP)
+    Date created;
+
+    public ContainerClusterWarmPoolVmVO() {
+
+    }
+
+    public ContainerClusterWarmPoolVmVO(long zoneId, long serviceOfferingId, long templateId, long networkId, long vmId) {
+        this.zoneId = zoneId;
+        this.serviceOfferingId = serviceOfferingId;
+        this.templateId = templateId;
+        this.networkId = networkId;
+        this.vmId = vmId;
+        this.created = new Date();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getZoneId() {
+        return zoneId;
+    }
+
+    public long getServiceOfferingId() {
+        return serviceOfferingId;
+    }
+
+    public long getTemplateId() {
+        return templateId;
+    }
+
+    public long getNetworkId() {
+        return networkId;
+    }
+
+    public long getVmId() {
+        return vmId;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.cloud.network.PhysicalNetwork;
+import com.cloud.offerings.NetworkOfferingVO;
+import com.cloud.storage.VMTemplateVO;
+
+/**
+ * Per zone cache of the verdict whether container service is configured well enough to provision container clusters
+ * in the zone, together with the template, network offering and physical network the checks resolved.
+ *
+ * Only verdicts that allow clusters to be provisioned are cached, so an admin fixing the configuration does not have
+ * to wait for a verdict to expire. A verdict is dropped when the container service settings it was reached with change, and otherwise
+ * expires after a time to live, as template and network offering state changes made through the core API are not
+ * signalled to the plugin.
+ */
+public class ContainerServiceReadinessCache {
+
+    /**
+     * Resources container clusters in a zone are provisioned with.
+     */
+    public static class Readiness {
+        private final VMTemplateVO _template;
+        private final NetworkOfferingVO _networkOffering;
+        private final PhysicalNetwork _physicalNetwork;
+        private final boolean _templateInZone;
+        private final String _settings;
+        private final long _expiresAt;
+
+        Readiness(final VMTemplateVO template, final NetworkOfferingVO networkOffering, final PhysicalNetwork physicalNetwork,
+                  final boolean templateInZone, final String settings, final long expiresAt) {
+            _template = template;
+            _networkOffering = networkOffering;
+            _physicalNetwork = physicalNetwork;
+            _templateInZone = templateInZone;
+            _settings = settings;
+            _expiresAt = expiresAt;
+        }
+
+        public VMTemplateVO getTemplate() {
+            return _template;
+        }
+
+        public NetworkOfferingVO getNetworkOffering() {
+            return _networkOffering;
+        }
+
+        public PhysicalNetwork getPhysicalNetwork() {
+            return _physicalNetwork;
+        }
+
+        /**
+         * @return true if the template is available for use in the zone
+         */
+        public boolean isTemplateInZone() {
+            return _templateInZone;
+        }
+    }
+
+    private final long _ttl;
+    private final ConcurrentMap<Long, Readiness> _verdicts = new ConcurrentHashMap<Long, Readiness>();
+
+    /**
+     * @param ttl time in milliseconds a verdict is cached for
+     */
+    public ContainerServiceReadinessCache(final long ttl) {
+        _ttl = ttl;
+    }
+
+    /**
+     * @param settings the container service settings the verdict is to be reached with, as returned by
+     *                 {@link #settingsFingerprint}
+     * @return the cached verdict of the zone, or null if there is none for the settings or it expired
+     */
+    public Readiness get(final long zoneId, final String settings) {
+        final Readiness readiness = _verdicts.get(zoneId);
+        if (readiness == null) {
+            return null;
+        }
+        if (!readiness._settings.equals(settings) || readiness._expiresAt <= System.currentTimeMillis()) {
+            _verdicts.remove(zoneId, readiness);
+            return null;
+        }
+        return readiness;
+    }
+
+    /**
+     * Records the positive verdict of a zone. It is only cached if the template is available in the zone.
+     */
+    public Readiness put(final long zoneId, final String settings, final VMTemplateVO template, final NetworkOfferingVO networkOffering,
+                         final PhysicalNetwork physicalNetwork, final boolean templateInZone) {
+        final Readiness readiness = new Readiness(template, networkOffering, physicalNetwork, templateInZone, settings,
+                System.currentTimeMillis() + _ttl);
+        if (templateInZone) {
+            _verdicts.put(zoneId, readiness);
+        } else {
+            _verdicts.remove(zoneId);
+        }
+        return readiness;
+    }
+
+    /**
+     * Drops the verdict of a zone, so the checks are run again on next use.
+     */
+    public void invalidate(final long zoneId) {
+        _verdicts.remove(zoneId);
+    }
+
+    public void invalidateAll() {
+        _verdicts.clear();
+    }
+
+    /**
+     * @return a string that differs whenever any of the given setting values differ
+     */
+    public static String settingsFingerprint(final String... values) {
+        final StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            sb.append(value == null ? 0 : value.length()).append(':').append(value == null ? "" : value).append(';');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,49 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package com.cloud.containercluster.dao;
+
+import com.cloud.capacity.Capacity;
+import com.cloud.capacity.CapacityVO;
+import com.cloud.utils.db.SearchBuilder;
+import com.cloud.utils.db.SearchCriteria;
+import org.springframework.stereotype.Component;
+
+import com.cloud.utils.db.GenericDaoBase;
+
+import java.util.List;
+
+
+@Component
+public class ContainerClusterCapacityDaoImpl extends GenericDaoBase<CapacityVO, Long> implements ContainerClusterCapacityDao {
+
+    private final SearchBuilder<CapacityVO> zoneHostCapacitySearch;
+
+    public ContainerClusterCapacityDaoImpl() {
+        zoneHostCapacitySearch = createSearchBuilder();
+        zoneHostCapacitySearch.and("dataCenterId", zoneHostCapacitySearch.entity().getDataCenterId(), SearchCriteria.Op.EQ);
+        zoneHostCapacitySearch.and("capacityType", zoneHostCapacitySearch.entity().getCapacityType(), SearchCriteria.Op.IN);
+        zoneHostCapacitySearch.done();
+    }
+
+    @Override
+    public List<CapacityVO> listHostCapacitiesByZone(long dcId) {
+        SearchCriteria<CapacityVO> sc = zoneHostCapacitySearch.create();
+        sc.setParameters("dataCenterId", dcId);
+        sc.setParameters("capacityType", Capacity.CAPACITY_TYPE_CPU, Capacity.CAPACITY_TYPE_MEMORY);
+        return listBy(sc, null);
+    }
+}
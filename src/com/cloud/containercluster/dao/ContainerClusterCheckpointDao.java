@@ -0,0 +1,40 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package com.cloud.containercluster.dao;
+
+import com.cloud.containercluster.ContainerClusterCheckpointVO;
+import com.cloud.utils.db.GenericDao;
+
+import java.util.List;
+
+public interface ContainerClusterCheckpointDao extends GenericDao<ContainerClusterCheckpointVO, Long> {
+    public List<ContainerClusterCheckpointVO> listByClusterId(long clusterId);
+    public int removeByClusterId(long clusterId);
+
+    /**
+     * Moves the checkpoints a management server recorded for a cluster over to another management server. Only one
+     * of concurrent take overs of the same cluster succeeds.
+     *
+     * @return true if the checkpoints were taken over by this call
+     */
+    public boolean takeOver(long clusterId, long fromMgmtServerId, long toMgmtServerId);
+
+    /**
+     * @return true if the management server is up, false if it is down or no longer part of the cluster
+     */
+    public boolean isManagementServerUp(long mgmtServerId);
+}
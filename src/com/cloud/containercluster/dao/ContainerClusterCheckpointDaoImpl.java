@@ -0,0 +1,91 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package com.cloud.containercluster.dao;
+
+import com.cloud.containercluster.ContainerClusterCheckpointVO;
+import com.cloud.utils.db.SearchBuilder;
+import com.cloud.utils.db.SearchCriteria;
+import com.cloud.utils.db.TransactionLegacy;
+import com.cloud.utils.exception.CloudRuntimeException;
+import org.springframework.stereotype.Component;
+
+import com.cloud.utils.db.GenericDaoBase;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+
+@Component
+public class ContainerClusterCheckpointDaoImpl extends GenericDaoBase<ContainerClusterCheckpointVO, Long> implements ContainerClusterCheckpointDao {
+
+    private static final String TAKE_OVER_SQL =
+            "UPDATE `cloud`.`sb_ccs_container_cluster_checkpoint` SET mgmt_server_id = ? WHERE cluster_id = ? AND mgmt_server_id = ?";
+    // the management server table belongs to the clustering framework, which the plugin does not depend on
+    private static final String MGMT_SERVER_UP_SQL =
+            "SELECT COUNT(*) FROM `cloud`.`mshost` WHERE msid = ? AND state = 'Up' AND removed IS NULL";
+
+    private final SearchBuilder<ContainerClusterCheckpointVO> clusterIdSearch;
+
+    public ContainerClusterCheckpointDaoImpl() {
+        clusterIdSearch = createSearchBuilder();
+        clusterIdSearch.and("clusterId", clusterIdSearch.entity().getClusterId(), SearchCriteria.Op.EQ);
+        clusterIdSearch.done();
+    }
+
+    @Override
+    public List<ContainerClusterCheckpointVO> listByClusterId(long clusterId) {
+        SearchCriteria<ContainerClusterCheckpointVO> sc = clusterIdSearch.create();
+        sc.setParameters("clusterId", clusterId);
+        return listBy(sc, null);
+    }
+
+    @Override
+    public int removeByClusterId(long clusterId) {
+        SearchCriteria<ContainerClusterCheckpointVO> sc = clusterIdSearch.create();
+        sc.setParameters("clusterId", clusterId);
+        return expunge(sc);
+    }
+
+    @Override
+    public boolean takeOver(long clusterId, long fromMgmtServerId, long toMgmtServerId) {
+        TransactionLegacy txn = TransactionLegacy.currentTxn();
+        try {
+            PreparedStatement pstmt = txn.prepareAutoCloseStatement(TAKE_OVER_SQL);
+            pstmt.setLong(1, toMgmtServerId);
+            pstmt.setLong(2, clusterId);
+            pstmt.setLong(3, fromMgmtServerId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new CloudRuntimeException("Failed to take over the checkpoints of container cluster id: " + clusterId, e);
+        }
+    }
+
+    @Override
+    public boolean isManagementServerUp(long mgmtServerId) {
+        TransactionLegacy txn = TransactionLegacy.currentTxn();
+        try {
+            PreparedStatement pstmt = txn.prepareAutoCloseStatement(MGMT_SERVER_UP_SQL);
+            pstmt.setLong(1, mgmtServerId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() && rs.getLong(1) > 0;
+        } catch (SQLException e) {
+            throw new CloudRuntimeException("Failed to look up the state of management server id: " + mgmtServerId, e);
+        }
+    }
+}
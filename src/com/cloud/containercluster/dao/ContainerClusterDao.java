@@ -21,6 +21,7 @@ import com.cloud.containercluster.ContainerClusterVO;
 import com.cloud.utils.db.GenericDao;
 import com.cloud.utils.fsm.StateDao;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ContainerClusterDao extends GenericDao<ContainerClusterVO, Long>,
@@ -29,5 +30,7 @@ public interface ContainerClusterDao extends GenericDao<ContainerClusterVO, Long
     List<ContainerClusterVO> listByAccount(long accountId);
     List<ContainerClusterVO> findContainerClustersToGarbageCollect();
     List<ContainerClusterVO> findContainerClustersInState(ContainerCluster.State state);
+    List<ContainerClusterVO> findContainerClustersInStates(ContainerCluster.State... states);
     List<ContainerClusterVO> listByNetworkId(long networkId);
+    List<ContainerClusterVO> listByIds(Collection<Long> ids);
 }
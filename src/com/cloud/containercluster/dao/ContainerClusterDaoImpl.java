@@ -19,6 +19,7 @@ package com.cloud.containercluster.dao;
 import com.cloud.utils.db.SearchBuilder;
 import com.cloud.utils.db.SearchCriteria;
 
+import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
 
 import com.cloud.containercluster.ContainerCluster.Event;
@@ -26,16 +27,29 @@ import com.cloud.containercluster.ContainerClusterVO;
 import com.cloud.utils.db.GenericDaoBase;
 import com.cloud.utils.db.TransactionLegacy;
 import com.cloud.containercluster.ContainerCluster;
+import com.cloud.utils.exception.CloudRuntimeException;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 @Component
 public class ContainerClusterDaoImpl extends GenericDaoBase<ContainerClusterVO, Long> implements ContainerClusterDao {
 
+    private static final Logger s_logger = Logger.getLogger(ContainerClusterDaoImpl.class);
+
+    // moves a cluster to the next state only if it is still in the state the transition was decided on
+    private static final String UPDATE_STATE_SQL = "UPDATE `cloud`.`sb_ccs_container_cluster` SET state = ?, update_count = update_count + 1 "
+            + "WHERE id = ? AND state = ?";
+
     private final SearchBuilder<ContainerClusterVO> AccountIdSearch;
     private final SearchBuilder<ContainerClusterVO> GarbageCollectedSearch;
     private final SearchBuilder<ContainerClusterVO> StateSearch;
+    private final SearchBuilder<ContainerClusterVO> StatesSearch;
     private final SearchBuilder<ContainerClusterVO> SameNetworkSearch;
+    private final SearchBuilder<ContainerClusterVO> IdsSearch;
 
     public ContainerClusterDaoImpl() {
         AccountIdSearch = createSearchBuilder();
@@ -51,9 +65,17 @@ public class ContainerClusterDaoImpl extends GenericDaoBase<ContainerClusterVO,
         StateSearch.and("state", StateSearch.entity().getState(), SearchCriteria.Op.EQ);
         StateSearch.done();
 
+        StatesSearch = createSearchBuilder();
+        StatesSearch.and("states", StatesSearch.entity().getState(), SearchCriteria.Op.IN);
+        StatesSearch.done();
+
         SameNetworkSearch = createSearchBuilder();
         SameNetworkSearch.and("network_id", SameNetworkSearch.entity().getNetworkId(), SearchCriteria.Op.EQ);
         SameNetworkSearch.done();
+
+        IdsSearch = createSearchBuilder();
+        IdsSearch.and("ids", IdsSearch.entity().getId(), SearchCriteria.Op.IN);
+        IdsSearch.done();
     }
 
     @Override
@@ -67,7 +89,7 @@ public class ContainerClusterDaoImpl extends GenericDaoBase<ContainerClusterVO,
     public List<ContainerClusterVO> findContainerClustersToGarbageCollect() {
         SearchCriteria<ContainerClusterVO> sc = GarbageCollectedSearch.create();
         sc.setParameters("gc", true);
-        sc.setParameters("state", ContainerCluster.State.Destroying);
+        sc.setParameters("state", ContainerCluster.State.Destroyed);
         return listBy(sc);
     }
 
@@ -78,18 +100,38 @@ public class ContainerClusterDaoImpl extends GenericDaoBase<ContainerClusterVO,
         return listBy(sc);
     }
 
+    @Override
+    public List<ContainerClusterVO> findContainerClustersInStates(ContainerCluster.State... states) {
+        SearchCriteria<ContainerClusterVO> sc = StatesSearch.create();
+        sc.setParameters("states", (Object[])states);
+        return listBy(sc);
+    }
+
     @Override
     public boolean updateState(com.cloud.containercluster.ContainerCluster.State currentState, Event event, com.cloud.containercluster.ContainerCluster.State nextState,
             ContainerCluster vo, Object data) {
-        // TODO: ensure this update is correct
         TransactionLegacy txn = TransactionLegacy.currentTxn();
-        txn.start();
-
-        ContainerClusterVO ccVo = (ContainerClusterVO)vo;
-        ccVo.setState(nextState);
-        super.update(ccVo.getId(), ccVo);
-
-        txn.commit();
+        int rows;
+        try {
+            PreparedStatement pstmt = txn.prepareAutoCloseStatement(UPDATE_STATE_SQL);
+            pstmt.setString(1, nextState.toString());
+            pstmt.setLong(2, vo.getId());
+            pstmt.setString(3, currentState.toString());
+            rows = pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new CloudRuntimeException("Failed to update the state of container cluster id: " + vo.getId(), e);
+        }
+
+        if (rows == 0) {
+            if (s_logger.isDebugEnabled()) {
+                s_logger.debug("Container cluster id: " + vo.getId() + " is no longer in state " + currentState + ", state transition on event "
+                        + event + " to " + nextState + " is dropped");
+            }
+            return false;
+        }
+        if (vo instanceof ContainerClusterVO) {
+            ((ContainerClusterVO)vo).transitionedTo(nextState);
+        }
         return true;
     }
 
@@ -98,4 +140,14 @@ public class ContainerClusterDaoImpl extends GenericDaoBase<ContainerClusterVO,
         sc.setParameters("network_id", networkId);
         return this.listBy(sc);
     }
+
+    @Override
+    public List<ContainerClusterVO> listByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        SearchCriteria<ContainerClusterVO> sc = IdsSearch.create();
+        sc.setParameters("ids", ids.toArray());
+        return listBy(sc);
+    }
 }
@@ -0,0 +1,39 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package com.cloud.containercluster.dao;
+
+import com.cloud.containercluster.ContainerClusterPooledNetworkVO;
+import com.cloud.utils.db.GenericDao;
+
+import java.util.List;
+
+public interface ContainerClusterPooledNetworkDao extends GenericDao<ContainerClusterPooledNetworkVO, Long> {
+    public List<ContainerClusterPooledNetworkVO> listByZoneId(long zoneId);
+
+    /**
+     * Takes a network out of the pool. Only one of concurrent claims of the same pooled network succeeds.
+     *
+     * @return true if the network was claimed by this call
+     */
+    public boolean claim(long id);
+
+    /**
+     * Hands a network over to another account, along with its public IP's, firewall and egress rules and virtual
+     * routers. Runs in the transaction of the caller, which also takes care of usage events and resource counts.
+     */
+    public void transferNetwork(long networkId, long accountId, long domainId);
+}
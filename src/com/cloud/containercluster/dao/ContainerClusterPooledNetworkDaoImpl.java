@@ -0,0 +1,104 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package com.cloud.containercluster.dao;
+
+import com.cloud.containercluster.ContainerClusterPooledNetworkVO;
+import com.cloud.utils.db.SearchBuilder;
+import com.cloud.utils.db.SearchCriteria;
+import com.cloud.utils.db.TransactionLegacy;
+import com.cloud.utils.exception.CloudRuntimeException;
+import org.springframework.stereotype.Component;
+
+import com.cloud.utils.db.GenericDaoBase;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+
+@Component
+public class ContainerClusterPooledNetworkDaoImpl extends GenericDaoBase<ContainerClusterPooledNetworkVO, Long> implements ContainerClusterPooledNetworkDao {
+
+    // networks have no API to change their owner, so the owner columns of the network and of the resources
+    // implemented for it are updated directly
+    private static final String TRANSFER_NETWORK_SQL =
+            "UPDATE `cloud`.`networks` SET account_id = ?, domain_id = ? WHERE id = ?";
+    private static final String TRANSFER_NETWORK_ACCOUNT_SQL =
+            "UPDATE `cloud`.`account_network_ref` SET account_id = ? WHERE network_id = ? AND is_owner = 1";
+    private static final String TRANSFER_PUBLIC_IPS_SQL =
+            "UPDATE `cloud`.`user_ip_address` SET account_id = ?, domain_id = ? WHERE network_id = ?";
+    private static final String TRANSFER_FIREWALL_RULES_SQL =
+            "UPDATE `cloud`.`firewall_rules` SET account_id = ?, domain_id = ? WHERE network_id = ?";
+    private static final String TRANSFER_ROUTERS_SQL =
+            "UPDATE `cloud`.`vm_instance` SET account_id = ?, domain_id = ? WHERE id IN "
+                    + "(SELECT router_id FROM `cloud`.`router_network_ref` WHERE network_id = ?)";
+
+    private final SearchBuilder<ContainerClusterPooledNetworkVO> zoneIdSearch;
+    private final SearchBuilder<ContainerClusterPooledNetworkVO> idSearch;
+
+    public ContainerClusterPooledNetworkDaoImpl() {
+        zoneIdSearch = createSearchBuilder();
+        zoneIdSearch.and("zoneId", zoneIdSearch.entity().getZoneId(), SearchCriteria.Op.EQ);
+        zoneIdSearch.done();
+
+        idSearch = createSearchBuilder();
+        idSearch.and("id", idSearch.entity().getId(), SearchCriteria.Op.EQ);
+        idSearch.done();
+    }
+
+    @Override
+    public List<ContainerClusterPooledNetworkVO> listByZoneId(long zoneId) {
+        SearchCriteria<ContainerClusterPooledNetworkVO> sc = zoneIdSearch.create();
+        sc.setParameters("zoneId", zoneId);
+        return listBy(sc, null);
+    }
+
+    @Override
+    public boolean claim(long id) {
+        // unlike expunge(id), the criteria based expunge reports whether this call removed the row
+        SearchCriteria<ContainerClusterPooledNetworkVO> sc = idSearch.create();
+        sc.setParameters("id", id);
+        return expunge(sc) > 0;
+    }
+
+    @Override
+    public void transferNetwork(long networkId, long accountId, long domainId) {
+        TransactionLegacy txn = TransactionLegacy.currentTxn();
+        try {
+            PreparedStatement pstmt = txn.prepareAutoCloseStatement(TRANSFER_NETWORK_SQL);
+            pstmt.setLong(1, accountId);
+            pstmt.setLong(2, domainId);
+            pstmt.setLong(3, networkId);
+            pstmt.executeUpdate();
+
+            pstmt = txn.prepareAutoCloseStatement(TRANSFER_NETWORK_ACCOUNT_SQL);
+            pstmt.setLong(1, accountId);
+            pstmt.setLong(2, networkId);
+            pstmt.executeUpdate();
+
+            for (String sql : new String[] {TRANSFER_PUBLIC_IPS_SQL, TRANSFER_FIREWALL_RULES_SQL, TRANSFER_ROUTERS_SQL}) {
+                pstmt = txn.prepareAutoCloseStatement(sql);
+                pstmt.setLong(1, accountId);
+                pstmt.setLong(2, domainId);
+                pstmt.setLong(3, networkId);
+                pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new CloudRuntimeException("Failed to transfer network id: " + networkId + " to account id: " + accountId, e);
+        }
+    }
+}
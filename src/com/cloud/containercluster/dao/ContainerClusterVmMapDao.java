@@ -16,11 +16,29 @@
 // under the License.
 package com.cloud.containercluster.dao;
 
+import com.cloud.containercluster.ContainerCluster;
 import com.cloud.containercluster.ContainerClusterVmMapVO;
 import com.cloud.utils.db.GenericDao;
+import com.cloud.vm.VirtualMachine;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ContainerClusterVmMapDao extends GenericDao<ContainerClusterVmMapVO, Long> {
     public List<ContainerClusterVmMapVO> listByClusterId(long clusterId);
+    public List<ContainerClusterVmMapVO> listByClusterIds(Collection<Long> clusterIds);
+    public List<ContainerClusterVmMapVO> listByVmIds(Collection<Long> vmIds);
+
+    /**
+     * @return states of the VM's, removed ones included, of the clusters in any of the given states by cluster id;
+     *         clusters without VM's are left out
+     */
+    public Map<Long, List<VirtualMachine.State>> listVmStatesOfClustersInStates(ContainerCluster.State... states);
+
+    /**
+     * @return states of the VM's, removed ones included, of the given clusters by cluster id; clusters without VM's
+     *         are left out
+     */
+    public Map<Long, List<VirtualMachine.State>> listVmStatesOfClusters(Collection<Long> clusterIds);
 }
@@ -16,25 +16,57 @@
 // under the License.
 package com.cloud.containercluster.dao;
 
+import com.cloud.containercluster.ContainerCluster;
 import com.cloud.containercluster.ContainerClusterVmMapVO;
 import com.cloud.utils.db.SearchBuilder;
 import com.cloud.utils.db.SearchCriteria;
 import org.springframework.stereotype.Component;
 
 import com.cloud.utils.db.GenericDaoBase;
+import com.cloud.utils.db.TransactionLegacy;
+import com.cloud.utils.exception.CloudRuntimeException;
+import com.cloud.vm.VirtualMachine;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 @Component
 public class ContainerClusterVmMapDaoImpl extends GenericDaoBase<ContainerClusterVmMapVO, Long> implements ContainerClusterVmMapDao {
 
+    // states of the VM's of all the clusters in the given states, in a single query
+    private static final String LIST_VM_STATES_OF_CLUSTERS_IN_STATES_SQL = "SELECT vm_map.cluster_id, vm.state FROM `cloud`.`sb_ccs_container_cluster_vm_map` vm_map "
+            + "INNER JOIN `cloud`.`vm_instance` vm ON vm.id = vm_map.vm_id "
+            + "INNER JOIN `cloud`.`sb_ccs_container_cluster` cluster ON cluster.id = vm_map.cluster_id "
+            + "WHERE cluster.removed IS NULL AND cluster.state IN (%s)";
+
+    // states of the VM's of the given clusters, in a single query
+    private static final String LIST_VM_STATES_OF_CLUSTERS_SQL = "SELECT vm_map.cluster_id, vm.state FROM `cloud`.`sb_ccs_container_cluster_vm_map` vm_map "
+            + "INNER JOIN `cloud`.`vm_instance` vm ON vm.id = vm_map.vm_id "
+            + "WHERE vm_map.cluster_id IN (%s)";
+
     private final SearchBuilder<ContainerClusterVmMapVO> clusterIdSearch;
+    private final SearchBuilder<ContainerClusterVmMapVO> clusterIdsSearch;
+    private final SearchBuilder<ContainerClusterVmMapVO> vmIdsSearch;
 
     public ContainerClusterVmMapDaoImpl() {
         clusterIdSearch = createSearchBuilder();
         clusterIdSearch.and("clusterId", clusterIdSearch.entity().getClusterId(), SearchCriteria.Op.EQ);
         clusterIdSearch.done();
+
+        clusterIdsSearch = createSearchBuilder();
+        clusterIdsSearch.and("clusterIds", clusterIdsSearch.entity().getClusterId(), SearchCriteria.Op.IN);
+        clusterIdsSearch.done();
+
+        vmIdsSearch = createSearchBuilder();
+        vmIdsSearch.and("vmIds", vmIdsSearch.entity().getVmId(), SearchCriteria.Op.IN);
+        vmIdsSearch.done();
     }
 
     @Override
@@ -43,4 +75,65 @@ public class ContainerClusterVmMapDaoImpl extends GenericDaoBase<ContainerCluste
         sc.setParameters("clusterId", clusterId);
         return listBy(sc, null);
     }
+
+    @Override
+    public List<ContainerClusterVmMapVO> listByClusterIds(Collection<Long> clusterIds) {
+        SearchCriteria<ContainerClusterVmMapVO> sc = clusterIdsSearch.create();
+        sc.setParameters("clusterIds", clusterIds.toArray());
+        return listBy(sc, null);
+    }
+
+    @Override
+    public List<ContainerClusterVmMapVO> listByVmIds(Collection<Long> vmIds) {
+        SearchCriteria<ContainerClusterVmMapVO> sc = vmIdsSearch.create();
+        sc.setParameters("vmIds", vmIds.toArray());
+        return listBy(sc, null);
+    }
+
+    @Override
+    public Map<Long, List<VirtualMachine.State>> listVmStatesOfClustersInStates(ContainerCluster.State... states) {
+        if (states.length == 0) {
+            return new HashMap<Long, List<VirtualMachine.State>>();
+        }
+        final List<String> stateNames = new ArrayList<String>(states.length);
+        for (ContainerCluster.State state : states) {
+            stateNames.add(state.toString());
+        }
+        return listVmStates(LIST_VM_STATES_OF_CLUSTERS_IN_STATES_SQL, stateNames);
+    }
+
+    @Override
+    public Map<Long, List<VirtualMachine.State>> listVmStatesOfClusters(Collection<Long> clusterIds) {
+        if (clusterIds.isEmpty()) {
+            return new HashMap<Long, List<VirtualMachine.State>>();
+        }
+        return listVmStates(LIST_VM_STATES_OF_CLUSTERS_SQL, new ArrayList<Object>(clusterIds));
+    }
+
+    // runs one of the VM state queries with its IN list bound to the given values, grouping the states by cluster id
+    private Map<Long, List<VirtualMachine.State>> listVmStates(String sql, List<?> inValues) {
+        final Map<Long, List<VirtualMachine.State>> vmStates = new HashMap<Long, List<VirtualMachine.State>>();
+        final StringBuilder placeholders = new StringBuilder("?");
+        for (int i = 1; i < inValues.size(); i++) {
+            placeholders.append(", ?");
+        }
+        TransactionLegacy txn = TransactionLegacy.currentTxn();
+        try {
+            PreparedStatement pstmt = txn.prepareAutoCloseStatement(String.format(sql, placeholders));
+            for (int i = 0; i < inValues.size(); i++) {
+                pstmt.setObject(i + 1, inValues.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                final long clusterId = rs.getLong(1);
+                if (!vmStates.containsKey(clusterId)) {
+                    vmStates.put(clusterId, new ArrayList<VirtualMachine.State>());
+                }
+                vmStates.get(clusterId).add(VirtualMachine.State.valueOf(rs.getString(2)));
+            }
+        } catch (SQLException e) {
+            throw new CloudRuntimeException("Failed to list the VM states of container clusters", e);
+        }
+        return vmStates;
+    }
 }
@@ -0,0 +1,38 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package com.cloud.containercluster.dao;
+
+import com.cloud.containercluster.ContainerClusterWarmPoolVmVO;
+import com.cloud.utils.db.GenericDao;
+
+import java.util.List;
+
+public interface ContainerClusterWarmPoolVmDao extends GenericDao<ContainerClusterWarmPoolVmVO, Long> {
+    public List<ContainerClusterWarmPoolVmVO> listByZoneAndServiceOffering(long zoneId, long serviceOfferingId);
+
+    /**
+     * @return number of VM's in the warm pool of the given zone and service offering, without loading them
+     */
+    public int countByZoneAndServiceOffering(long zoneId, long serviceOfferingId);
+
+    /**
+     * Takes a VM out of the pool. Only one of concurrent claims of the same pooled VM succeeds.
+     *
+     * @return true if the VM was claimed by this call
+     */
+    public boolean claim(long id);
+}
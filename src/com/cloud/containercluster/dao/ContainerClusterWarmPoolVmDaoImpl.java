@@ -0,0 +1,69 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package com.cloud.containercluster.dao;
+
+import com.cloud.containercluster.ContainerClusterWarmPoolVmVO;
+import com.cloud.utils.db.SearchBuilder;
+import com.cloud.utils.db.SearchCriteria;
+import org.springframework.stereotype.Component;
+
+import com.cloud.utils.db.GenericDaoBase;
+
+import java.util.List;
+
+
+@Component
+public class ContainerClusterWarmPoolVmDaoImpl extends GenericDaoBase<ContainerClusterWarmPoolVmVO, Long> implements ContainerClusterWarmPoolVmDao {
+
+    private final SearchBuilder<ContainerClusterWarmPoolVmVO> zoneOfferingSearch;
+    private final SearchBuilder<ContainerClusterWarmPoolVmVO> idSearch;
+
+    public ContainerClusterWarmPoolVmDaoImpl() {
+        zoneOfferingSearch = createSearchBuilder();
+        zoneOfferingSearch.and("zoneId", zoneOfferingSearch.entity().getZoneId(), SearchCriteria.Op.EQ);
+        zoneOfferingSearch.and("serviceOfferingId", zoneOfferingSearch.entity().getServiceOfferingId(), SearchCriteria.Op.EQ);
+        zoneOfferingSearch.done();
+
+        idSearch = createSearchBuilder();
+        idSearch.and("id", idSearch.entity().getId(), SearchCriteria.Op.EQ);
+        idSearch.done();
+    }
+
+    @Override
+    public List<ContainerClusterWarmPoolVmVO> listByZoneAndServiceOffering(long zoneId, long serviceOfferingId) {
+        SearchCriteria<ContainerClusterWarmPoolVmVO> sc = zoneOfferingSearch.create();
+        sc.setParameters("zoneId", zoneId);
+        sc.setParameters("serviceOfferingId", serviceOfferingId);
+        return listBy(sc, null);
+    }
+
+    @Override
+    public int countByZoneAndServiceOffering(long zoneId, long serviceOfferingId) {
+        SearchCriteria<ContainerClusterWarmPoolVmVO> sc = zoneOfferingSearch.create();
+        sc.setParameters("zoneId", zoneId);
+        sc.setParameters("serviceOfferingId", serviceOfferingId);
+        return getCount(sc);
+    }
+
+    @Override
+    public boolean claim(long id) {
+        // unlike expunge(id), the criteria based expunge reports whether this call removed the row
+        SearchCriteria<ContainerClusterWarmPoolVmVO> sc = idSearch.create();
+        sc.setParameters("id", id);
+        return expunge(sc) > 0;
+    }
+}
@@ -21,4 +21,7 @@ public class CcsApiConstants {
     public static final String DOCKER_REGISTRY_PASSWORD = "dockerregistrypassword";
     public static final String DOCKER_REGISTRY_URL = "dockerregistryurl";
     public static final String DOCKER_REGISTRY_EMAIL = "dockerregistryemail";
+    public static final String AVAILABLE = "available";
+    public static final String HITS = "hits";
+    public static final String MISSES = "misses";
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cloudstack.api.command.user.containercluster;
+
+import java.util.List;
+
+import com.cloud.containercluster.CcsEventTypes;
+import com.cloud.containercluster.ContainerCluster;
+import com.cloud.containercluster.ContainerClusterService;
+import org.apache.cloudstack.acl.RoleType;
+import org.apache.cloudstack.api.APICommand;
+import org.apache.cloudstack.api.ApiConstants;
+import org.apache.cloudstack.api.ApiErrorCode;
+import org.apache.cloudstack.api.BaseAsyncCmd;
+import org.apache.cloudstack.api.Parameter;
+import org.apache.cloudstack.api.ResponseObject;
+import org.apache.cloudstack.api.ServerApiException;
+import org.apache.cloudstack.api.response.ContainerClusterActionResponse;
+import org.apache.cloudstack.api.response.ContainerClusterResponse;
+import org.apache.cloudstack.api.response.ListResponse;
+import org.apache.cloudstack.context.CallContext;
+import org.apache.log4j.Logger;
+
+import javax.inject.Inject;
+
+@APICommand(name = DeleteContainerClustersCmd.APINAME, description = "Deletes a batch of container clusters",
+        responseObject = ContainerClusterActionResponse.class,
+        responseView = ResponseObject.ResponseView.Restricted,
+        entityType = {ContainerCluster.class},
+        requestHasSensitiveInfo = false,
+        responseHasSensitiveInfo = false,
+        authorized = {RoleType.Admin, RoleType.ResourceAdmin, RoleType.DomainAdmin, RoleType.User})
+public class DeleteContainerClustersCmd extends BaseAsyncCmd {
+
+    public static final Logger s_logger = Logger.getLogger(DeleteContainerClustersCmd.class.getName());
+
+    public static final String APINAME = "deleteContainerClusters";
+
+    @Inject
+    public ContainerClusterService containerClusterService;
+
+    /////////////////////////////////////////////////////
+    //////////////// API parameters /////////////////////
+    /////////////////////////////////////////////////////
+    @Parameter(name = ApiConstants.IDS, type = CommandType.LIST,
+            collectionType = CommandType.UUID,
+            entityType = ContainerClusterResponse.class,
+            required = true,
+            description = "the IDs of the container clusters to delete")
+    private List<Long> ids;
+
+    /////////////////////////////////////////////////////
+    /////////////////// Accessors ///////////////////////
+    /////////////////////////////////////////////////////
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    @Override
+    public String getEventType() {
+        return CcsEventTypes.EVENT_CONTAINER_CLUSTER_DELETE;
+    }
+
+    @Override
+    public String getEventDescription() {
+        return "Deleting container clusters ids: " + getIds();
+    }
+
+    @Override
+    public String getCommandName() {
+        return APINAME.toLowerCase() + "response";
+    }
+
+    @Override
+    public long getEntityOwnerId() {
+        return CallContext.current().getCallingAccount().getId();
+    }
+
+    /////////////////////////////////////////////////////
+    /////////////// API Implementation///////////////////
+    /////////////////////////////////////////////////////
+
+    @Override
+    public void execute() throws ServerApiException {
+        if (getIds() == null || getIds().isEmpty()) {
+            throw new ServerApiException(ApiErrorCode.PARAM_ERROR, "No container cluster IDs provided");
+        }
+        final ListResponse<ContainerClusterActionResponse> response = containerClusterService.deleteContainerClusters(getIds());
+        response.setResponseName(getCommandName());
+        setResponseObject(response);
+    }
+
+}
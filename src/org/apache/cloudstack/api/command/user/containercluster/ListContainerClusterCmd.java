@@ -18,7 +18,10 @@ package org.apache.cloudstack.api.command.user.containercluster;
 import javax.inject.Inject;
 
 import org.apache.cloudstack.acl.RoleType;
+import org.apache.cloudstack.api.response.AccountResponse;
 import org.apache.cloudstack.api.response.ContainerClusterResponse;
+import org.apache.cloudstack.api.response.NetworkResponse;
+import org.apache.cloudstack.api.response.ZoneResponse;
 import org.apache.log4j.Logger;
 
 import org.apache.cloudstack.api.APICommand;
@@ -42,6 +45,8 @@ public class ListContainerClusterCmd extends BaseListCmd {
 
     private static final String s_name = "listcontainerclusterresponse";
 
+    private static final String AFTER_ID = "afterid";
+
     /////////////////////////////////////////////////////
     //////////////// API parameters /////////////////////
     /////////////////////////////////////////////////////
@@ -54,9 +59,26 @@ public class ListContainerClusterCmd extends BaseListCmd {
     private String state;
 
     @Parameter(name = ApiConstants.NAME, type = CommandType.STRING, description = "name of the container cluster" +
-            " (a substring match is made against the parameter value, data for all matching container clusters will be returned)")
+            " (a prefix match is made against the parameter value, data for all matching container clusters will be returned)")
     private String name;
 
+    @Parameter(name = ApiConstants.ZONE_ID, type = CommandType.UUID, entityType = ZoneResponse.class,
+            description = "list container clusters in the zone")
+    private Long zoneId;
+
+    @Parameter(name = ApiConstants.ACCOUNT_ID, type = CommandType.UUID, entityType = AccountResponse.class,
+            description = "list container clusters owned by the account")
+    private Long accountId;
+
+    @Parameter(name = ApiConstants.NETWORK_ID, type = CommandType.UUID, entityType = NetworkResponse.class,
+            description = "list container clusters in the network")
+    private Long networkId;
+
+    @Parameter(name = AFTER_ID, type = CommandType.UUID, entityType = ContainerClusterResponse.class,
+            description = "list the container clusters that come after this container cluster, in place of page." +
+            " Pass the ID of the last container cluster of the previous page to get the next page")
+    private Long afterId;
+
     /////////////////////////////////////////////////////
     /////////////////// Accessors ///////////////////////
     /////////////////////////////////////////////////////
@@ -73,6 +95,22 @@ public class ListContainerClusterCmd extends BaseListCmd {
         return name;
     }
 
+    public Long getZoneId() {
+        return zoneId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Long getNetworkId() {
+        return networkId;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
     @Inject
     public ContainerClusterService _containerClusterService;
 
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContainerClusterApiClientTest {
+
+    private static final String PODS = "{\"kind\":\"PodList\",\"metadata\":{\"resourceVersion\":\"12\"},\"items\":["
+            + "{\"metadata\":{\"name\":\"kube-dns-v20-abcde\",\"labels\":{\"k8s-app\":\"kube-dns\"}},\"spec\":{\"containers\":[]},"
+            + "\"status\":{\"phase\":\"Running\"}},"
+            + "{\"metadata\":{\"name\":\"kubernetes-dashboard-1234\"},\"status\":{\"phase\":\"Pending\",\"conditions\":[{\"type\":\"Ready\"}]}}]}";
+
+    private ServerSocket server;
+    private Thread serverThread;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private ContainerClusterApiClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ServerSocket(0, 5, InetAddress.getLoopbackAddress());
+        serverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+        client = new ContainerClusterApiClient(InetAddress.getLoopbackAddress().getHostAddress(), server.getLocalPort(),
+                "admin", "password", PlainConnectionSocketFactory.getSocketFactory(), 5000, 5000, 2, 60000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    // serves the pod list with chunked encoding, keeping each connection alive
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                connections.incrementAndGet();
+                final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                final OutputStream out = socket.getOutputStream();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        continue;
+                    }
+                    requests.incrementAndGet();
+                    final byte[] body = PODS.getBytes(StandardCharsets.UTF_8);
+                    final int split = body.length / 2;
+                    final StringBuilder response = new StringBuilder("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nTransfer-Encoding: chunked\r\n\r\n");
+                    response.append(Integer.toHexString(split)).append("\r\n").append(PODS, 0, split).append("\r\n");
+                    response.append(Integer.toHexString(body.length - split)).append("\r\n").append(PODS.substring(split)).append("\r\n");
+                    response.append("0\r\n\r\n");
+                    out.write(response.toString().getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (Exception e) {
+                // server closed
+            }
+        }
+    }
+
+    @Test
+    public void runningPodIsFound() throws Exception {
+        Assert.assertTrue(client.isKubeSystemPodRunning("kube-dns"));
+    }
+
+    @Test
+    public void pendingPodIsNotRunning() throws Exception {
+        Assert.assertFalse(client.isKubeSystemPodRunning("kubernetes-dashboard"));
+        Assert.assertFalse(client.isKubeSystemPodRunning("heapster"));
+    }
+
+    @Test
+    public void connectionIsKeptAlive() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            client.isKubeSystemPodRunning("kube-dns");
+        }
+        Assert.assertEquals(3, requests.get());
+        Assert.assertEquals(1, connections.get());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContainerClusterCloudConfigTemplateTest {
+
+    @Test
+    public void checkMultiLineValuesAreIndentedToThePlaceholder() {
+        ContainerClusterCloudConfigTemplate template = ContainerClusterCloudConfigTemplate.compile(
+                "content: |\n      {{ cert }}\nauth: {{ user }},{{ password }}\n");
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("cert", "-----BEGIN-----\nabc\n-----END-----");
+        values.put("user", "admin");
+        values.put("password", "secret");
+
+        Assert.assertEquals("content: |\n      -----BEGIN-----\n      abc\n      -----END-----\nauth: admin,secret\n",
+                template.render(values));
+    }
+
+    @Test
+    public void checkOptionalSectionsAreRenderedOnlyWhenAskedFor() {
+        ContainerClusterCloudConfigTemplate template = ContainerClusterCloudConfigTemplate.compile(
+                "write-files:\n{{# docker }}\n  - path: /.docker/config.json\n    url: {{ docker.url }}\n{{/ docker }}\n  - path: /opt/bin/setup\n");
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("docker.url", "registry");
+
+        Assert.assertEquals("write-files:\n  - path: /opt/bin/setup\n", template.render(values));
+        Assert.assertEquals("write-files:\n  - path: /.docker/config.json\n    url: registry\n  - path: /opt/bin/setup\n",
+                template.render(values, Collections.singleton("docker")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkMissingValueIsRejected() {
+        ContainerClusterCloudConfigTemplate.compile("join {{ k8s_master.default_ip }}:6443").render(new HashMap<String, String>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkUnbalancedSectionsAreRejected() {
+        ContainerClusterCloudConfigTemplate.compile("{{# docker }}\nurl\n{{/ registry }}\n");
+    }
+
+    @Test
+    public void checkCachedTemplateIsCompiledAgainWhenFileChanges() throws Exception {
+        File file = File.createTempFile("k8s-node", ".yml");
+        try {
+            Files.write(file.toPath(), "ip: {{ ip }}".getBytes(StandardCharsets.UTF_8));
+            ContainerClusterCloudConfigTemplate.Cache cache = new ContainerClusterCloudConfigTemplate.Cache();
+            ContainerClusterCloudConfigTemplate template = cache.get(file.getPath());
+            Assert.assertSame(template, cache.get(file.getPath()));
+
+            Files.write(file.toPath(), "address: {{ ip }}".getBytes(StandardCharsets.UTF_8));
+            Assert.assertTrue(file.setLastModified(file.lastModified() + 2000));
+            Assert.assertEquals("address: 10.1.1.1", cache.get(file.getPath()).render(Collections.singletonMap("ip", "10.1.1.1")));
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.security.KeyPair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContainerClusterKeyPairPoolTest {
+
+    @Test
+    public void checkRefillFillsThePool() {
+        ContainerClusterKeyPairPool pool = new ContainerClusterKeyPairPool(2, 1024);
+        Assert.assertEquals(2, pool.refill());
+        Assert.assertEquals(2, pool.size());
+        Assert.assertEquals(0, pool.refill());
+    }
+
+    @Test
+    public void checkKeyPairsAreTakenFromThePool() throws Exception {
+        ContainerClusterKeyPairPool pool = new ContainerClusterKeyPairPool(2, 1024);
+        pool.refill();
+
+        KeyPair first = pool.take();
+        KeyPair second = pool.take();
+        Assert.assertEquals(0, pool.size());
+        Assert.assertNotEquals(first.getPublic(), second.getPublic());
+    }
+
+    @Test
+    public void checkKeyPairIsGeneratedWhenThePoolIsEmpty() throws Exception {
+        ContainerClusterKeyPairPool pool = new ContainerClusterKeyPairPool(2, 1024);
+        KeyPair keyPair = pool.take();
+        Assert.assertNotNull(keyPair.getPrivate());
+        Assert.assertEquals("RSA", keyPair.getPublic().getAlgorithm());
+    }
+}
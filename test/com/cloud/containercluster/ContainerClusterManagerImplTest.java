@@ -15,26 +15,38 @@
  */
 package com.cloud.containercluster;
 
+import com.cloud.capacity.Capacity;
 import com.cloud.capacity.CapacityManager;
+import com.cloud.capacity.CapacityVO;
+import com.cloud.containercluster.dao.ContainerClusterCapacityDao;
+import com.cloud.containercluster.ContainerClusterCheckpointVO.Step;
+import com.cloud.containercluster.dao.ContainerClusterCheckpointDao;
 import com.cloud.containercluster.dao.ContainerClusterDao;
 import com.cloud.containercluster.dao.ContainerClusterDetailsDao;
+import com.cloud.containercluster.dao.ContainerClusterPooledNetworkDao;
 import com.cloud.containercluster.dao.ContainerClusterVmMapDao;
+import com.cloud.containercluster.dao.ContainerClusterWarmPoolVmDao;
 import com.cloud.dc.ClusterDetailsDao;
-import com.cloud.dc.ClusterDetailsVO;
-import com.cloud.dc.ClusterVO;
+import com.cloud.configuration.Resource.ResourceType;
+import com.cloud.dc.DataCenter;
 import com.cloud.dc.DataCenter.NetworkType;
 import com.cloud.dc.DataCenterVO;
 import com.cloud.dc.dao.ClusterDao;
 import com.cloud.dc.dao.DataCenterDao;
 import com.cloud.deploy.DeployDestination;
 import com.cloud.exception.InsufficientServerCapacityException;
+import com.cloud.exception.ManagementServerException;
 import com.cloud.host.Host.Type;
 import com.cloud.host.HostVO;
 import com.cloud.host.Status;
+import com.cloud.event.EventTypes;
+import com.cloud.network.Network;
 import com.cloud.network.NetworkModel;
 import com.cloud.network.NetworkService;
 import com.cloud.network.dao.IPAddressDao;
+import com.cloud.network.dao.IPAddressVO;
 import com.cloud.network.dao.NetworkDao;
+import com.cloud.network.dao.NetworkVO;
 import com.cloud.network.dao.PhysicalNetworkDao;
 import com.cloud.network.firewall.FirewallService;
 import com.cloud.network.rules.RulesService;
@@ -46,9 +58,16 @@ import com.cloud.service.ServiceOfferingVO;
 import com.cloud.service.dao.ServiceOfferingDao;
 import com.cloud.storage.Storage.StoragePoolType;
 import com.cloud.storage.dao.VMTemplateDao;
+import com.cloud.user.Account;
 import com.cloud.user.AccountManager;
+import com.cloud.user.ResourceLimitService;
 import com.cloud.user.dao.AccountDao;
 import com.cloud.user.dao.SSHKeyPairDao;
+import com.cloud.user.dao.UserDao;
+import com.cloud.user.UserVO;
+import com.cloud.utils.exception.CloudRuntimeException;
+import com.cloud.utils.fsm.StateMachine2;
+import com.cloud.uservm.UserVm;
 import com.cloud.vm.UserVmService;
 import com.cloud.vm.VirtualMachine;
 import com.cloud.vm.dao.UserVmDao;
@@ -62,17 +81,32 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import static org.mockito.Matchers.anyBoolean;
-import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -143,6 +177,18 @@ public class ContainerClusterManagerImplTest {
     public ClusterDetailsDao clusterDetailsDao;
     @Mock
     public ClusterDao clusterDao;
+    @Mock
+    public ContainerClusterCapacityDao ccsCapacityDao;
+    @Mock
+    public ContainerClusterCheckpointDao checkpointDao;
+    @Mock
+    public ContainerClusterWarmPoolVmDao warmPoolVmDao;
+    @Mock
+    public ContainerClusterPooledNetworkDao pooledNetworkDao;
+    @Mock
+    public ResourceLimitService resourceLimitMgr;
+    @Mock
+    public UserDao userDao;
 
     @Before
     public void setUp() {
@@ -170,6 +216,15 @@ public class ContainerClusterManagerImplTest {
         ccManager._resourceMgr = resourceMgr;
         ccManager._clusterDetailsDao = clusterDetailsDao;
         ccManager._clusterDao = clusterDao;
+        ccManager._ccsCapacityDao = ccsCapacityDao;
+        ccManager._checkpointDao = checkpointDao;
+        ccManager._warmPoolVmDao = warmPoolVmDao;
+        ccManager._pooledNetworkDao = pooledNetworkDao;
+        ccManager._resourceLimitMgr = resourceLimitMgr;
+        ccManager._userDao = userDao;
+        ccManager._networkDao = networkDao;
+        ccManager._publicIpAddressDao = publicIpAddressDao;
+        ccManager._settings = new ContainerClusterSettings(globalConfigDao, null, 0);
     }
 
     @Test(expected = InsufficientServerCapacityException.class)
@@ -182,17 +237,14 @@ public class ContainerClusterManagerImplTest {
         when(srvOfferingDao.findById(1L)).thenReturn(offering);
 
         List<HostVO> hl = new ArrayList<HostVO>();
-        when(resourceMgr.listAllHostsInAllZonesByType(Type.Routing)).thenReturn(hl);
-
-        ClusterVO cluster = new ClusterVO(1L);
-        when(clusterDao.findById(1L)).thenReturn(cluster);
+        when(resourceMgr.listAllHostsInOneZoneByType(Type.Routing, 1)).thenReturn(hl);
 
-        ClusterDetailsVO cluster_detail_cpu = new ClusterDetailsVO(1L, "cpuOvercommitRatio", "1");
-        when(clusterDetailsDao.findDetail(cluster.getId(), "cpuOvercommitRatio")).thenReturn(cluster_detail_cpu);
-        ClusterDetailsVO cluster_detail_ram = new ClusterDetailsVO(1L, "memoryOvercommitRatio", "1");
-        when(clusterDetailsDao.findDetail(cluster.getId(), "memoryOvercommitRatio")).thenReturn(cluster_detail_ram);
+        Map<String, String> clusterDetails = new HashMap<String, String>();
+        clusterDetails.put("cpuOvercommitRatio", "1");
+        clusterDetails.put("memoryOvercommitRatio", "1");
+        when(clusterDetailsDao.findDetails(1L)).thenReturn(clusterDetails);
 
-        when(capacityMgr.checkIfHostHasCapacity(anyLong(), anyInt(), anyInt(), anyBoolean(), anyFloat(), anyFloat(), anyBoolean())).thenReturn(true);
+        when(ccsCapacityDao.listHostCapacitiesByZone(1L)).thenReturn(new ArrayList<CapacityVO>());
 
         ccManager.plan(1, 1);
     }
@@ -213,15 +265,15 @@ public class ContainerClusterManagerImplTest {
         h1.setUuid("uuid-test");
         hl.add(h1);
         when(resourceMgr.listAllHostsInOneZoneByType(Type.Routing, 1)).thenReturn(hl);
-        ClusterVO cluster = new ClusterVO(1L);
-        when(clusterDao.findById(1L)).thenReturn(cluster);
+        Map<String, String> clusterDetails = new HashMap<String, String>();
+        clusterDetails.put("cpuOvercommitRatio", "1");
+        clusterDetails.put("memoryOvercommitRatio", "1");
+        when(clusterDetailsDao.findDetails(1L)).thenReturn(clusterDetails);
 
-        ClusterDetailsVO cluster_detail_cpu = new ClusterDetailsVO(1L, "cpuOvercommitRatio", "1");
-        when(clusterDetailsDao.findDetail(cluster.getId(), "cpuOvercommitRatio")).thenReturn(cluster_detail_cpu);
-        ClusterDetailsVO cluster_detail_ram = new ClusterDetailsVO(1L, "memoryOvercommitRatio", "1");
-        when(clusterDetailsDao.findDetail(cluster.getId(), "memoryOvercommitRatio")).thenReturn(cluster_detail_ram);
-
-        when(capacityMgr.checkIfHostHasCapacity(anyLong(), anyInt(), anyInt(), anyBoolean(), anyFloat(), anyFloat(), anyBoolean())).thenReturn(true);
+        List<CapacityVO> capacities = new ArrayList<CapacityVO>();
+        capacities.add(new CapacityVO(1L, 1L, 1L, 1L, 0, 2000, Capacity.CAPACITY_TYPE_CPU));
+        capacities.add(new CapacityVO(1L, 1L, 1L, 1L, 0, 1024L * 1024L * 1024L, Capacity.CAPACITY_TYPE_MEMORY));
+        when(ccsCapacityDao.listHostCapacitiesByZone(1L)).thenReturn(capacities);
         when(dcDao.findById(1L)).thenReturn(new DataCenterVO(1L, "test-dc", "test-desc", "", "", "", "", "", "", 1L, NetworkType.Advanced, "", ""));
 
         DeployDestination dd = ccManager.plan(1, 1);
@@ -244,20 +296,275 @@ public class ContainerClusterManagerImplTest {
         h1.setClusterId(1L);
         h1.setUuid("uuid-test");
         hl.add(h1);
-        when(resourceMgr.listAllHostsInAllZonesByType(Type.Routing)).thenReturn(hl);
-
-        ClusterVO cluster = new ClusterVO(1L);
-        when(clusterDao.findById(1L)).thenReturn(cluster);
+        when(resourceMgr.listAllHostsInOneZoneByType(Type.Routing, 1)).thenReturn(hl);
 
-        ClusterDetailsVO cluster_detail_cpu = new ClusterDetailsVO(1L, "cpuOvercommitRatio", "1");
-        when(clusterDetailsDao.findDetail(cluster.getId(), "cpuOvercommitRatio")).thenReturn(cluster_detail_cpu);
-        ClusterDetailsVO cluster_detail_ram = new ClusterDetailsVO(1L, "memoryOvercommitRatio", "1");
-        when(clusterDetailsDao.findDetail(cluster.getId(), "memoryOvercommitRatio")).thenReturn(cluster_detail_ram);
+        Map<String, String> clusterDetails = new HashMap<String, String>();
+        clusterDetails.put("cpuOvercommitRatio", "1");
+        clusterDetails.put("memoryOvercommitRatio", "1");
+        when(clusterDetailsDao.findDetails(1L)).thenReturn(clusterDetails);
 
-        when(capacityMgr.checkIfHostHasCapacity(anyLong(), anyInt(), anyInt(), anyBoolean(), anyFloat(), anyFloat(), anyBoolean())).thenReturn(false);
+        List<CapacityVO> capacities = new ArrayList<CapacityVO>();
+        capacities.add(new CapacityVO(1L, 1L, 1L, 1L, 0, 1000, Capacity.CAPACITY_TYPE_CPU));
+        capacities.add(new CapacityVO(1L, 1L, 1L, 1L, 512L * 1024L * 1024L, 1024L * 1024L * 1024L, Capacity.CAPACITY_TYPE_MEMORY));
+        when(ccsCapacityDao.listHostCapacitiesByZone(1L)).thenReturn(capacities);
         when(dcDao.findById(1L)).thenReturn(new DataCenterVO(1L, "test-dc", "test-desc", "", "", "", "", "", "", 1L, NetworkType.Advanced, "", ""));
 
         DeployDestination dd = ccManager.plan(1, 1);
     }
 
+    @Test
+    public void checkPlanPlacementWithSpreadAndPackStrategies() throws InsufficientServerCapacityException {
+        ServiceOfferingVO offering = new ServiceOfferingVO("test", 1, 500, 512, 0, 0, true, "test", null, false, true, "", true, VirtualMachine.Type.User, true);
+
+        List<HostVO> hl = new ArrayList<HostVO>();
+        List<CapacityVO> capacities = new ArrayList<CapacityVO>();
+        for (long id = 1L; id <= 2L; id++) {
+            HostVO h = new HostVO(id, "testHost" + id, Type.Routing, "", "", "", "", "", "", "", "", "", "", "", "", "", Status.Up, "1.0", "", new Date(), 1L, 1L, 1L, 1L, "", 1L,
+                    StoragePoolType.Filesystem);
+            h.setClusterId(1L);
+            hl.add(h);
+            capacities.add(new CapacityVO(id, 1L, 1L, 1L, 0, 4000, Capacity.CAPACITY_TYPE_CPU));
+            capacities.add(new CapacityVO(id, 1L, 1L, 1L, 0, 4096L * 1024L * 1024L, Capacity.CAPACITY_TYPE_MEMORY));
+        }
+        when(resourceMgr.listAllHostsInOneZoneByType(Type.Routing, 1)).thenReturn(hl);
+        when(clusterDetailsDao.findDetails(1L)).thenReturn(new HashMap<String, String>());
+        when(ccsCapacityDao.listHostCapacitiesByZone(1L)).thenReturn(capacities);
+
+        when(globalConfigDao.getValue(CcsConfig.ContainerClusterPlacementStrategy.key())).thenReturn("spread");
+        ContainerClusterPlacement placement = ccManager.planPlacement(null, 1, 1, offering);
+        Assert.assertEquals(2, placement.getVmCount());
+        Assert.assertNotEquals(placement.getMasterHostId(), placement.getNodeHostId(1));
+
+        when(globalConfigDao.getValue(CcsConfig.ContainerClusterPlacementStrategy.key())).thenReturn("pack");
+        placement = ccManager.planPlacement(null, 1, 1, offering);
+        Assert.assertEquals(placement.getMasterHostId(), placement.getNodeHostId(1));
+    }
+
+    @Test
+    public void checkPlanPlacementHoldsCapacityForCluster() throws InsufficientServerCapacityException {
+        ServiceOfferingVO offering = new ServiceOfferingVO("test", 1, 500, 512, 0, 0, true, "test", null, false, true, "", true, VirtualMachine.Type.User, true);
+
+        List<HostVO> hl = new ArrayList<HostVO>();
+        HostVO h1 = new HostVO(1L, "testHost1", Type.Routing, "", "", "", "", "", "", "", "", "", "", "", "", "", Status.Up, "1.0", "", new Date(), 1L, 1L, 1L, 1L, "", 1L,
+                StoragePoolType.Filesystem);
+        h1.setClusterId(1L);
+        hl.add(h1);
+        when(resourceMgr.listAllHostsInOneZoneByType(Type.Routing, 1)).thenReturn(hl);
+        when(clusterDetailsDao.findDetails(1L)).thenReturn(new HashMap<String, String>());
+        List<CapacityVO> capacities = new ArrayList<CapacityVO>();
+        capacities.add(new CapacityVO(1L, 1L, 1L, 1L, 0, 3000, Capacity.CAPACITY_TYPE_CPU));
+        capacities.add(new CapacityVO(1L, 1L, 1L, 1L, 0, 1536L * 1024L * 1024L, Capacity.CAPACITY_TYPE_MEMORY));
+        when(ccsCapacityDao.listHostCapacitiesByZone(1L)).thenReturn(capacities);
+
+        ContainerClusterPlacement placement = ccManager.planPlacement(10L, 1, 1, offering);
+        try {
+            ccManager.planPlacement(11L, 1, 1, offering);
+            Assert.fail("capacity held for the first cluster was planned again");
+        } catch (InsufficientServerCapacityException e) {
+            // expected
+        }
+
+        ccManager._capacityLedger.release(placement.getMasterReservation());
+        ccManager._capacityLedger.release(placement.getNodeReservation(1));
+        Assert.assertNotNull(ccManager.planPlacement(11L, 1, 1, offering));
+    }
+
+    @Test
+    public void checkVmStateChangesScheduleOneReconciliation() {
+        doNothing().when(ccManager).scheduleStateReconciliation();
+        ContainerClusterManagerImpl.ContainerClusterVmStateListener listener = ccManager.new ContainerClusterVmStateListener();
+        StateMachine2.Transition<VirtualMachine.State, VirtualMachine.Event> stopped = new StateMachine2.Transition<VirtualMachine.State, VirtualMachine.Event>(
+                VirtualMachine.State.Running, VirtualMachine.Event.FollowAgentPowerOffReport, VirtualMachine.State.Stopped, null);
+
+        VirtualMachine systemVm = mock(VirtualMachine.class);
+        when(systemVm.getType()).thenReturn(VirtualMachine.Type.DomainRouter);
+        listener.postStateTransitionEvent(stopped, systemVm, true, null);
+        VirtualMachine master = mock(VirtualMachine.class);
+        when(master.getType()).thenReturn(VirtualMachine.Type.User);
+        when(master.getId()).thenReturn(1L);
+        listener.postStateTransitionEvent(stopped, master, false, null);
+        Assert.assertTrue(ccManager._changedVmIds.isEmpty());
+
+        listener.postStateTransitionEvent(stopped, master, true, null);
+        VirtualMachine node = mock(VirtualMachine.class);
+        when(node.getType()).thenReturn(VirtualMachine.Type.User);
+        when(node.getId()).thenReturn(2L);
+        listener.postStateTransitionEvent(stopped, node, true, null);
+
+        Assert.assertEquals(2, ccManager._changedVmIds.size());
+        verify(ccManager, times(1)).scheduleStateReconciliation();
+    }
+
+    @Test
+    public void checkClusterDesiredStateIsEvaluatedFromVmStates() {
+        ContainerClusterVO containerCluster = new ContainerClusterVO();
+        containerCluster.setNodeCount(1);
+
+        Assert.assertTrue(ccManager.isClusterInDesiredState(containerCluster, VirtualMachine.State.Running,
+                Arrays.asList(VirtualMachine.State.Running, VirtualMachine.State.Running)));
+        Assert.assertFalse(ccManager.isClusterInDesiredState(containerCluster, VirtualMachine.State.Running,
+                Arrays.asList(VirtualMachine.State.Running, VirtualMachine.State.Stopped)));
+        Assert.assertFalse(ccManager.isClusterInDesiredState(containerCluster, VirtualMachine.State.Running,
+                Arrays.asList(VirtualMachine.State.Running)));
+    }
+
+    @Test
+    public void checkReconcileMovesFaultyClustersToAlertAndRecoveredClustersToRunning() {
+        doReturn(true).when(ccManager).stateTransitTo(any(ContainerClusterVO.class), any(ContainerCluster.Event.class));
+        ContainerClusterVO running = new ContainerClusterVO();
+        running.setNodeCount(1);
+        running.setState(ContainerCluster.State.Running);
+        ContainerClusterVO alert = new ContainerClusterVO();
+        alert.setNodeCount(1);
+        alert.setState(ContainerCluster.State.Alert);
+        ContainerClusterVO starting = new ContainerClusterVO();
+        starting.setNodeCount(1);
+        starting.setState(ContainerCluster.State.Starting);
+
+        ccManager.reconcileClusterState(running, Arrays.asList(VirtualMachine.State.Running, VirtualMachine.State.Stopped));
+        ccManager.reconcileClusterState(alert, Arrays.asList(VirtualMachine.State.Running, VirtualMachine.State.Running));
+        ccManager.reconcileClusterState(starting, Arrays.asList(VirtualMachine.State.Stopped));
+
+        verify(ccManager).stateTransitTo(running, ContainerCluster.Event.FaultsDetected);
+        verify(ccManager).stateTransitTo(alert, ContainerCluster.Event.RecoveryRequested);
+        verify(ccManager).stateTransitTo(alert, ContainerCluster.Event.OperationSucceeded);
+        verify(ccManager, never()).stateTransitTo(same(starting), any(ContainerCluster.Event.class));
+    }
+
+    @Test(expected = ManagementServerException.class)
+    public void checkClusterIsNotProvisionedTwiceAtOnce() throws ManagementServerException {
+        ccManager._provisioningsInProgress.add(1L);
+        ccManager.provisionContainerCluster(1L);
+    }
+
+    @Test
+    public void checkLikePatternWildcardsAreEscaped() {
+        Assert.assertEquals("web", ContainerClusterManagerImpl.escapeLikePattern("web"));
+        Assert.assertEquals("100\\%\\_a\\\\b", ContainerClusterManagerImpl.escapeLikePattern("100%_a\\b"));
+    }
+
+
+    @Test
+    public void checkNodeIsCreatedWhenWarmPoolVmAdoptionFails() throws Exception {
+        ContainerClusterVO containerCluster = new ContainerClusterVO();
+        containerCluster.setName("test");
+        containerCluster.setZoneId(1L);
+        containerCluster.setServiceOfferingId(1L);
+        containerCluster.setTemplateId(1L);
+        Map<ContainerClusterWarmPool.Key, Integer> targetSizes = new HashMap<ContainerClusterWarmPool.Key, Integer>();
+        targetSizes.put(new ContainerClusterWarmPool.Key(1L, 1L), 1);
+        ccManager._warmPool.setTargetSizes(targetSizes);
+
+        ContainerClusterWarmPoolVmVO pooledVm = new ContainerClusterWarmPoolVmVO(1L, 1L, 1L, 1L, 10L);
+        when(warmPoolVmDao.listByZoneAndServiceOffering(1L, 1L)).thenReturn(Arrays.asList(pooledVm));
+        when(warmPoolVmDao.claim(anyLong())).thenReturn(true);
+        doThrow(new CloudRuntimeException("moving the VM failed")).when(ccManager).adoptWarmPoolVm(eq(10L), same(containerCluster), anyString(), anyInt());
+        UserVm nodeVm = mock(UserVm.class);
+        doReturn(nodeVm).when(ccManager).createK8SNode(same(containerCluster), anyString(), anyInt());
+
+        Assert.assertSame(nodeVm, ccManager.claimOrCreateK8SNode(containerCluster, "userdata", 1));
+        verify(userVmService).destroyVm(10L, true);
+        verify(ccManager).createK8SNode(containerCluster, "userdata", 1);
+        Assert.assertEquals(1L, ccManager._warmPool.getMisses(new ContainerClusterWarmPool.Key(1L, 1L)));
+    }
+
+    private NetworkVO mockPooledNetwork() {
+        NetworkVO network = mock(NetworkVO.class);
+        when(network.getId()).thenReturn(5L);
+        when(network.getAccountId()).thenReturn(2L);
+        when(network.getState()).thenReturn(Network.State.Implemented);
+        when(pooledNetworkDao.listByZoneId(1L)).thenReturn(Arrays.asList(new ContainerClusterPooledNetworkVO(1L, 5L)));
+        when(networkDao.findById(5L)).thenReturn(network);
+        // runs the hand over without the database transaction around it
+        doAnswer(new Answer<Boolean>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Boolean answer(InvocationOnMock invocation) {
+                Object[] args = invocation.getArguments();
+                return ccManager.transferPooledNetwork((Long)args[0], (NetworkVO)args[1], (Account)args[2], (String)args[3], (List<IPAddressVO>)args[4]);
+            }
+        }).when(ccManager).transferPooledNetworkInTransaction(anyLong(), any(NetworkVO.class), any(Account.class), anyString(), any(List.class));
+        return network;
+    }
+
+    @Test
+    public void checkPooledNetworkIsHandedOverToClusterOwner() {
+        DataCenter zone = mock(DataCenter.class);
+        when(zone.getId()).thenReturn(1L);
+        Account owner = mock(Account.class);
+        when(owner.getId()).thenReturn(3L);
+        when(owner.getDomainId()).thenReturn(4L);
+        when(owner.getAccountName()).thenReturn("owner");
+        NetworkVO network = mockPooledNetwork();
+        IPAddressVO sourceNatIp = mock(IPAddressVO.class);
+        when(publicIpAddressDao.listByAssociatedNetwork(5L, null)).thenReturn(Arrays.asList(sourceNatIp));
+        when(pooledNetworkDao.claim(anyLong())).thenReturn(true);
+        doNothing().when(ccManager).publishIpUsageEvent(anyString(), anyLong(), any(IPAddressVO.class));
+
+        Assert.assertSame(network, ccManager.claimPooledNetwork(zone, owner, "test"));
+        verify(pooledNetworkDao).transferNetwork(5L, 3L, 4L);
+        verify(network).setName("test-network");
+        verify(resourceLimitMgr).decrementResourceCount(2L, ResourceType.network);
+        verify(resourceLimitMgr).decrementResourceCount(2L, ResourceType.public_ip, 1L);
+        verify(resourceLimitMgr).incrementResourceCount(3L, ResourceType.network);
+        verify(resourceLimitMgr).incrementResourceCount(3L, ResourceType.public_ip, 1L);
+        verify(ccManager).publishIpUsageEvent(EventTypes.EVENT_NET_IP_RELEASE, 2L, sourceNatIp);
+        verify(ccManager).publishIpUsageEvent(EventTypes.EVENT_NET_IP_ASSIGN, 3L, sourceNatIp);
+    }
+
+    @Test
+    public void checkNoPooledNetworkIsTakenWhenHandOverFails() {
+        DataCenter zone = mock(DataCenter.class);
+        when(zone.getId()).thenReturn(1L);
+        Account owner = mock(Account.class);
+        when(owner.getId()).thenReturn(3L);
+        when(owner.getDomainId()).thenReturn(4L);
+        mockPooledNetwork();
+        when(publicIpAddressDao.listByAssociatedNetwork(5L, null)).thenReturn(new ArrayList<IPAddressVO>());
+        when(pooledNetworkDao.claim(anyLong())).thenReturn(true);
+        doThrow(new CloudRuntimeException("Unknown column")).when(pooledNetworkDao).transferNetwork(5L, 3L, 4L);
+
+        Assert.assertNull(ccManager.claimPooledNetwork(zone, owner, "test"));
+        verify(resourceLimitMgr, never()).incrementResourceCount(3L, ResourceType.network);
+    }
+
+    private ContainerClusterVO mockStartingCluster(long id, Step step) {
+        ContainerClusterVO containerCluster = new ContainerClusterVO();
+        containerCluster.setId(id);
+        containerCluster.setName("cluster" + id);
+        containerCluster.setState(ContainerCluster.State.Starting);
+        when(containerClusterDao.findById(id)).thenReturn(containerCluster);
+        List<ContainerClusterCheckpointVO> checkpoints = new ArrayList<ContainerClusterCheckpointVO>();
+        if (step != null) {
+            // recorded by a management server that is no longer up
+            checkpoints.add(new ContainerClusterCheckpointVO(id, step, 0, null, 99L));
+        }
+        when(checkpointDao.listByClusterId(id)).thenReturn(checkpoints);
+        return containerCluster;
+    }
+
+    @Test
+    public void checkClustersThatCannotBeResumedAreMovedToAlert() {
+        doReturn(true).when(ccManager).stateTransitTo(anyLong(), any(ContainerCluster.Event.class));
+        when(checkpointDao.isManagementServerUp(99L)).thenReturn(false);
+        ContainerClusterVO ownerless = mockStartingCluster(1L, Step.Provisioning);
+        ContainerClusterVO startedFromStopped = mockStartingCluster(2L, Step.Starting);
+        ContainerClusterVO uncheckpointed = mockStartingCluster(3L, null);
+        when(containerClusterDao.findContainerClustersInState(ContainerCluster.State.Starting))
+                .thenReturn(Arrays.asList(ownerless, startedFromStopped, uncheckpointed));
+        when(accountDao.findById(anyLong())).thenReturn(null);
+        when(userDao.listByAccount(anyLong())).thenReturn(new ArrayList<UserVO>());
+
+        ccManager.recoverInterruptedProvisioning();
+        verify(ccManager).failProvisioning(same(ownerless), anyString());
+        Assert.assertTrue(ownerless.ischeckForGc());
+        verify(ccManager).stateTransitTo(2L, ContainerCluster.Event.OperationFailed);
+        Assert.assertFalse(startedFromStopped.ischeckForGc());
+        verify(ccManager, never()).failProvisioning(same(uncheckpointed), anyString());
+        verify(checkpointDao, never()).takeOver(anyLong(), anyLong(), anyLong());
+
+        // still without checkpoints on the next run
+        ccManager.recoverInterruptedProvisioning();
+        verify(ccManager).failProvisioning(same(uncheckpointed), anyString());
+    }
 }
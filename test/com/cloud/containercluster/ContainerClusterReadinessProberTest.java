@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContainerClusterReadinessProberTest {
+
+    private ContainerClusterReadinessProber prober;
+
+    @Before
+    public void setUp() throws Exception {
+        prober = new ContainerClusterReadinessProber(10, 100, 500);
+        prober.start();
+    }
+
+    @After
+    public void tearDown() {
+        prober.stop();
+    }
+
+    @Test
+    public void probeReachableEndpoint() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            Assert.assertTrue(prober.probeEndpoint(address, 5000).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void probeUnreachableEndpointTimesOut() throws Exception {
+        final int port;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = server.getLocalPort();
+        }
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        Assert.assertFalse(prober.probeEndpoint(address, 300).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void probeConditionRetriesUntilItHolds() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+        final Boolean ready = prober.probeCondition("test condition", new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return checks.incrementAndGet() >= 3;
+            }
+        }, 5000).get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(ready);
+        Assert.assertEquals(3, checks.get());
+    }
+
+    @Test
+    public void pendingProbesCompleteOnStop() throws Exception {
+        prober.stop();
+        Assert.assertFalse(prober.probeEndpoint(new InetSocketAddress(InetAddress.getLoopbackAddress(), 1), 5000).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void backoffIsCappedAndJittered() {
+        for (int attempt = 0; attempt < 40; attempt++) {
+            final long expected = Math.min(100, 10L << Math.min(attempt, 30));
+            final long delay = prober.nextBackoff(attempt);
+            Assert.assertTrue(delay >= expected / 2 && delay <= expected);
+        }
+    }
+}
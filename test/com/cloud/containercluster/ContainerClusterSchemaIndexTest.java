@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.Table;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.cloud.utils.db.Attribute;
+import com.cloud.utils.db.GenericDaoBase;
+import com.cloud.utils.db.SearchBase;
+import com.cloud.utils.db.SearchCriteria;
+
+/**
+ * Checks that the schema built by the migrations has an index for every query the container cluster DAOs run, so
+ * none of them has to scan a whole table. The queries are read from the search builders of the DAOs, so a new DAO
+ * query fails this test until the migrations index it. An index serves a query if its leading columns are the
+ * columns the query matches by equality or by a list of values.
+ */
+public class ContainerClusterSchemaIndexTest {
+
+    private static final String DAO_PACKAGE = "com.cloud.containercluster.dao";
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("CREATE TABLE[^`]*`cloud`\\.`(\\w+)`\\s*\\((.*?)\\)\\s*ENGINE",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern TABLE_INDEX = Pattern.compile("(?:KEY|INDEX)\\s*(?:`\\w+`)?\\s*\\(([^)]*)\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_INDEX = Pattern.compile("ALTER TABLE\\s+`cloud`\\.`(\\w+)`\\s+ADD\\s+(?:UNIQUE\\s+)?(?:INDEX|KEY)\\s*`\\w+`\\s*\\(([^)]*)\\)",
+            Pattern.CASE_INSENSITIVE);
+
+    // tables created by the migrations, and their indexed columns in index order
+    private static final Map<String, List<List<String>>> s_indexes = new HashMap<String, List<List<String>>>();
+
+    @BeforeClass
+    public static void loadMigrations() throws IOException, URISyntaxException {
+        final File[] migrations = new File(ContainerClusterSchemaIndexTest.class.getClassLoader().getResource("db/migration").toURI()).listFiles();
+        Assert.assertNotNull(migrations);
+        for (File migration : migrations) {
+            final String sql = new String(Files.readAllBytes(migration.toPath()), StandardCharsets.UTF_8);
+            final Matcher table = CREATE_TABLE.matcher(sql);
+            while (table.find()) {
+                if (!s_indexes.containsKey(table.group(1))) {
+                    s_indexes.put(table.group(1), new ArrayList<List<String>>());
+                }
+                final Matcher index = TABLE_INDEX.matcher(table.group(2));
+                while (index.find()) {
+                    addIndex(table.group(1), index.group(1));
+                }
+            }
+            final Matcher index = ADD_INDEX.matcher(sql);
+            while (index.find()) {
+                addIndex(index.group(1), index.group(2));
+            }
+        }
+    }
+
+    private static void addIndex(final String table, final String columns) {
+        final List<String> indexColumns = new ArrayList<String>();
+        for (String column : columns.split(",")) {
+            indexColumns.add(column.replace("`", "").trim());
+        }
+        if (!s_indexes.containsKey(table)) {
+            s_indexes.put(table, new ArrayList<List<String>>());
+        }
+        s_indexes.get(table).add(indexColumns);
+    }
+
+    private static boolean isIndexed(final String table, final Set<String> columns) {
+        for (List<String> index : s_indexes.get(table)) {
+            if (index.size() >= columns.size() && new HashSet<String>(index.subList(0, columns.size())).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the DAO implementations compiled in to the DAO package
+    private static List<GenericDaoBase<?, ?>> loadDaos() throws ReflectiveOperationException, URISyntaxException {
+        final File[] classFiles = new File(ContainerClusterSchemaIndexTest.class.getClassLoader().getResource(DAO_PACKAGE.replace('.', '/')).toURI()).listFiles();
+        Assert.assertNotNull(classFiles);
+        final List<GenericDaoBase<?, ?>> daos = new ArrayList<GenericDaoBase<?, ?>>();
+        for (File classFile : classFiles) {
+            if (classFile.getName().endsWith("DaoImpl.class")) {
+                final String className = DAO_PACKAGE + "." + classFile.getName().substring(0, classFile.getName().length() - ".class".length());
+                daos.add((GenericDaoBase<?, ?>)Class.forName(className).newInstance());
+            }
+        }
+        return daos;
+    }
+
+    // reads a field the database layer keeps to itself, declared by the class of the object or one of its super classes
+    private static Object getField(final Object object, final String name) throws ReflectiveOperationException {
+        Class<?> clazz = object.getClass();
+        while (clazz != null) {
+            try {
+                final Field field = clazz.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(object);
+            } catch (NoSuchFieldException e) {
+                clazz = clazz.getSuperclass();
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    // columns of the table that a search matches by equality or by a list of values
+    private static Set<String> getMatchedColumns(final SearchBase<?, ?, ?> search, final String table) throws ReflectiveOperationException {
+        final Set<String> columns = new LinkedHashSet<String>();
+        for (Object condition : (List<?>)getField(search, "_conditions")) {
+            final Attribute attr = (Attribute)getField(condition, "attr");
+            final SearchCriteria.Op op = (SearchCriteria.Op)getField(condition, "op");
+            if (attr != null && table.equals(getField(attr, "table"))
+                    && (op == SearchCriteria.Op.EQ || op == SearchCriteria.Op.IN)) {
+                columns.add((String)getField(attr, "columnName"));
+            }
+        }
+        return columns;
+    }
+
+    @Test
+    public void checkDaoQueriesAreIndexed() throws ReflectiveOperationException, URISyntaxException {
+        final List<String> unindexed = new ArrayList<String>();
+        int checked = 0;
+        for (GenericDaoBase<?, ?> dao : loadDaos()) {
+            final Class<?> entity = (Class<?>)((ParameterizedType)dao.getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+            final String table = entity.getAnnotation(Table.class).name();
+            if (!s_indexes.containsKey(table)) {
+                // views and tables of CloudStack itself are indexed elsewhere
+                continue;
+            }
+            for (Field field : dao.getClass().getDeclaredFields()) {
+                if (!SearchBase.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                final Set<String> columns = getMatchedColumns((SearchBase<?, ?, ?>)field.get(dao), table);
+                if (columns.isEmpty()) {
+                    continue;
+                }
+                checked++;
+                if (!isIndexed(table, columns)) {
+                    unindexed.add(dao.getClass().getSimpleName() + "." + field.getName() + " on " + table + columns);
+                }
+            }
+        }
+        Assert.assertTrue("No DAO query was checked", checked > 0);
+        Assert.assertTrue("No index leads with the columns of " + unindexed + ", indexes: " + s_indexes, unindexed.isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.cloudstack.framework.config.ScopedConfigStorage;
+import org.apache.cloudstack.framework.config.dao.ConfigurationDao;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContainerClusterSettingsTest {
+
+    private ConfigurationDao configDao;
+    private ScopedConfigStorage zoneConfigStorage;
+
+    @Before
+    public void setUp() {
+        configDao = mock(ConfigurationDao.class);
+        zoneConfigStorage = mock(ScopedConfigStorage.class);
+    }
+
+    @Test
+    public void checkDynamicSettingIsCachedForItsTimeToLive() {
+        ContainerClusterSettings settings = new ContainerClusterSettings(configDao, null, 60000);
+        when(configDao.getValue(CcsConfig.ContainerClusterTemplateName.key())).thenReturn("coreos");
+
+        Assert.assertEquals("coreos", settings.value(CcsConfig.ContainerClusterTemplateName));
+        when(configDao.getValue(CcsConfig.ContainerClusterTemplateName.key())).thenReturn("coreos-2");
+        Assert.assertEquals("coreos", settings.value(CcsConfig.ContainerClusterTemplateName));
+        verify(configDao, times(1)).getValue(CcsConfig.ContainerClusterTemplateName.key());
+
+        settings.invalidate();
+        Assert.assertEquals("coreos-2", settings.value(CcsConfig.ContainerClusterTemplateName));
+    }
+
+    @Test
+    public void checkExpiredDynamicSettingIsReadAgain() {
+        ContainerClusterSettings settings = new ContainerClusterSettings(configDao, null, 0);
+        when(configDao.getValue(CcsConfig.ContainerClusterTemplateName.key())).thenReturn("coreos");
+        Assert.assertEquals("coreos", settings.value(CcsConfig.ContainerClusterTemplateName));
+
+        when(configDao.getValue(CcsConfig.ContainerClusterTemplateName.key())).thenReturn("coreos-2");
+        Assert.assertEquals("coreos-2", settings.value(CcsConfig.ContainerClusterTemplateName));
+    }
+
+    @Test
+    public void checkStaticSettingIsReadOnce() {
+        ContainerClusterSettings settings = new ContainerClusterSettings(configDao, null, 0);
+        when(configDao.getValue(CcsConfig.ContainerClusterGcInterval.key())).thenReturn("60");
+        Assert.assertEquals(Long.valueOf(60), settings.value(CcsConfig.ContainerClusterGcInterval));
+
+        when(configDao.getValue(CcsConfig.ContainerClusterGcInterval.key())).thenReturn("120");
+        Assert.assertEquals(Long.valueOf(60), settings.value(CcsConfig.ContainerClusterGcInterval));
+    }
+
+    @Test
+    public void checkZoneSettingFallsBackToGlobalValue() {
+        ContainerClusterSettings settings = new ContainerClusterSettings(configDao, zoneConfigStorage, 60000);
+        when(configDao.getValue(CcsConfig.ContainerClusterPlacementStrategy.key())).thenReturn("spread");
+        when(zoneConfigStorage.getConfigValue(1L, CcsConfig.ContainerClusterPlacementStrategy)).thenReturn("pack");
+
+        Assert.assertEquals("pack", settings.valueIn(CcsConfig.ContainerClusterPlacementStrategy, 1L));
+        Assert.assertEquals("spread", settings.valueIn(CcsConfig.ContainerClusterPlacementStrategy, 2L));
+        Assert.assertEquals("spread", settings.value(CcsConfig.ContainerClusterPlacementStrategy));
+    }
+
+    @Test
+    public void checkInvalidValueFallsBackToDefault() {
+        ContainerClusterSettings settings = new ContainerClusterSettings(configDao, null, 60000);
+        when(configDao.getValue(CcsConfig.ContainerClusterPlacementAttempts.key())).thenReturn("three");
+
+        Assert.assertEquals(Integer.valueOf(CcsConfig.ContainerClusterPlacementAttempts.defaultValue()),
+                settings.value(CcsConfig.ContainerClusterPlacementAttempts));
+    }
+}
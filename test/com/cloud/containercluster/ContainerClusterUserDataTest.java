@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContainerClusterUserDataTest {
+
+    private static final String CLOUD_CONFIG = "#cloud-config\nwrite-files:\n  - path: /etc/kubernetes/ssl/apiserver.pem\n"
+            + "    content: |\n      -----BEGIN CERTIFICATE-----\n      MIIB\n      -----END CERTIFICATE-----\n"
+            + "  - path: /etc/kubernetes/ssl/ca.pem\n    content: |\n      -----BEGIN CERTIFICATE-----\n      MIIB\n"
+            + "      -----END CERTIFICATE-----\n";
+
+    @Test
+    public void checkCompressedUserDataDecompressesToTheCloudConfig() throws IOException {
+        String userData = ContainerClusterUserData.encode("test", CLOUD_CONFIG, true);
+
+        Assert.assertTrue(userData.length() < Base64.encodeBase64String(CLOUD_CONFIG.getBytes(StandardCharsets.UTF_8)).length());
+        Assert.assertEquals(CLOUD_CONFIG, gunzip(Base64.decodeBase64(userData)));
+    }
+
+    @Test
+    public void checkUserDataIsPlainWhenCompressionIsDisabled() {
+        Assert.assertEquals(Base64.encodeBase64String(CLOUD_CONFIG.getBytes(StandardCharsets.UTF_8)),
+                ContainerClusterUserData.encode("test", CLOUD_CONFIG, false));
+    }
+
+    @Test
+    public void checkUserDataIsPlainWhenCompressionDoesNotShrinkIt() {
+        Assert.assertEquals(Base64.encodeBase64String("#cloud-config\n".getBytes(StandardCharsets.UTF_8)),
+                ContainerClusterUserData.encode("test", "#cloud-config\n", true));
+    }
+
+    private static String gunzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
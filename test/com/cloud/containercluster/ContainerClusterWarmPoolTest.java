@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cloud.utils.Ternary;
+
+public class ContainerClusterWarmPoolTest {
+
+    @Test
+    public void checkParseTargetSizesSkipsInvalidEntries() {
+        List<Ternary<String, String, Integer>> targetSizes = ContainerClusterWarmPool.parseTargetSizes(
+                "zone-1:offering-1:3, zone-2:offering-2 , zone-3:offering-3:many,zone-4:offering-4:-1, zone-5 : offering-5 : 0");
+
+        Assert.assertEquals(2, targetSizes.size());
+        Assert.assertEquals("zone-1", targetSizes.get(0).first());
+        Assert.assertEquals("offering-1", targetSizes.get(0).second());
+        Assert.assertEquals(3, targetSizes.get(0).third().intValue());
+        Assert.assertEquals("zone-5", targetSizes.get(1).first());
+        Assert.assertEquals(0, targetSizes.get(1).third().intValue());
+
+        Assert.assertTrue(ContainerClusterWarmPool.parseTargetSizes(null).isEmpty());
+        Assert.assertTrue(ContainerClusterWarmPool.parseTargetSizes(" ").isEmpty());
+    }
+
+    @Test
+    public void checkHitsAndMissesAreCountedPerPool() {
+        ContainerClusterWarmPool warmPool = new ContainerClusterWarmPool();
+        Map<ContainerClusterWarmPool.Key, Integer> targetSizes = new HashMap<ContainerClusterWarmPool.Key, Integer>();
+        targetSizes.put(new ContainerClusterWarmPool.Key(1L, 10L), 2);
+        warmPool.setTargetSizes(targetSizes);
+
+        Assert.assertEquals(2, warmPool.getTargetSize(1L, 10L));
+        Assert.assertEquals(0, warmPool.getTargetSize(1L, 11L));
+
+        warmPool.recordHit(1L, 10L);
+        warmPool.recordHit(1L, 10L);
+        warmPool.recordMiss(1L, 10L);
+        warmPool.recordMiss(2L, 10L);
+
+        Assert.assertEquals(2, warmPool.getHits(new ContainerClusterWarmPool.Key(1L, 10L)));
+        Assert.assertEquals(1, warmPool.getMisses(new ContainerClusterWarmPool.Key(1L, 10L)));
+        Assert.assertEquals(0, warmPool.getHits(new ContainerClusterWarmPool.Key(2L, 10L)));
+        Assert.assertEquals(1, warmPool.getMisses(new ContainerClusterWarmPool.Key(2L, 10L)));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 ShapeBlue Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cloud.containercluster;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cloud.storage.VMTemplateVO;
+
+public class ContainerServiceReadinessCacheTest {
+
+    private static final String SETTINGS = ContainerServiceReadinessCache.settingsFingerprint("coreos", "master.yml", "node.yml", "offering");
+
+    @Test
+    public void checkVerdictIsCachedForTheSameSettings() {
+        ContainerServiceReadinessCache cache = new ContainerServiceReadinessCache(60000);
+        VMTemplateVO template = new VMTemplateVO();
+        cache.put(1L, SETTINGS, template, null, null, true);
+
+        Assert.assertSame(template, cache.get(1L, SETTINGS).getTemplate());
+        Assert.assertNull(cache.get(2L, SETTINGS));
+    }
+
+    @Test
+    public void checkVerdictIsDroppedWhenSettingsChange() {
+        ContainerServiceReadinessCache cache = new ContainerServiceReadinessCache(60000);
+        cache.put(1L, SETTINGS, new VMTemplateVO(), null, null, true);
+
+        Assert.assertNull(cache.get(1L, ContainerServiceReadinessCache.settingsFingerprint("coreos-2", "master.yml", "node.yml", "offering")));
+        Assert.assertNull(cache.get(1L, SETTINGS));
+    }
+
+    @Test
+    public void checkVerdictExpires() {
+        ContainerServiceReadinessCache cache = new ContainerServiceReadinessCache(0);
+        cache.put(1L, SETTINGS, new VMTemplateVO(), null, null, true);
+
+        Assert.assertNull(cache.get(1L, SETTINGS));
+    }
+
+    @Test
+    public void checkVerdictWithTemplateMissingInZoneIsNotCached() {
+        ContainerServiceReadinessCache cache = new ContainerServiceReadinessCache(60000);
+        cache.put(1L, SETTINGS, new VMTemplateVO(), null, null, true);
+
+        Assert.assertFalse(cache.put(1L, SETTINGS, new VMTemplateVO(), null, null, false).isTemplateInZone());
+        Assert.assertNull(cache.get(1L, SETTINGS));
+    }
+
+    @Test
+    public void checkSettingsFingerprintTellsValuesApart() {
+        Assert.assertNotEquals(ContainerServiceReadinessCache.settingsFingerprint("a;b", "c"),
+                ContainerServiceReadinessCache.settingsFingerprint("a", "b;c"));
+    }
+}
@@ -15,4 +15,4 @@
 # specific language governing permissions and limitations
 # under the License.
 
-__all__ = ["baseCmd","baseResponse","createContainerCluster","deleteContainerCluster","listContainerCluster","listContainerClusterCACert","startContainerCluster","stopContainerCluster"]
+__all__ = ["baseCmd","baseResponse","createContainerCluster","deleteContainerCluster","deleteContainerClusters","listContainerCluster","listContainerClusterCACert","startContainerCluster","startContainerClusters","stopContainerCluster","stopContainerClusters"]
@@ -19,9 +19,12 @@
 import copy
 from marvin.ccsAPI.createContainerCluster import createContainerClusterResponse
 from marvin.ccsAPI.deleteContainerCluster import deleteContainerClusterResponse
+from marvin.ccsAPI.deleteContainerClusters import deleteContainerClustersResponse
 from marvin.ccsAPI.listContainerClusterCACert import listContainerClusterCACertResponse
 from marvin.ccsAPI.stopContainerCluster import stopContainerClusterResponse
 from marvin.ccsAPI.startContainerCluster import startContainerClusterResponse
+from marvin.ccsAPI.stopContainerClusters import stopContainerClustersResponse
+from marvin.ccsAPI.startContainerClusters import startContainerClustersResponse
 from marvin.ccsAPI.listContainerCluster import listContainerClusterResponse
 
 class CCSAPIClient(object):
@@ -69,4 +72,19 @@ class CCSAPIClient(object):
     def listContainerCluster(self, command, method="GET"):
         response = listContainerClusterResponse()
         response = self.connection.marvinRequest(command, response_type=response, method=method)
-        return response
\ No newline at end of file
+        return response
+
+    def startContainerClusters(self, command, method="GET"):
+        response = startContainerClustersResponse()
+        response = self.connection.marvinRequest(command, response_type=response, method=method)
+        return response
+
+    def stopContainerClusters(self, command, method="GET"):
+        response = stopContainerClustersResponse()
+        response = self.connection.marvinRequest(command, response_type=response, method=method)
+        return response
+
+    def deleteContainerClusters(self, command, method="GET"):
+        response = deleteContainerClustersResponse()
+        response = self.connection.marvinRequest(command, response_type=response, method=method)
+        return response
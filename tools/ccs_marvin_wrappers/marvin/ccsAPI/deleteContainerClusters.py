@@ -0,0 +1,50 @@
+# Licensed to the Apache Software Foundation (ASF) under one
+# or more contributor license agreements.  See the NOTICE file
+# distributed with this work for additional information
+# regarding copyright ownership.  The ASF licenses this file
+# to you under the Apache License, Version 2.0 (the
+# "License"); you may not use this file except in compliance
+# with the License.  You may obtain a copy of the License at
+#
+#   http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing,
+# software distributed under the License is distributed on an
+# "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+# KIND, either express or implied.  See the License for the
+# specific language governing permissions and limitations
+# under the License.
+
+
+"""Deletes a batch of container clusters"""
+from baseCmd import *
+from baseResponse import *
+class deleteContainerClustersCmd (baseCmd):
+    typeInfo = {}
+    def __init__(self):
+        self.isAsync = "true"
+        """the IDs of the container clusters to delete"""
+        """Required"""
+        self.ids = []
+        self.typeInfo['ids'] = 'list'
+        self.required = ["ids",]
+
+class deleteContainerClustersResponse (baseResponse):
+    typeInfo = {}
+    def __init__(self):
+        """the id of the container cluster"""
+        self.id = None
+        self.typeInfo['id'] = 'string'
+        """the name of the container cluster"""
+        self.name = None
+        self.typeInfo['name'] = 'string'
+        """the state of the container cluster after the operation"""
+        self.state = None
+        self.typeInfo['state'] = 'string'
+        """true if the operation succeeded on the container cluster"""
+        self.success = None
+        self.typeInfo['success'] = 'boolean'
+        """the reason the operation failed on the container cluster"""
+        self.displaytext = None
+        self.typeInfo['displaytext'] = 'string'
+